@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+
+/**
+ * An address ({@code ADDRESS_STRUCTURE} of the grammar).
+ */
+public final class Address{
+
+	private String value;
+	private String line1;
+	private String line2;
+	private String line3;
+	private String city;
+	private String state;
+	private String postalCode;
+	private String country;
+
+
+	Address(){}
+
+	/**
+	 * @return	The address lines, joined by newlines.
+	 */
+	public String getValue(){
+		return value;
+	}
+
+	void setValue(final String value){
+		this.value = value;
+	}
+
+	public String getLine1(){
+		return line1;
+	}
+
+	void setLine1(final String line1){
+		this.line1 = line1;
+	}
+
+	public String getLine2(){
+		return line2;
+	}
+
+	void setLine2(final String line2){
+		this.line2 = line2;
+	}
+
+	public String getLine3(){
+		return line3;
+	}
+
+	void setLine3(final String line3){
+		this.line3 = line3;
+	}
+
+	public String getCity(){
+		return city;
+	}
+
+	void setCity(final String city){
+		this.city = city;
+	}
+
+	public String getState(){
+		return state;
+	}
+
+	void setState(final String state){
+		this.state = state;
+	}
+
+	public String getPostalCode(){
+		return postalCode;
+	}
+
+	void setPostalCode(final String postalCode){
+		this.postalCode = postalCode;
+	}
+
+	public String getCountry(){
+		return country;
+	}
+
+	void setCountry(final String country){
+		this.country = country;
+	}
+
+	@Override
+	public String toString(){
+		return "Address{value=" + value + ", city=" + city + ", country=" + country + "}";
+	}
+
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * The ANSEL (ANSI Z39.47) charset.
+ * <p>Conversion tables based upon <a href="http://www.heiner-eichmann.de/gedcom/oldansset.htm">ANSEL to Unicode Conversion Table</a>
+ * and <a href="http://lcweb2.loc.gov/diglib/codetables/45.html">Code Table Extended Latin (ANSEL)</a>, they are read once from
+ * {@code /ansel1byte.properties} and {@code /ansel2byte.properties} into primitive lookup tables.</p>
+ */
+final class AnselCharset extends Charset{
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AnselCharset.class);
+
+	static final String NAME = "ANSEL";
+	private static final String[] ALIASES = {"ANSI_Z39.47", "Z39.47"};
+
+	/** Marks a missing entry in the lookup tables (no ANSEL sequence is mapped to U+0000). */
+	static final char UNMAPPED = 0;
+
+	/** Unicode character for each byte, {@link #UNMAPPED} if none. */
+	private static final char[] ONE_BYTE = new char[256];
+	/**
+	 * Unicode character for each non-spacing diacritic (first byte) followed by a base character (second byte), {@link #UNMAPPED}
+	 * if none; rows are <code>null</code> for bytes that cannot start such a sequence.
+	 */
+	private static final char[][] TWO_BYTE = new char[256][];
+	/**
+	 * ANSEL sequence for each Unicode character (one byte, or two bytes packed in a big-endian {@code char}), {@link #UNMAPPED}
+	 * if none; pages are indexed by the high byte of the character, and are <code>null</code> if no character in them is mapped.
+	 */
+	private static final char[][] ENCODE_PAGES = new char[256][];
+	static{
+		final List<int[]> controls = new ArrayList<>(0);
+		loadTable("/ansel1byte.properties", 1, controls);
+		loadTable("/ansel2byte.properties", 2, controls);
+		//vendor characters in the C1 control range are written only if there is no other choice
+		for(final int[] control : controls)
+			addEncoding((char)control[1], control[0]);
+	}
+
+	static final AnselCharset INSTANCE = new AnselCharset();
+
+
+	private AnselCharset(){
+		super(NAME, ALIASES);
+	}
+
+	/**
+	 * NOTE: the entries are read in file order, the first mapping of a character is the one used for encoding; single bytes in the
+	 * C1 control range are collected into {@code controls} instead, since some vendors use them for characters that ANSEL already
+	 * encodes otherwise.
+	 */
+	private static void loadTable(final String filename, final int keySize, final List<int[]> controls){
+		final InputStream is = AnselCharset.class.getResourceAsStream(filename);
+		if(is == null){
+			LOGGER.error("Cannot find ANSEL table {}", filename);
+			return;
+		}
+
+		try(final BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))){
+			String line;
+			while((line = br.readLine()) != null){
+				line = line.trim();
+				if(line.isEmpty() || line.charAt(0) == '#')
+					continue;
+
+				final int separator = line.indexOf('=');
+				final int ansel;
+				final char unicode;
+				try{
+					ansel = Integer.decode(line.substring(0, separator).trim());
+					unicode = (char)Integer.decode(line.substring(separator + 1).trim()).intValue();
+				}
+				catch(final NumberFormatException | IndexOutOfBoundsException e){
+					LOGGER.warn("Skipping malformed line '{}' in ANSEL table {}", line, filename);
+					continue;
+				}
+
+				if(keySize == 1){
+					ONE_BYTE[ansel] = unicode;
+					if(ansel < 0xA0)
+						controls.add(new int[]{ansel, unicode});
+					else
+						addEncoding(unicode, ansel);
+				}
+				else{
+					final int first = ansel >>> 8;
+					if(TWO_BYTE[first] == null)
+						TWO_BYTE[first] = new char[256];
+					TWO_BYTE[first][ansel & 0xFF] = unicode;
+					addEncoding(unicode, ansel);
+				}
+			}
+		}
+		catch(final IOException e){
+			LOGGER.error("Cannot load ANSEL table", e);
+		}
+	}
+
+	private static void addEncoding(final char unicode, final int ansel){
+		final int page = unicode >>> 8;
+		if(ENCODE_PAGES[page] == null)
+			ENCODE_PAGES[page] = new char[256];
+		if(ENCODE_PAGES[page][unicode & 0xFF] == UNMAPPED)
+			ENCODE_PAGES[page][unicode & 0xFF] = (char)ansel;
+	}
+
+	/**
+	 * Whether the given byte is a non-spacing diacritic that can combine with the following byte.
+	 *
+	 * @param b	The byte, as an unsigned value.
+	 * @return	Whether the byte may start a two-byte sequence.
+	 */
+	static boolean isCombining(final int b){
+		return (TWO_BYTE[b] != null);
+	}
+
+	/**
+	 * Whether the given byte is a non-spacing diacritic that also stands on its own (as a combining mark).
+	 *
+	 * @param b	The byte, as an unsigned value.
+	 * @return	Whether the byte is a diacritic.
+	 */
+	static boolean isDiacritic(final int b){
+		return (TWO_BYTE[b] != null && ONE_BYTE[b] != UNMAPPED);
+	}
+
+	/**
+	 * @param b	The byte, as an unsigned value.
+	 * @return	The Unicode character of the byte, {@link #UNMAPPED} if none.
+	 */
+	static char decode(final int b){
+		return ONE_BYTE[b];
+	}
+
+	/**
+	 * @param diacritic	The non-spacing diacritic, as an unsigned value.
+	 * @param base	The base character, as an unsigned value.
+	 * @return	The Unicode character of the pair, {@link #UNMAPPED} if none.
+	 */
+	static char decode(final int diacritic, final int base){
+		final char[] row = TWO_BYTE[diacritic];
+		return (row != null? row[base]: UNMAPPED);
+	}
+
+	/**
+	 * @param chr	The Unicode character.
+	 * @return	The ANSEL sequence of the character (one byte, or two bytes packed big-endian), -1 if none.
+	 */
+	static int encode(final char chr){
+		if(chr < 0x80)
+			return chr;
+
+		final char[] page = ENCODE_PAGES[chr >>> 8];
+		final char ansel = (page != null? page[chr & 0xFF]: UNMAPPED);
+		return (ansel != UNMAPPED? ansel: -1);
+	}
+
+	/**
+	 * @param ansel	An ANSEL sequence as returned by {@link #encode(char)}.
+	 * @return	Whether the sequence is a single non-spacing diacritic.
+	 */
+	static boolean isCombiningMark(final int ansel){
+		return (ansel >= 0x80 && ansel <= 0xFF && isDiacritic(ansel));
+	}
+
+	@Override
+	public boolean contains(final Charset cs){
+		return (cs instanceof AnselCharset || StandardCharsets.US_ASCII.equals(cs));
+	}
+
+	@Override
+	public CharsetDecoder newDecoder(){
+		return new AnselCharsetDecoder(this);
+	}
+
+	@Override
+	public CharsetEncoder newEncoder(){
+		return new AnselCharsetEncoder(this);
+	}
+
+}
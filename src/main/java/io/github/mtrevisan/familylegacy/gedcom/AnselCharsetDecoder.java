@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+
+/**
+ * Decodes ANSEL bytes into Unicode characters.
+ * <p>Non-spacing diacritics precede the character they modify, in the order their combining marks follow it in Unicode: if the first
+ * diacritic and the character are mapped as a pair they are decoded as a single precomposed character, and the other diacritics
+ * follow it as combining marks.<br>
+ * Diacritics at the end of the input buffer are left there until more input is available, so a sequence is never split; diacritics
+ * at the end of the input are malformed.</p>
+ */
+final class AnselCharsetDecoder extends CharsetDecoder{
+
+	AnselCharsetDecoder(final AnselCharset charset){
+		super(charset, 1.f, 1.f);
+	}
+
+	@Override
+	protected CoderResult decodeLoop(final ByteBuffer in, final CharBuffer out){
+		final int limit = in.limit();
+		while(in.hasRemaining()){
+			final int position = in.position();
+			final int b = in.get(position) & 0xFF;
+			if(b < 0x80){
+				if(!out.hasRemaining())
+					return CoderResult.OVERFLOW;
+
+				in.position(position + 1);
+				out.put((char)b);
+				continue;
+			}
+
+			if(AnselCharset.isCombining(b)){
+				int base = position + 1;
+				if(AnselCharset.isDiacritic(b))
+					while(base < limit && AnselCharset.isDiacritic(in.get(base) & 0xFF))
+						base ++;
+				if(base == limit)
+					//wait for the base character
+					return CoderResult.UNDERFLOW;
+
+				final CoderResult result = decodeSequence(in, out, base);
+				if(result != null)
+					return result;
+				if(in.position() > position)
+					continue;
+			}
+
+			final char chr = AnselCharset.decode(b);
+			if(chr == AnselCharset.UNMAPPED)
+				return CoderResult.unmappableForLength(1);
+			if(!out.hasRemaining())
+				return CoderResult.OVERFLOW;
+
+			in.position(position + 1);
+			out.put(chr);
+		}
+		return CoderResult.UNDERFLOW;
+	}
+
+	/**
+	 * Decodes the diacritics from the current position up to the base character, if they can be decoded together.
+	 *
+	 * @return	The overflow result, or <code>null</code> (the position is not moved if the sequence cannot be decoded together).
+	 */
+	private static CoderResult decodeSequence(final ByteBuffer in, final CharBuffer out, final int base){
+		final int position = in.position();
+		final int baseByte = in.get(base) & 0xFF;
+		char chr = AnselCharset.decode(in.get(position) & 0xFF, baseByte);
+		int diacriticsStart = position + 1;
+		if(chr == AnselCharset.UNMAPPED){
+			//the base character followed by all the diacritics as combining marks (but never move them past a line end)
+			chr = (baseByte < 0x80? (char)baseByte: AnselCharset.decode(baseByte));
+			if(chr <= ' ' || !AnselCharset.isDiacritic(in.get(position) & 0xFF))
+				return null;
+
+			diacriticsStart = position;
+		}
+
+		if(out.remaining() < 1 + base - diacriticsStart)
+			return CoderResult.OVERFLOW;
+
+		out.put(chr);
+		for(int i = diacriticsStart; i < base; i ++)
+			out.put(AnselCharset.decode(in.get(i) & 0xFF));
+		in.position(base + 1);
+		return null;
+	}
+
+}
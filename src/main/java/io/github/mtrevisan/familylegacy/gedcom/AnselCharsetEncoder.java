@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.text.Normalizer;
+
+
+/**
+ * Encodes Unicode characters into ANSEL bytes.
+ * <p>Precomposed characters are written as a non-spacing diacritic followed by the base character; the ones not in the tables (like
+ * letters with more diacritics) are decomposed first. Combining marks following a character are moved before it, in the same order,
+ * as ANSEL requires; a combining mark with no character before it is written in its spacing form (the diacritic followed by a
+ * space).<br>
+ * The last character is kept until it is known whether a combining mark follows it, so it is written by the next call, or by the
+ * flush.</p>
+ */
+final class AnselCharsetEncoder extends CharsetEncoder{
+
+	private static final int NONE = -1;
+
+	private static final int SPACE = ' ';
+
+
+	/** The ANSEL sequence of the last base character, {@link #NONE} if none. */
+	private int pending = NONE;
+
+
+	AnselCharsetEncoder(final AnselCharset charset){
+		//NOTE: a pending two-byte sequence can be written along with the next character, and a decomposed character is written
+		//as its diacritics followed by its base
+		super(charset, 1.f, 4.f);
+	}
+
+	@Override
+	public boolean canEncode(final char chr){
+		return (!Character.isSurrogate(chr) && (AnselCharset.encode(chr) >= 0 || decompose(chr) != null));
+	}
+
+	@Override
+	protected CoderResult encodeLoop(final CharBuffer in, final ByteBuffer out){
+		while(in.hasRemaining()){
+			final char chr = in.get(in.position());
+			final int ansel = (Character.isSurrogate(chr)? -1: AnselCharset.encode(chr));
+			if(AnselCharset.isCombiningMark(ansel)){
+				//the diacritic precedes the character it modifies, if there is none it is spacing
+				if(out.remaining() < (pending != NONE && pending <= 0xFF? 1: 2))
+					return CoderResult.OVERFLOW;
+
+				in.get();
+				if(pending > 0xFF){
+					//the diacritic of a precomposed character comes first
+					out.put((byte)(pending >>> 8));
+					pending &= 0xFF;
+				}
+				out.put((byte)ansel);
+				if(pending == NONE)
+					out.put((byte)SPACE);
+				continue;
+			}
+
+			if(pending != NONE && !writePending(out))
+				return CoderResult.OVERFLOW;
+
+			if(ansel < 0){
+				final int[] decomposition = (Character.isSurrogate(chr)? null: decompose(chr));
+				if(decomposition == null)
+					return unmappable(in, chr);
+				if(out.remaining() < decomposition.length - 1)
+					return CoderResult.OVERFLOW;
+
+				in.get();
+				for(int i = 1; i < decomposition.length; i ++)
+					out.put((byte)decomposition[i]);
+				pending = decomposition[0];
+				continue;
+			}
+
+			in.get();
+			pending = ansel;
+		}
+		return CoderResult.UNDERFLOW;
+	}
+
+	/**
+	 * Decomposes a character not in the tables into a base character and its combining marks.
+	 *
+	 * @return	The ANSEL sequence of the base character followed by the ones of the marks, <code>null</code> if the character cannot be
+	 * 	decomposed, or the base character or one of the marks cannot be encoded.
+	 */
+	private static int[] decompose(final char chr){
+		final String decomposition = Normalizer.normalize(String.valueOf(chr), Normalizer.Form.NFD);
+		if(decomposition.length() < 2)
+			return null;
+
+		final int[] ansels = new int[decomposition.length()];
+		for(int i = 0; i < ansels.length; i ++){
+			final char component = decomposition.charAt(i);
+			ansels[i] = (Character.isSurrogate(component)? -1: AnselCharset.encode(component));
+			if(ansels[i] < 0 || AnselCharset.isCombiningMark(ansels[i]) != (i > 0))
+				return null;
+		}
+		return ansels;
+	}
+
+	private static CoderResult unmappable(final CharBuffer in, final char chr){
+		if(!Character.isSurrogate(chr))
+			return CoderResult.unmappableForLength(1);
+		if(Character.isLowSurrogate(chr))
+			return CoderResult.malformedForLength(1);
+		if(in.remaining() < 2)
+			//wait for the low surrogate
+			return CoderResult.UNDERFLOW;
+		return (Character.isLowSurrogate(in.get(in.position() + 1))?
+			CoderResult.unmappableForLength(2): CoderResult.malformedForLength(1));
+	}
+
+	@Override
+	protected CoderResult implFlush(final ByteBuffer out){
+		return (pending == NONE || writePending(out)? CoderResult.UNDERFLOW: CoderResult.OVERFLOW);
+	}
+
+	@Override
+	protected void implReset(){
+		pending = NONE;
+	}
+
+	private boolean writePending(final ByteBuffer out){
+		if(pending > 0xFF){
+			if(out.remaining() < 2)
+				return false;
+
+			out.put((byte)(pending >>> 8));
+		}
+		else if(!out.hasRemaining())
+			return false;
+
+		out.put((byte)pending);
+		pending = NONE;
+		return true;
+	}
+
+}
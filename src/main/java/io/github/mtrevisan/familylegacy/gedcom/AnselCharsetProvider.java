@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.nio.charset.Charset;
+import java.nio.charset.spi.CharsetProvider;
+import java.util.Collections;
+import java.util.Iterator;
+
+
+/**
+ * Makes the ANSEL charset available through {@link Charset#forName(String)}.
+ */
+public final class AnselCharsetProvider extends CharsetProvider{
+
+	@Override
+	public Iterator<Charset> charsets(){
+		return Collections.<Charset>singleton(AnselCharset.INSTANCE).iterator();
+	}
+
+	@Override
+	public Charset charsetForName(final String charsetName){
+		if(AnselCharset.NAME.equalsIgnoreCase(charsetName))
+			return AnselCharset.INSTANCE;
+		for(final String alias : AnselCharset.INSTANCE.aliases())
+			if(alias.equalsIgnoreCase(charsetName))
+				return AnselCharset.INSTANCE;
+		return null;
+	}
+
+}
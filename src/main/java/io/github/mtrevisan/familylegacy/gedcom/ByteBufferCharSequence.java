@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+
+/**
+ * Exposes the bytes of a buffer encoded with an ASCII-compatible charset as a sequence of characters.
+ * <p>Each byte is seen as a character, so the structural characters of a GEDCOM line (digits, spaces, {@code @}, tags) can be
+ * scanned in place, whereas only the portions actually needed are decoded with the real charset.<br>
+ * Indexes are absolute positions in the buffer.</p>
+ * <p>An instance is not thread-safe.</p>
+ */
+final class ByteBufferCharSequence implements CharSequence{
+
+	private final ByteBuffer buffer;
+	private final Charset charset;
+
+	private final ByteBuffer view;
+	private byte[] scratch = new byte[256];
+
+
+	ByteBufferCharSequence(final ByteBuffer buffer, final Charset charset){
+		this.buffer = buffer;
+		this.charset = charset;
+
+		view = buffer.duplicate();
+	}
+
+	ByteBuffer getBuffer(){
+		return buffer;
+	}
+
+	Charset getCharset(){
+		return charset;
+	}
+
+	@Override
+	public int length(){
+		return buffer.limit();
+	}
+
+	@Override
+	public char charAt(final int index){
+		return (char)(buffer.get(index) & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(final int start, final int end){
+		return decode(start, end);
+	}
+
+	/**
+	 * Decodes the bytes in the given range with the charset of this sequence.
+	 *
+	 * @param start	The absolute index of the first byte.
+	 * @param end	The absolute index after the last byte.
+	 * @return	The decoded string.
+	 */
+	String decode(final int start, final int end){
+		final int length = end - start;
+		if(scratch.length < length)
+			scratch = new byte[Math.max(length, scratch.length << 1)];
+
+		view.limit(end)
+			.position(start);
+		view.get(scratch, 0, length);
+		return new String(scratch, 0, length, charset);
+	}
+
+	/**
+	 * Decodes the bytes in the given range with the charset of this sequence.
+	 * <p>Unlike {@link #decode(int, int)}, it can be called concurrently.</p>
+	 *
+	 * @param start	The absolute index of the first byte.
+	 * @param end	The absolute index after the last byte.
+	 * @return	The decoded string.
+	 */
+	String decodeConcurrently(final int start, final int end){
+		final byte[] bytes = new byte[end - start];
+		final ByteBuffer range = buffer.duplicate();
+		range.limit(end)
+			.position(start);
+		range.get(bytes);
+		return new String(bytes, charset);
+	}
+
+	@Override
+	public String toString(){
+		return decode(buffer.position(), buffer.limit());
+	}
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Stores the strings, encoded in UTF-8, in direct buffers outside the heap.
+ * <p>The buffers are segments of fixed size, allocated as needed, so growing never copies what is already stored; a string can span
+ * two or more segments.<br>
+ * Each string is preceded by its length in bytes, seven bits per byte, the most significant bit set on all bytes but the last.</p>
+ * <p>Once filled, the slab can be read concurrently.</p>
+ * <p>The content can be written to a channel and wrapped back as is, for example from a memory-mapped file.</p>
+ */
+final class DirectTextSlab implements GedcomTextSlab{
+
+	private static final int SEGMENT_SHIFT = 20;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+
+	private ByteBuffer[] segments = new ByteBuffer[0];
+	private int size;
+
+
+	DirectTextSlab(){}
+
+	/**
+	 * Wraps the content previously written by {@link #writeTo(WritableByteChannel)}, without copying it.
+	 *
+	 * @param content	The content, from its position to its limit.
+	 */
+	DirectTextSlab(final ByteBuffer content){
+		size = content.remaining();
+		segments = new ByteBuffer[(size + SEGMENT_MASK) >>> SEGMENT_SHIFT];
+		for(int i = 0; i < segments.length; i ++){
+			final ByteBuffer segment = content.duplicate();
+			segment.position(content.position() + (i << SEGMENT_SHIFT));
+			segment.limit(segment.position() + Math.min(SEGMENT_SIZE, size - (i << SEGMENT_SHIFT)));
+			segments[i] = segment.slice();
+		}
+	}
+
+	@Override
+	public int store(final String text){
+		if(text == null)
+			return GedcomNodeCursor.NONE;
+
+		final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		if(size > Integer.MAX_VALUE - 5 - bytes.length)
+			throw new IllegalStateException("Off-heap slab is full");
+
+		final int offset = size;
+		int length = bytes.length;
+		while(length >= 0x80){
+			put((byte)(length | 0x80));
+			length >>>= 7;
+		}
+		put((byte)length);
+		put(bytes);
+		return offset;
+	}
+
+	private void put(final byte value){
+		segmentFor(size)
+			.put(size & SEGMENT_MASK, value);
+		size ++;
+	}
+
+	private void put(final byte[] bytes){
+		int start = 0;
+		while(start < bytes.length){
+			final ByteBuffer segment = segmentFor(size)
+				.duplicate();
+			final int length = Math.min(bytes.length - start, SEGMENT_SIZE - (size & SEGMENT_MASK));
+			segment.position(size & SEGMENT_MASK);
+			segment.put(bytes, start, length);
+			start += length;
+			size += length;
+		}
+	}
+
+	private ByteBuffer segmentFor(final int position){
+		final int index = position >>> SEGMENT_SHIFT;
+		if(index == segments.length)
+			segments = Arrays.copyOf(segments, index + 1);
+		if(segments[index] == null)
+			segments[index] = ByteBuffer.allocateDirect(SEGMENT_SIZE);
+		return segments[index];
+	}
+
+	@Override
+	public String load(final int offset){
+		if(offset == GedcomNodeCursor.NONE)
+			return null;
+
+		int position = offset;
+		int length = 0;
+		int shift = 0;
+		byte value;
+		do{
+			value = segments[position >>> SEGMENT_SHIFT].get(position & SEGMENT_MASK);
+			length |= (value & 0x7F) << shift;
+			shift += 7;
+			position ++;
+		}while(value < 0);
+
+		final byte[] bytes = new byte[length];
+		int start = 0;
+		while(start < length){
+			final ByteBuffer segment = segments[position >>> SEGMENT_SHIFT].duplicate();
+			final int chunk = Math.min(length - start, SEGMENT_SIZE - (position & SEGMENT_MASK));
+			segment.position(position & SEGMENT_MASK);
+			segment.get(bytes, start, chunk);
+			start += chunk;
+			position += chunk;
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the number of bytes stored.
+	 */
+	int size(){
+		return size;
+	}
+
+	/**
+	 * Writes all the bytes stored to the given channel.
+	 */
+	void writeTo(final WritableByteChannel channel) throws IOException{
+		for(int i = 0; i < segments.length; i ++){
+			final ByteBuffer segment = segments[i].duplicate();
+			segment.limit(Math.min(SEGMENT_SIZE, size - (i << SEGMENT_SHIFT)))
+				.position(0);
+			while(segment.hasRemaining())
+				channel.write(segment);
+		}
+	}
+
+	@Override
+	public void trimToSize(){
+		final int used = size & SEGMENT_MASK;
+		if(used > 0){
+			//shrink the last segment
+			final int index = size >>> SEGMENT_SHIFT;
+			final ByteBuffer segment = segments[index].duplicate();
+			segment.limit(used)
+				.position(0);
+			segments[index] = ByteBuffer.allocateDirect(used)
+				.put(segment);
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.List;
+
+
+/**
+ * An event or an attribute of an individual or a family ({@code INDIVIDUAL_EVENT_STRUCTURE},
+ * {@code INDIVIDUAL_ATTRIBUTE_STRUCTURE}, and {@code FAMILY_EVENT_STRUCTURE} of the grammar, with their {@code EVENT_DETAIL}).
+ */
+public final class Event{
+
+	private final int tagCode;
+	private String value;
+	private String type;
+	private String date;
+	private String place;
+	private Address address;
+	private String age;
+	private String agency;
+	private String cause;
+
+
+	static Event findFirst(final List<Event> events, final int tagCode){
+		for(int i = 0; i < events.size(); i ++){
+			final Event event = events.get(i);
+			if(event.tagCode == tagCode)
+				return event;
+		}
+		return null;
+	}
+
+	Event(final int tagCode){
+		this.tagCode = tagCode;
+	}
+
+	/**
+	 * @return	The tag of the event, like {@code BIRT} or {@code OCCU}.
+	 */
+	public String getTag(){
+		return GedcomTagTable.getTag(tagCode);
+	}
+
+	/**
+	 * @return	The code of the tag in the {@link GedcomTagTable tag table}.
+	 */
+	public int getTagCode(){
+		return tagCode;
+	}
+
+	/**
+	 * @return	The value of the event line, like {@code Y} for an event known to have happened, or the value of an attribute.
+	 */
+	public String getValue(){
+		return value;
+	}
+
+	void setValue(final String value){
+		this.value = value;
+	}
+
+	public String getType(){
+		return type;
+	}
+
+	void setType(final String type){
+		this.type = type;
+	}
+
+	/**
+	 * @return	The date, as written in the file.
+	 */
+	public String getDate(){
+		return date;
+	}
+
+	void setDate(final String date){
+		this.date = date;
+	}
+
+	public String getPlace(){
+		return place;
+	}
+
+	void setPlace(final String place){
+		this.place = place;
+	}
+
+	public Address getAddress(){
+		return address;
+	}
+
+	void setAddress(final Address address){
+		this.address = address;
+	}
+
+	/**
+	 * @return	The age of the individual at the time of the event.
+	 */
+	public String getAge(){
+		return age;
+	}
+
+	void setAge(final String age){
+		this.age = age;
+	}
+
+	public String getAgency(){
+		return agency;
+	}
+
+	void setAgency(final String agency){
+		this.agency = agency;
+	}
+
+	public String getCause(){
+		return cause;
+	}
+
+	void setCause(final String cause){
+		this.cause = cause;
+	}
+
+	@Override
+	public String toString(){
+		return "Event{tag=" + getTag() + ", date=" + date + ", place=" + place + "}";
+	}
+
+}
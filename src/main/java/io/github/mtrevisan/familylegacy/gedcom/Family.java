@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.List;
+
+
+/**
+ * A family record ({@code FAM_RECORD} of the grammar).
+ */
+public final class Family extends TypedRecord{
+
+	private String husbandID;
+	private String wifeID;
+	private List<String> childIDs = emptyList();
+	private List<Event> events = emptyList();
+
+
+	Family(final String id){
+		super(id);
+	}
+
+	public String getHusbandID(){
+		return husbandID;
+	}
+
+	void setHusbandID(final String husbandID){
+		this.husbandID = husbandID;
+	}
+
+	public String getWifeID(){
+		return wifeID;
+	}
+
+	void setWifeID(final String wifeID){
+		this.wifeID = wifeID;
+	}
+
+	/**
+	 * @return	The IDs of the children, in the order of the file.
+	 */
+	public List<String> getChildIDs(){
+		return childIDs;
+	}
+
+	void addChildID(final String childID){
+		childIDs = add(childIDs, childID);
+	}
+
+	public List<Event> getEvents(){
+		return events;
+	}
+
+	void addEvent(final Event event){
+		events = add(events, event);
+	}
+
+	@Override
+	public String toString(){
+		return "Family{id=" + getID() + ", husband=" + husbandID + ", wife=" + wifeID + ", children=" + childIDs + "}";
+	}
+
+}
@@ -54,12 +54,4 @@ class FieldRef{
 		return target.get(fieldName);
 	}
 
-	public void appendValue(final String value) throws NoSuchMethodException{
-		final Object currentValue = getValue();
-		if(currentValue != null && !(currentValue instanceof String))
-			throw new NoSuchMethodException("Field '" + fieldName + "' is not a string, cannot append value " + value);
-
-		setValue((currentValue == null? "": currentValue) + value);
-	}
-
 }
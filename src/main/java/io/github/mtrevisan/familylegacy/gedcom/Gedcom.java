@@ -25,41 +25,48 @@
 package io.github.mtrevisan.familylegacy.gedcom;
 
 import org.apache.commons.lang3.StringUtils;
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 
 
 public class Gedcom{
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(Gedcom.class);
+
 	private static final String LINE_SEPARATOR = "\r\n";
 	private static final String INDENTATION = "  ";
 
 
 	private GedcomNode root;
+	/** The tree the records are taken from, if the GEDCOM was not built from {@link GedcomNode}s. */
+	private GedcomNodeCursor cursor;
 
 	private GedcomNode head;
-	private List<GedcomNode> submitters;
+	private GedcomRecords submitters;
 	private GedcomNode submission;
-	private List<GedcomNode> people;
-	private List<GedcomNode> families;
-	private List<GedcomNode> media;
-	private List<GedcomNode> notes;
-	private List<GedcomNode> sources;
-	private List<GedcomNode> repositories;
-
-	private Map<String, GedcomNode> personIndex;
-	private Map<String, GedcomNode> familyIndex;
-	private Map<String, GedcomNode> mediaIndex;
-	private Map<String, GedcomNode> noteIndex;
-	private Map<String, GedcomNode> sourceIndex;
-	private Map<String, GedcomNode> repositoryIndex;
-	private Map<String, GedcomNode> submitterIndex;
+	private GedcomRecords people;
+	private GedcomRecords families;
+	private GedcomRecords media;
+	private GedcomRecords notes;
+	private GedcomRecords sources;
+	private GedcomRecords repositories;
+
+	private GedcomXRefReport xrefReport;
+	private GedcomBacklinks backlinks;
 
 
 	public static void main(final String[] args){
@@ -78,26 +85,266 @@ System.out.println(gedcom);
 	}
 
 	public static Gedcom load(final String grammarFile, final String gedcomFile) throws GedcomGrammarParseException, GedcomParseException{
-		final GedcomGrammar grammar = GedcomGrammar.create(grammarFile);
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		final GedcomNode root = GedcomParser.parse(gedcomFile, grammar);
+
+		return create(root, grammar);
+	}
+
+	/**
+	 * Loads the given GEDCOM file from the file system.
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static Gedcom load(final String grammarFile, final Path gedcomFile) throws GedcomGrammarParseException, GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
 
 		final GedcomNode root = GedcomParser.parse(gedcomFile, grammar);
 
-		return create(root);
+		return create(root, grammar);
+	}
+
+	/**
+	 * Loads the given GEDCOM file from the file system, building the records concurrently on the given pool.
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param pool	The pool on which to parse the records.
+	 */
+	public static Gedcom load(final String grammarFile, final Path gedcomFile, final ForkJoinPool pool)
+			throws GedcomGrammarParseException, GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		final GedcomNode root = GedcomParser.parse(gedcomFile, grammar, pool);
+
+		return create(root, grammar);
+	}
+
+	/**
+	 * Loads the given GEDCOM file from the file system, checking it against the grammar in the same pass.
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param errors	The list to which to add the violations of the grammar.
+	 */
+	public static Gedcom load(final String grammarFile, final Path gedcomFile, final List<GedcomValidationError> errors)
+			throws GedcomGrammarParseException, GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		final GedcomTreeHandler treeHandler = new GedcomTreeHandler();
+		GedcomParser.parse(gedcomFile, grammar, treeHandler, false, errors);
+
+		return create(treeHandler.getRoot(), grammar);
+	}
+
+	/**
+	 * Checks the given GEDCOM file against the grammar, without loading it.
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 * @return	The violations of the grammar.
+	 */
+	public static List<GedcomValidationError> validate(final String grammarFile, final Path gedcomFile)
+			throws GedcomGrammarParseException, GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		return GedcomParser.validate(gedcomFile, grammar);
+	}
+
+	/**
+	 * Parses the given GEDCOM file sending the events to the given handler, without building any tree.
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param handler	The handler of the parsing events.
+	 */
+	public static void parse(final String grammarFile, final String gedcomFile, final GedcomHandler handler)
+			throws GedcomGrammarParseException, GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		GedcomParser.parse(gedcomFile, grammar, handler);
+	}
+
+	/**
+	 * Parses the given GEDCOM file from the file system sending the events to the given handler, without building any tree.
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param handler	The handler of the parsing events.
+	 */
+	public static void parse(final String grammarFile, final Path gedcomFile, final GedcomHandler handler)
+			throws GedcomGrammarParseException, GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		GedcomParser.parse(gedcomFile, grammar, handler);
 	}
 
-	private static Gedcom create(final GedcomNode root) throws GedcomParseException{
+	/**
+	 * Loads the typed records of the given GEDCOM file.
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static GedcomModel loadModel(final String grammarFile, final String gedcomFile) throws GedcomGrammarParseException,
+			GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		return GedcomParser.parseModel(gedcomFile, grammar);
+	}
+
+	/**
+	 * Loads the typed records of the given GEDCOM file from the file system.
+	 * <p>No tree of nodes is built, and only the values of the fields of the records are decoded.</p>
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static GedcomModel loadModel(final String grammarFile, final Path gedcomFile) throws GedcomGrammarParseException,
+			GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		return GedcomParser.parseModel(gedcomFile, grammar);
+	}
+
+	/**
+	 * Loads the given GEDCOM file from the file system, decoding the values only when requested.
+	 * <p>The file is memory-mapped and each node keeps only the position of its value, so the time and memory needed to open it grow
+	 * with the values actually read. Files not encoded with an ASCII-compatible charset are loaded as by
+	 * {@link #load(String, Path)}.<br>
+	 * The parameter objects of the nodes (see {@link GedcomNode#getObject()}) are not filled.</p>
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static Gedcom loadLazy(final String grammarFile, final Path gedcomFile) throws GedcomGrammarParseException,
+			GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		final GedcomNode root = GedcomParser.parseLazy(gedcomFile, grammar);
+
+		return create(root, grammar);
+	}
+
+	/**
+	 * Loads the given GEDCOM content, decoding the values only when requested.
+	 * <p>Each node keeps only the position of its value in the content, so the time and memory needed to open it grow with the values
+	 * actually read. Content not encoded with an ASCII-compatible charset is decoded at once.<br>
+	 * The parameter objects of the nodes (see {@link GedcomNode#getObject()}) are not filled.</p>
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcom	The content of a GEDCOM file, it must not be modified afterwards.
+	 */
+	public static Gedcom loadLazy(final String grammarFile, final byte[] gedcom) throws GedcomGrammarParseException,
+			GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		final GedcomNode root = GedcomParser.parseLazy(gedcom, grammar);
+
+		return create(root, grammar);
+	}
+
+	/**
+	 * Loads the given GEDCOM file into a {@link GedcomCompactTree compact tree}, materializing the records only when requested.
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static Gedcom loadCompact(final String grammarFile, final String gedcomFile) throws GedcomGrammarParseException,
+			GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		final GedcomCompactTree tree = GedcomParser.parseCompact(gedcomFile, grammar);
+
+		return create(tree, grammar);
+	}
+
+	/**
+	 * Loads the given GEDCOM file from the file system into a {@link GedcomCompactTree compact tree}, materializing the records
+	 * only when requested.
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static Gedcom loadCompact(final String grammarFile, final Path gedcomFile) throws GedcomGrammarParseException,
+			GedcomParseException{
+		return loadCompact(grammarFile, gedcomFile, false);
+	}
+
+	/**
+	 * Loads the given GEDCOM file from the file system into a {@link GedcomCompactTree compact tree}, materializing the records
+	 * only when requested.
+	 * <p>With <code>offHeap</code> the IDs, xrefs, and values are kept as UTF-8 bytes outside the heap and decoded on access, so the
+	 * heap needed grows only with the number of lines, not with their content.</p>
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param offHeap	Whether to store IDs, xrefs, and values outside the heap.
+	 */
+	public static Gedcom loadCompact(final String grammarFile, final Path gedcomFile, final boolean offHeap)
+			throws GedcomGrammarParseException, GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		final GedcomCompactTree tree = GedcomParser.parseCompact(gedcomFile, grammar, offHeap);
+
+		return create(tree, grammar);
+	}
+
+	/**
+	 * Loads the given GEDCOM file from the file system into a {@link GedcomCompactTree compact tree}, reusing its
+	 * {@link GedcomSnapshot snapshot} if up to date.
+	 * <p>If the snapshot is missing or stale, the file is parsed and the snapshot is written for the next time.</p>
+	 *
+	 * @param grammarFile	The grammar file.
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param snapshotFile	The snapshot file.
+	 */
+	public static Gedcom loadCompact(final String grammarFile, final Path gedcomFile, final Path snapshotFile)
+			throws GedcomGrammarParseException, GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		GedcomCompactTree tree = null;
+		try{
+			tree = GedcomSnapshot.load(snapshotFile, gedcomFile);
+		}
+		catch(final IOException e){
+			LOGGER.warn("Cannot read snapshot {}: {}", snapshotFile, e.getMessage());
+		}
+
+		if(tree == null){
+			tree = GedcomParser.parseCompact(gedcomFile, grammar);
+
+			try{
+				GedcomSnapshot.write(tree, gedcomFile, snapshotFile);
+			}
+			catch(final IOException e){
+				LOGGER.warn("Cannot write snapshot {}: {}", snapshotFile, e.getMessage());
+			}
+		}
+
+		return create(tree, grammar);
+	}
+
+	/**
+	 * Creates the GEDCOM from the records of the given tree, and resolves their pointers.
+	 *
+	 * @param root	The root of the tree.
+	 * @param grammar	The grammar giving the types of the records each pointer can point to.
+	 */
+	private static Gedcom create(final GedcomNode root, final GedcomGrammar grammar) throws GedcomParseException{
 		final Gedcom g = new Gedcom();
 		g.root = root;
 		final List<GedcomNode> heads = root.getChildrenWithTag("HEAD");
 		if(heads.size() != 1)
 			throw GedcomParseException.create("Required header tag missing");
 		g.head = heads.get(0);
-		g.people = root.getChildrenWithTag("INDI");
-		g.families = root.getChildrenWithTag("FAM");
-		g.media = root.getChildrenWithTag("OBJE");
-		g.notes = root.getChildrenWithTag("NOTE");
-		g.repositories = root.getChildrenWithTag("REPO");
-		g.sources = root.getChildrenWithTag("SOUR");
+		g.people = GedcomRecords.of(root.getChildrenWithTag("INDI"));
+		g.families = GedcomRecords.of(root.getChildrenWithTag("FAM"));
+		g.media = GedcomRecords.of(root.getChildrenWithTag("OBJE"));
+		g.notes = GedcomRecords.of(root.getChildrenWithTag("NOTE"));
+		g.repositories = GedcomRecords.of(root.getChildrenWithTag("REPO"));
+		g.sources = GedcomRecords.of(root.getChildrenWithTag("SOUR"));
 		List<GedcomNode> submissions = root.getChildrenWithTag("SUBN");
 		if(submissions.isEmpty())
 			submissions = g.head.getChildrenWithTag("SUBN");
@@ -105,19 +352,113 @@ System.out.println(gedcom);
 			throw GedcomParseException.create("Required submission tag missing");
 		if(!submissions.isEmpty())
 			g.submission = submissions.get(0);
-		g.submitters = root.getChildrenWithTag("SUBM");
+		g.submitters = GedcomRecords.of(root.getChildrenWithTag("SUBM"));
 
-		g.personIndex = generateIndexes(g.people);
-		g.familyIndex = generateIndexes(g.families);
-		g.mediaIndex = generateIndexes(g.media);
-		g.noteIndex = generateIndexes(g.notes);
-		g.sourceIndex = generateIndexes(g.sources);
-		g.repositoryIndex = generateIndexes(g.repositories);
-		g.submitterIndex = generateIndexes(g.submitters);
+		final GedcomXRefResolver resolver = new GedcomXRefResolver(grammar);
+		g.xrefReport = resolver.resolve(root);
+		g.backlinks = resolver.getBacklinks();
 
 		return g;
 	}
 
+	/**
+	 * Creates the GEDCOM from the records of the given tree.
+	 * <p>The header (and the submission) are materialized at once, all the other records only when requested.<br>
+	 * The pointers of a {@link GedcomCompactTree} are resolved to the handles of their records (see
+	 * {@link GedcomCompactTree#getReference(int)}).</p>
+	 *
+	 * @param grammarFile	The grammar file, giving the types of the records each pointer can point to.
+	 * @param cursor	The tree.
+	 */
+	public static Gedcom create(final String grammarFile, final GedcomNodeCursor cursor) throws GedcomGrammarParseException,
+			GedcomParseException{
+		final GedcomGrammar grammar = GedcomGrammarRegistry.get(grammarFile);
+
+		return create(cursor, grammar);
+	}
+
+	/**
+	 * Creates the GEDCOM from the records of the given tree.
+	 * <p>The header (and the submission) are materialized at once, all the other records only when requested.<br>
+	 * The pointers of a {@link GedcomCompactTree} are resolved to the handles of their records (see
+	 * {@link GedcomCompactTree#getReference(int)}).</p>
+	 *
+	 * @param cursor	The tree.
+	 * @param grammar	The grammar giving the types of the records each pointer can point to.
+	 */
+	private static Gedcom create(final GedcomNodeCursor cursor, final GedcomGrammar grammar) throws GedcomParseException{
+		final Gedcom g = new Gedcom();
+		g.cursor = cursor;
+		final int[] heads = getChildrenWithTag(cursor, cursor.getRoot(), "HEAD");
+		if(heads.length != 1)
+			throw GedcomParseException.create("Required header tag missing");
+		g.head = cursor.toNode(heads[0]);
+		g.people = GedcomRecords.of(cursor, getChildrenWithTag(cursor, cursor.getRoot(), "INDI"));
+		g.families = GedcomRecords.of(cursor, getChildrenWithTag(cursor, cursor.getRoot(), "FAM"));
+		g.media = GedcomRecords.of(cursor, getChildrenWithTag(cursor, cursor.getRoot(), "OBJE"));
+		g.notes = GedcomRecords.of(cursor, getChildrenWithTag(cursor, cursor.getRoot(), "NOTE"));
+		g.repositories = GedcomRecords.of(cursor, getChildrenWithTag(cursor, cursor.getRoot(), "REPO"));
+		g.sources = GedcomRecords.of(cursor, getChildrenWithTag(cursor, cursor.getRoot(), "SOUR"));
+		final int[] submissions = getChildrenWithTag(cursor, cursor.getRoot(), "SUBN");
+		final List<GedcomNode> headSubmissions = g.head.getChildrenWithTag("SUBN");
+		if(submissions.length > 1 || submissions.length == 0 && headSubmissions.size() > 1)
+			throw GedcomParseException.create("Required submission tag missing");
+		if(submissions.length > 0)
+			g.submission = cursor.toNode(submissions[0]);
+		else if(!headSubmissions.isEmpty())
+			g.submission = headSubmissions.get(0);
+		g.submitters = GedcomRecords.of(cursor, getChildrenWithTag(cursor, cursor.getRoot(), "SUBM"));
+
+		if(cursor instanceof GedcomCompactTree){
+			final GedcomXRefResolver resolver = new GedcomXRefResolver(grammar);
+			g.xrefReport = resolver.resolve((GedcomCompactTree)cursor);
+			g.backlinks = resolver.getBacklinks();
+		}
+
+		return g;
+	}
+
+	private static int[] getChildrenWithTag(final GedcomNodeCursor cursor, final int node, final String tag){
+		final int tagCode = GedcomTagTable.getCode(tag);
+		int[] children = new int[0];
+		int size = 0;
+		for(int child = cursor.getFirstChild(node); child != GedcomNodeCursor.NONE; child = cursor.getNextSibling(child))
+			if(cursor.getTagCode(child) == tagCode){
+				if(size == children.length)
+					children = Arrays.copyOf(children, Math.max(size << 1, 16));
+				children[size ++] = child;
+			}
+		return Arrays.copyOf(children, size);
+	}
+
+	/**
+	 * Returns all the records, in their original order.
+	 * <p>If the GEDCOM was created from a {@link GedcomNodeCursor}, each record is materialized when reached, and not kept.</p>
+	 */
+	private Iterable<GedcomNode> records(){
+		if(cursor == null)
+			return root.getChildren();
+
+		return () -> new Iterator<>(){
+			private int next = cursor.getFirstChild(cursor.getRoot());
+
+			@Override
+			public boolean hasNext(){
+				return (next != GedcomNodeCursor.NONE);
+			}
+
+			@Override
+			public GedcomNode next(){
+				if(next == GedcomNodeCursor.NONE)
+					throw new NoSuchElementException();
+
+				final GedcomNode record = cursor.toNode(next);
+				next = cursor.getNextSibling(next);
+				return record;
+			}
+		};
+	}
+
 	/**
 	 * Prints the GEDCOM file using indentation.
 	 */
@@ -135,9 +476,15 @@ System.out.println(gedcom);
 	public StringBuilder print(final boolean indent){
 		final StringBuilder sb = new StringBuilder();
 		final Deque<GedcomNode> nodeStack = new ArrayDeque<>();
-		//skip passed node and add its children
-		for(final GedcomNode child : root.getChildren())
-			nodeStack.addLast(child);
+		for(final GedcomNode record : records()){
+			nodeStack.push(record);
+			appendRecord(sb, nodeStack, indent);
+		}
+
+		return sb;
+	}
+
+	private void appendRecord(final StringBuilder sb, final Deque<GedcomNode> nodeStack, final boolean indent){
 		while(!nodeStack.isEmpty()){
 			final GedcomNode child = nodeStack.pop();
 			final List<GedcomNode> children = child.getChildren();
@@ -160,8 +507,65 @@ System.out.println(gedcom);
 				sb.append(' ').append(child.getValue());
 			sb.append(LINE_SEPARATOR);
 		}
+	}
 
-		return sb;
+	/**
+	 * Writes the GEDCOM file to the given stream, encoded with the charset declared in the header.
+	 *
+	 * @param os	The stream, closed afterwards (even if the charset is not supported).
+	 */
+	public void write(final OutputStream os) throws IOException{
+		final Charset charset;
+		try{
+			charset = getCharset();
+		}
+		catch(final UnsupportedEncodingException e){
+			os.close();
+			throw e;
+		}
+
+		write(os, charset);
+	}
+
+	/**
+	 * Writes the GEDCOM file to the given stream, encoded with the given charset.
+	 * <p>NOTE: the {@code CHAR} line of the header is not changed.</p>
+	 *
+	 * @param os	The stream, closed afterwards.
+	 * @param charset	The charset.
+	 */
+	public void write(final OutputStream os, final Charset charset) throws IOException{
+		try(final GedcomWriter writer = new GedcomWriter(os, charset)){
+			for(final GedcomNode record : records())
+				writer.write(record);
+		}
+	}
+
+	/**
+	 * Writes the GEDCOM file, encoded with the charset declared in the header.
+	 *
+	 * @param gedcomFile	The file, left untouched if the charset is not supported.
+	 */
+	public void write(final Path gedcomFile) throws IOException{
+		//NOTE: resolve the charset before the file is opened (and truncated)
+		final Charset charset = getCharset();
+
+		write(Files.newOutputStream(gedcomFile), charset);
+	}
+
+	/**
+	 * Returns the charset declared by the {@code CHAR} line of the header, ANSEL if none.
+	 */
+	public Charset getCharset() throws UnsupportedEncodingException{
+		final List<GedcomNode> characterSets = head.getChildrenWithTag("CHAR");
+		if(characterSets.isEmpty() || StringUtils.isBlank(characterSets.get(0).getValue()))
+			return AnselCharset.INSTANCE;
+
+		final GedcomNode characterSet = characterSets.get(0);
+		final List<GedcomNode> versions = characterSet.getChildrenWithTag("VERS");
+		final String charsetName = GedcomHelper.getCharsetName(characterSet.getValue().toUpperCase(),
+			(versions.isEmpty()? null: versions.get(0).getValue()));
+		return GedcomHelper.getCharset(charsetName);
 	}
 
 	private void appendID(final StringBuilder sb, final String id){
@@ -173,16 +577,33 @@ System.out.println(gedcom);
 		sb.append(' ').append(tag);
 	}
 
-	private static Map<String, GedcomNode> generateIndexes(final Collection<GedcomNode> list){
-		final Map<String, GedcomNode> indexes;
-		if(!list.isEmpty()){
-			indexes = new HashMap<>(list.size());
-			for(final GedcomNode elem : list)
-				indexes.put(elem.getID(), elem);
-		}
-		else
-			indexes = Collections.emptyMap();
-		return indexes;
+	/**
+	 * Returns the outcome of the resolution of the pointers, done once when the GEDCOM was created.
+	 * <p>Each resolved pointer is linked to its record, see {@link GedcomNode#getReference()} (or
+	 * {@link GedcomCompactTree#getReference(int)} if the GEDCOM was created from a compact tree).</p>
+	 *
+	 * @return	The report, <code>null</code> if the tree the GEDCOM was created from cannot hold the resolved pointers.
+	 */
+	public GedcomXRefReport getXRefReport(){
+		return xrefReport;
+	}
+
+	/**
+	 * Returns the pointers to each record (who cites a source, who shares a note, ...), indexed when the GEDCOM was created.
+	 *
+	 * @return	The index, <code>null</code> if the tree the GEDCOM was created from cannot hold the resolved pointers.
+	 */
+	public GedcomBacklinks getBacklinks(){
+		return backlinks;
+	}
+
+	/**
+	 * Returns the tree the records are taken from, to navigate them without materializing their {@link GedcomNode}s.
+	 *
+	 * @return	The tree, <code>null</code> if the GEDCOM was built from {@link GedcomNode}s.
+	 */
+	public GedcomNodeCursor getCursor(){
+		return cursor;
 	}
 
 	public GedcomNode getHeader(){
@@ -190,11 +611,11 @@ System.out.println(gedcom);
 	}
 
 	public List<GedcomNode> getSubmitters(){
-		return submitters;
+		return submitters.getAll();
 	}
 
 	public GedcomNode getSubmitter(final String id){
-		return submitterIndex.get(id);
+		return submitters.get(id);
 	}
 
 	public GedcomNode getSubmission(){
@@ -202,51 +623,51 @@ System.out.println(gedcom);
 	}
 
 	public List<GedcomNode> getPeople(){
-		return people;
+		return people.getAll();
 	}
 
 	public GedcomNode getPerson(final String id){
-		return personIndex.get(id);
+		return people.get(id);
 	}
 
 	public List<GedcomNode> getFamilies(){
-		return families;
+		return families.getAll();
 	}
 
 	public GedcomNode getFamily(final String id){
-		return familyIndex.get(id);
+		return families.get(id);
 	}
 
 	public List<GedcomNode> getMedia(){
-		return media;
+		return media.getAll();
 	}
 
 	public GedcomNode getMedia(final String id){
-		return mediaIndex.get(id);
+		return media.get(id);
 	}
 
 	public List<GedcomNode> getNotes(){
-		return notes;
+		return notes.getAll();
 	}
 
 	public GedcomNode getNote(final String id){
-		return noteIndex.get(id);
+		return notes.get(id);
 	}
 
 	public List<GedcomNode> getSources(){
-		return sources;
+		return sources.getAll();
 	}
 
 	public GedcomNode getSource(final String id){
-		return sourceIndex.get(id);
+		return sources.get(id);
 	}
 
 	public List<GedcomNode> getRepositories(){
-		return repositories;
+		return repositories.getAll();
 	}
 
 	public GedcomNode getRepository(final String id){
-		return repositoryIndex.get(id);
+		return repositories.get(id);
 	}
 
 }
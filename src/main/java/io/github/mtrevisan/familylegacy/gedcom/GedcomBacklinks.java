@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The pointers to each record, that is who references it (the citations of a source, the individuals sharing a note, ...).
+ * <p>The index is filled while the pointers are resolved (see {@link GedcomXRefResolver}) and stored as compressed rows: the pointers
+ * to the record at position <code>p</code> are the entries from <code>offsets[p]</code> to <code>offsets[p + 1]</code> of
+ * flat arrays holding the pointer nodes (or their handles, for a {@link GedcomCompactTree}) and the positions of the records they
+ * belong to.<br>
+ * Only the pointers resolved to a record are indexed.</p>
+ */
+public final class GedcomBacklinks{
+
+	private static final int INITIAL_CAPACITY = 1 << 10;
+
+
+	/** Position of each record, in file order, by ID. */
+	private final Map<String, Integer> recordPositions;
+	private final String[] recordIDs;
+
+	/** For each record, the index of its first pointer; the last entry is the number of pointers. */
+	private int[] offsets;
+	/** Position of the record each pointer belongs to. */
+	private int[] owners;
+	/** The pointer nodes, <code>null</code> for a compact tree. */
+	private GedcomNode[] nodes;
+	/** The handles of the pointer nodes, <code>null</code> for a tree of {@link GedcomNode}s. */
+	private int[] handles;
+	private int size;
+
+	/** Position of the record each pointer points to, discarded once the rows are built. */
+	private int[] targets;
+
+
+	/**
+	 * @param recordPositions	Position of each record, in file order, by ID.
+	 * @param recordIDs	ID of each record by position.
+	 * @param compact	Whether the pointers are nodes of a {@link GedcomCompactTree}.
+	 */
+	GedcomBacklinks(final Map<String, Integer> recordPositions, final String[] recordIDs, final boolean compact){
+		this.recordPositions = recordPositions;
+		this.recordIDs = recordIDs;
+
+		owners = new int[INITIAL_CAPACITY];
+		targets = new int[INITIAL_CAPACITY];
+		if(compact)
+			handles = new int[INITIAL_CAPACITY];
+		else
+			nodes = new GedcomNode[INITIAL_CAPACITY];
+	}
+
+	void add(final int target, final int owner, final GedcomNode node){
+		final int index = grow();
+		nodes[index] = node;
+		targets[index] = target;
+		owners[index] = owner;
+	}
+
+	void add(final int target, final int owner, final int handle){
+		final int index = grow();
+		handles[index] = handle;
+		targets[index] = target;
+		owners[index] = owner;
+	}
+
+	private int grow(){
+		if(size == targets.length){
+			final int capacity = size << 1;
+			targets = Arrays.copyOf(targets, capacity);
+			owners = Arrays.copyOf(owners, capacity);
+			if(nodes != null)
+				nodes = Arrays.copyOf(nodes, capacity);
+			else
+				handles = Arrays.copyOf(handles, capacity);
+		}
+		return size ++;
+	}
+
+	/**
+	 * Sorts the pointers by the record they point to (keeping the file order within each record), and builds the rows.
+	 */
+	void build(){
+		offsets = new int[recordIDs.length + 1];
+		for(int i = 0; i < size; i ++)
+			offsets[targets[i] + 1] ++;
+		for(int i = 0; i < recordIDs.length; i ++)
+			offsets[i + 1] += offsets[i];
+
+		final int[] next = Arrays.copyOf(offsets, recordIDs.length);
+		final int[] sortedOwners = new int[size];
+		final GedcomNode[] sortedNodes = (nodes != null? new GedcomNode[size]: null);
+		final int[] sortedHandles = (handles != null? new int[size]: null);
+		for(int i = 0; i < size; i ++){
+			final int index = next[targets[i]] ++;
+			sortedOwners[index] = owners[i];
+			if(sortedNodes != null)
+				sortedNodes[index] = nodes[i];
+			else
+				sortedHandles[index] = handles[i];
+		}
+		owners = sortedOwners;
+		nodes = sortedNodes;
+		handles = sortedHandles;
+		targets = null;
+	}
+
+	/**
+	 * @return	The number of pointers to the record with the given ID.
+	 */
+	public int count(final String id){
+		final Integer position = recordPositions.get(id);
+		return (position != null? offsets[position + 1] - offsets[position]: 0);
+	}
+
+	/**
+	 * Returns the nodes pointing to the record with the given ID, in file order.
+	 *
+	 * @param id	The ID of the record.
+	 * @return	An unmodifiable view of the pointer nodes, empty if the pointers are nodes of a {@link GedcomCompactTree} (see
+	 * 	{@link #getReferenceHandles(String)}).
+	 */
+	public List<GedcomNode> getReferences(final String id){
+		final Integer position = recordPositions.get(id);
+		if(position == null || nodes == null)
+			return Collections.emptyList();
+
+		return Collections.unmodifiableList(Arrays.asList(nodes)
+			.subList(offsets[position], offsets[position + 1]));
+	}
+
+	/**
+	 * Returns the handles of the nodes pointing to the record with the given ID, in file order.
+	 *
+	 * @param id	The ID of the record.
+	 * @return	The handles of the pointer nodes, empty if the pointers are {@link GedcomNode}s (see {@link #getReferences(String)}).
+	 */
+	public int[] getReferenceHandles(final String id){
+		final Integer position = recordPositions.get(id);
+		if(position == null || handles == null)
+			return new int[0];
+
+		return Arrays.copyOfRange(handles, offsets[position], offsets[position + 1]);
+	}
+
+	/**
+	 * Returns the IDs of the records holding a pointer to the record with the given ID.
+	 *
+	 * @param id	The ID of the record.
+	 * @return	The IDs, in file order and without repetitions (a record holding no ID is reported as <code>null</code>).
+	 */
+	public List<String> getReferrerIDs(final String id){
+		final Integer position = recordPositions.get(id);
+		if(position == null)
+			return Collections.emptyList();
+
+		final int start = offsets[position];
+		final int end = offsets[position + 1];
+		final String[] referrerIDs = new String[end - start];
+		int count = 0;
+		int lastOwner = -1;
+		for(int i = start; i < end; i ++)
+			//NOTE: the pointers of a record are adjacent, since they are added in file order
+			if(owners[i] != lastOwner){
+				lastOwner = owners[i];
+				referrerIDs[count ++] = recordIDs[lastOwner];
+			}
+		return Collections.unmodifiableList(Arrays.asList(referrerIDs).subList(0, count));
+	}
+
+}
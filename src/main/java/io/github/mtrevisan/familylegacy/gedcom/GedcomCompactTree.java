@@ -0,0 +1,286 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * A tree of GEDCOM lines stored as parallel primitive arrays (one entry per node) instead of {@link GedcomNode} objects.
+ * <p>Each node keeps its level, the handles of its parent, first child, and next sibling, the code of its tag, and the offsets of its
+ * ID, xref, and value in a shared slab; the strings are created only on request.<br>
+ * The slab is either a character array on the heap or, for the largest files, a set of direct buffers holding UTF-8 bytes outside the
+ * heap.</p>
+ * <p>The tree is filled by a {@link GedcomCompactTreeHandler}, once built it is read-only.</p>
+ */
+public final class GedcomCompactTree implements GedcomNodeCursor{
+
+	private static final int INITIAL_CAPACITY = 1 << 10;
+
+
+	private short[] levels;
+	private int[] parents;
+	private int[] firstChildren;
+	private int[] nextSiblings;
+	private short[] tagCodes;
+	private int[] ids;
+	private int[] xrefs;
+	private int[] values;
+	private int size;
+
+	private final GedcomTextSlab slab;
+
+	/** Tags of the nodes whose tag is not in the {@link GedcomTagTable tag table} (the table is full). */
+	private final Map<Integer, String> unknownTags;
+	/** Handles of the records with an ID, sorted by ID, <code>null</code> if not available. */
+	private int[] recordIndex;
+	/** Handle of the record each node points to, <code>null</code> if the pointers are not resolved (see {@link GedcomXRefResolver}). */
+	private int[] references;
+
+
+	GedcomCompactTree(){
+		this(INITIAL_CAPACITY, false);
+	}
+
+	/**
+	 * @param offHeap	Whether to store IDs, xrefs, and values outside the heap.
+	 */
+	GedcomCompactTree(final boolean offHeap){
+		this(INITIAL_CAPACITY, offHeap);
+	}
+
+	GedcomCompactTree(final int capacity, final boolean offHeap){
+		unknownTags = new HashMap<>(0);
+		levels = new short[capacity];
+		parents = new int[capacity];
+		firstChildren = new int[capacity];
+		nextSiblings = new int[capacity];
+		tagCodes = new short[capacity];
+		ids = new int[capacity];
+		xrefs = new int[capacity];
+		values = new int[capacity];
+		slab = (offHeap? new DirectTextSlab(): new HeapTextSlab(capacity << 4));
+
+		//the root
+		add(NONE, -1, GedcomTagTable.UNKNOWN, null, null, null, null);
+	}
+
+	/**
+	 * Creates a complete tree from its arrays, as read from a {@link GedcomSnapshot snapshot}.
+	 */
+	GedcomCompactTree(final short[] levels, final int[] parents, final int[] firstChildren, final int[] nextSiblings,
+			final short[] tagCodes, final int[] ids, final int[] xrefs, final int[] values, final GedcomTextSlab slab,
+			final Map<Integer, String> unknownTags, final int[] recordIndex){
+		this.levels = levels;
+		this.parents = parents;
+		this.firstChildren = firstChildren;
+		this.nextSiblings = nextSiblings;
+		this.tagCodes = tagCodes;
+		this.ids = ids;
+		this.xrefs = xrefs;
+		this.values = values;
+		this.slab = slab;
+		this.unknownTags = unknownTags;
+		this.recordIndex = recordIndex;
+		size = levels.length;
+	}
+
+	/**
+	 * Adds a node as the last child of the given parent.
+	 *
+	 * @param parent	The handle of the parent.
+	 * @param lastSibling	The handle of the last child of the parent, {@link #NONE} if the parent has no children yet.
+	 * @return	The handle of the new node.
+	 */
+	int add(final int parent, final int lastSibling, final int level, final int tagCode, final String tag, final String id,
+			final String xref, final String value){
+		final int node = add(parent, level, tagCode, tag, id, xref, value);
+		if(lastSibling != NONE)
+			nextSiblings[lastSibling] = node;
+		else if(parent != NONE)
+			firstChildren[parent] = node;
+		return node;
+	}
+
+	private int add(final int parent, final int level, final int tagCode, final String tag, final String id, final String xref,
+			final String value){
+		if(size == levels.length)
+			grow();
+
+		final int node = size ++;
+		levels[node] = (short)level;
+		parents[node] = parent;
+		firstChildren[node] = NONE;
+		nextSiblings[node] = NONE;
+		tagCodes[node] = (short)tagCode;
+		if(tagCode == GedcomTagTable.UNKNOWN && tag != null)
+			unknownTags.put(node, tag);
+		ids[node] = slab.store(id);
+		xrefs[node] = slab.store(xref);
+		values[node] = slab.store(value);
+		return node;
+	}
+
+	private void grow(){
+		final int capacity = levels.length << 1;
+		levels = Arrays.copyOf(levels, capacity);
+		parents = Arrays.copyOf(parents, capacity);
+		firstChildren = Arrays.copyOf(firstChildren, capacity);
+		nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+		tagCodes = Arrays.copyOf(tagCodes, capacity);
+		ids = Arrays.copyOf(ids, capacity);
+		xrefs = Arrays.copyOf(xrefs, capacity);
+		values = Arrays.copyOf(values, capacity);
+	}
+
+	/**
+	 * Releases the unused capacity, once the tree is complete.
+	 */
+	void trimToSize(){
+		levels = Arrays.copyOf(levels, size);
+		parents = Arrays.copyOf(parents, size);
+		firstChildren = Arrays.copyOf(firstChildren, size);
+		nextSiblings = Arrays.copyOf(nextSiblings, size);
+		tagCodes = Arrays.copyOf(tagCodes, size);
+		ids = Arrays.copyOf(ids, size);
+		xrefs = Arrays.copyOf(xrefs, size);
+		values = Arrays.copyOf(values, size);
+		slab.trimToSize();
+	}
+
+	/**
+	 * Whether the records can be looked up by ID through {@link #getRecord(String, int[])}.
+	 */
+	boolean hasRecordIndex(){
+		return (recordIndex != null);
+	}
+
+	/**
+	 * Returns the record with the given ID among the given ones (the last one, if more than one share it).
+	 *
+	 * @param id	The ID.
+	 * @param records	The handles of the records to look into, in increasing order.
+	 * @return	The position of the record in <code>records</code>, -1 if not found.
+	 */
+	int getRecord(final String id, final int[] records){
+		//find the first record with an ID greater than the given one
+		int low = 0;
+		int high = recordIndex.length;
+		while(low < high){
+			final int middle = (low + high) >>> 1;
+			if(getID(recordIndex[middle]).compareTo(id) <= 0)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		//records with the same ID are sorted by handle
+		for(int i = low - 1; i >= 0 && getID(recordIndex[i]).equals(id); i --){
+			final int position = Arrays.binarySearch(records, recordIndex[i]);
+			if(position >= 0)
+				return position;
+		}
+		return -1;
+	}
+
+	@Override
+	public int getRoot(){
+		return 0;
+	}
+
+	@Override
+	public int size(){
+		return size;
+	}
+
+	@Override
+	public int getLevel(final int node){
+		return levels[node];
+	}
+
+	@Override
+	public int getParent(final int node){
+		return parents[node];
+	}
+
+	@Override
+	public int getFirstChild(final int node){
+		return firstChildren[node];
+	}
+
+	@Override
+	public int getNextSibling(final int node){
+		return nextSiblings[node];
+	}
+
+	@Override
+	public int getTagCode(final int node){
+		return tagCodes[node];
+	}
+
+	@Override
+	public String getTag(final int node){
+		final int tagCode = tagCodes[node];
+		return (tagCode != GedcomTagTable.UNKNOWN? GedcomTagTable.getTag(tagCode): unknownTags.get(node));
+	}
+
+	@Override
+	public String getID(final int node){
+		return slab.load(ids[node]);
+	}
+
+	@Override
+	public String getXRef(final int node){
+		return slab.load(xrefs[node]);
+	}
+
+	@Override
+	public String getValue(final int node){
+		return slab.load(values[node]);
+	}
+
+	/**
+	 * Whether the given node has an xref, without creating it.
+	 */
+	boolean hasXRef(final int node){
+		return (xrefs[node] != NONE);
+	}
+
+	/**
+	 * Returns the handle of the record the xref of the given node points to.
+	 *
+	 * @param node	The handle of the node.
+	 * @return	The handle of the record, {@link #NONE} if the node has no xref or it cannot be resolved.
+	 */
+	public int getReference(final int node){
+		return (references != null? references[node]: NONE);
+	}
+
+	void setReferences(final int[] references){
+		this.references = references;
+	}
+
+}
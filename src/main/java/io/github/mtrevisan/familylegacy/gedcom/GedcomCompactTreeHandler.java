@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.Arrays;
+
+
+/**
+ * Builds a {@link GedcomCompactTree}.
+ * <p>The nodes received from the parser are copied into the tree and then released, so only the tree stays in memory.</p>
+ */
+class GedcomCompactTreeHandler implements GedcomHandler{
+
+	private final GedcomCompactTree tree;
+
+	/** Handle of the open node at each depth (level plus one), the root being at depth zero. */
+	private int[] openNodes = new int[16];
+	/** Handle of the last child of the open node at each depth, {@link GedcomNodeCursor#NONE} if none yet. */
+	private int[] lastChildren = new int[16];
+	private int depth;
+
+
+	GedcomCompactTreeHandler(){
+		this(false);
+	}
+
+	/**
+	 * @param offHeap	Whether to store IDs, xrefs, and values outside the heap.
+	 */
+	GedcomCompactTreeHandler(final boolean offHeap){
+		tree = new GedcomCompactTree(offHeap);
+	}
+
+	GedcomCompactTree getTree(){
+		return tree;
+	}
+
+	@Override
+	public void startDocument(){
+		depth = 0;
+		openNodes[0] = tree.getRoot();
+		lastChildren[0] = GedcomNodeCursor.NONE;
+	}
+
+	@Override
+	public void endDocument(){
+		tree.trimToSize();
+	}
+
+	@Override
+	public void startRecord(final GedcomNode record, final GedcomGrammarLine grammarLine) throws GedcomParseException{
+		startElement(record, grammarLine);
+	}
+
+	@Override
+	public void endRecord(final GedcomNode record){
+		endElement(record);
+	}
+
+	@Override
+	public void startElement(final GedcomNode element, final GedcomGrammarLine grammarLine) throws GedcomParseException{
+		if(element.getLevel() > Short.MAX_VALUE)
+			throw GedcomParseException.create("Level {} too deep for a compact tree", element.getLevel());
+
+		final int node = tree.add(openNodes[depth], lastChildren[depth], element.getLevel(), element.getTagCode(), element.getTag(),
+			element.getID(), element.getXRef(), element.getValue());
+		lastChildren[depth] = node;
+
+		depth ++;
+		if(depth == openNodes.length){
+			openNodes = Arrays.copyOf(openNodes, depth << 1);
+			lastChildren = Arrays.copyOf(lastChildren, depth << 1);
+		}
+		openNodes[depth] = node;
+		lastChildren[depth] = GedcomNodeCursor.NONE;
+	}
+
+	@Override
+	public void endElement(final GedcomNode element){
+		depth --;
+	}
+
+}
@@ -30,12 +30,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +47,8 @@ import java.util.regex.Pattern;
 
 /**
  * Parse a lineage-linked grammar file and to retrieve the parsed structures from it.
+ * <p>Once created, the grammar is frozen: it cannot be changed anymore, and can be shared among threads (see
+ * {@link GedcomGrammarRegistry}).</p>
  *
  * @see <a href="https://github.com/daleathan/GedcomStore">GedcomStore by Dale Athanasias</a>
  * @see <a href="https://github.com/thnaeff/GedcomStore">GedcomStore by Thomas Naeff</a>
@@ -69,10 +74,10 @@ final class GedcomGrammar{
 
 	private String gedcomVersion;
 	private String gedcomSource;
-	private final Collection<String> gedcomDescription = new ArrayList<>();
+	private Collection<String> gedcomDescription = new ArrayList<>();
 
 	/** All structures in an ordered list in their parsed order. */
-	private final List<GedcomGrammarStructure> structures = new ArrayList<>();
+	private List<GedcomGrammarStructure> structures = new ArrayList<>();
 	/**
 	 * This map contains all the available structure names and links them to the structures.
 	 * <p>If multiple variations of a structure are available, the variation can only be determined by the line ID of one of the
@@ -82,15 +87,18 @@ final class GedcomGrammar{
 	 * </p>
 	 * &lt;Structure name &lt;Line ID &lt;List of structures&gt;&gt;&gt;
 	 */
-	private final Map<String, Map<String, List<GedcomGrammarStructure>>> idToVariationsLinks = new HashMap<>();
-	private final Map<String, List<GedcomGrammarStructure>> variationsLinksToId = new HashMap<>();
+	private Map<String, Map<String, List<GedcomGrammarStructure>>> idToVariationsLinks = new HashMap<>();
+	private Map<String, List<GedcomGrammarStructure>> variationsLinksToId = new HashMap<>();
 	/**
 	 * This map holds a list for each structure.
 	 * <p>The list contains all the variations for that structure.<br>
 	 * </p>
 	 * &lt;Structure name &lt;List of structures&gt;&gt;
 	 */
-	private final Map<String, List<GedcomGrammarStructure>> variations = new HashMap<>();
+	private Map<String, List<GedcomGrammarStructure>> variations = new HashMap<>();
+
+	/** The grammar compiled into state tables. */
+	private GedcomGrammarTable table;
 
 
 	/**
@@ -119,9 +127,44 @@ final class GedcomGrammar{
 	public static GedcomGrammar create(final InputStream is) throws GedcomGrammarParseException{
 		final GedcomGrammar grammar = new GedcomGrammar();
 		grammar.parse(is);
+		grammar.freeze();
+		grammar.table = GedcomGrammarTable.create(grammar);
+		return grammar;
+	}
+
+	/**
+	 * Reads a grammar, and its state tables, written by {@link #write(DataOutput)}, without parsing the grammar file again.
+	 */
+	static GedcomGrammar read(final DataInput in) throws IOException{
+		final GedcomGrammar grammar = new GedcomGrammar();
+		grammar.gedcomVersion = in.readUTF();
+		grammar.gedcomSource = in.readUTF();
+		final int descriptions = in.readInt();
+		for(int i = 0; i < descriptions; i ++)
+			grammar.gedcomDescription.add(in.readUTF());
+		final int size = in.readInt();
+		for(int i = 0; i < size; i ++)
+			grammar.addStructure(GedcomGrammarStructure.read(in));
+		grammar.freeze();
+		grammar.table = GedcomGrammarTable.read(in, grammar);
 		return grammar;
 	}
 
+	/**
+	 * Writes the parsed form of this grammar, and its state tables.
+	 */
+	void write(final DataOutput out) throws IOException{
+		out.writeUTF(gedcomVersion);
+		out.writeUTF(gedcomSource);
+		out.writeInt(gedcomDescription.size());
+		for(final String description : gedcomDescription)
+			out.writeUTF(description);
+		out.writeInt(structures.size());
+		for(final GedcomGrammarStructure structure : structures)
+			structure.write(out);
+		table.write(out);
+	}
+
 	private GedcomGrammar(){}
 
 	private void parse(final InputStream is) throws GedcomGrammarParseException{
@@ -255,6 +298,12 @@ final class GedcomGrammar{
 		//parse the sub block and build the new structure
 		final GedcomGrammarStructure grammarStructure = GedcomGrammarStructure.create(structureName, new ArrayList<>(subBlockView));
 
+		addStructure(grammarStructure);
+	}
+
+	private void addStructure(final GedcomGrammarStructure grammarStructure){
+		final String structureName = grammarStructure.getStructureName();
+
 		//create a simple list of all the available structures
 		structures.add(grammarStructure);
 
@@ -278,6 +327,42 @@ final class GedcomGrammar{
 			.add(grammarStructure);
 	}
 
+	/**
+	 * Makes this grammar, and all its structures, unmodifiable.
+	 */
+	private void freeze(){
+		for(final GedcomGrammarStructure structure : structures)
+			structure.getGrammarBlock().freeze();
+
+		gedcomDescription = Collections.unmodifiableCollection(gedcomDescription);
+		structures = Collections.unmodifiableList(structures);
+		final Map<String, Map<String, List<GedcomGrammarStructure>>> frozenIdToVariationsLinks = new HashMap<>(idToVariationsLinks.size());
+		for(final Map.Entry<String, Map<String, List<GedcomGrammarStructure>>> entry : idToVariationsLinks.entrySet())
+			frozenIdToVariationsLinks.put(entry.getKey(), Collections.unmodifiableMap(freeze(entry.getValue())));
+		idToVariationsLinks = Collections.unmodifiableMap(frozenIdToVariationsLinks);
+		variationsLinksToId = Collections.unmodifiableMap(freeze(variationsLinksToId));
+		variations = Collections.unmodifiableMap(freeze(variations));
+	}
+
+	private static Map<String, List<GedcomGrammarStructure>> freeze(final Map<String, List<GedcomGrammarStructure>> map){
+		map.replaceAll((key, list) -> Collections.unmodifiableList(list));
+		return map;
+	}
+
+	/**
+	 * Returns all the structures, in their parsed order.
+	 */
+	List<GedcomGrammarStructure> getStructures(){
+		return structures;
+	}
+
+	/**
+	 * Returns the grammar compiled into state tables.
+	 */
+	GedcomGrammarTable getTable(){
+		return table;
+	}
+
 	/**
 	 * Returns a map which contains all the variations for the structure with the given structure name.
 	 */
@@ -26,7 +26,11 @@ package io.github.mtrevisan.familylegacy.gedcom;
 
 import io.github.mtrevisan.familylegacy.services.RegexHelper;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,12 +51,12 @@ class GedcomGrammarBlock{
 
 
 	/** All the lines of this block which are defined in the lineage-linked grammar in their parsing order. */
-	private final List<GedcomGrammarLine> grammarLines = new ArrayList<>();
+	private List<GedcomGrammarLine> grammarLines = new ArrayList<>();
 	/**
 	 * The line ID's (tag or structure names) linked to their lines.
 	 * <p>If a line has multiple tag possibilities (like [ANUL|CENS|DIV|DIVF]), the line appears multiple times, once for every tag.</p>
 	 */
-	private final Map<String, GedcomGrammarLine> idToLineLinks = new HashMap<>();
+	private Map<String, GedcomGrammarLine> idToLineLinks = new HashMap<>();
 
 
 	/**
@@ -106,6 +110,36 @@ class GedcomGrammarBlock{
 		return (subBlock.isEmpty() || parseSubBlock(subBlock, lastGrammarLine));
 	}
 
+	/**
+	 * Reads a block, with all its lines, written by {@link #write(DataOutput)}.
+	 */
+	static GedcomGrammarBlock read(final DataInput in) throws IOException{
+		final GedcomGrammarBlock block = new GedcomGrammarBlock();
+		final int size = in.readInt();
+		for(int i = 0; i < size; i ++)
+			block.addLine(GedcomGrammarLine.read(in));
+		return block;
+	}
+
+	/**
+	 * Writes this block, with all its lines.
+	 */
+	void write(final DataOutput out) throws IOException{
+		out.writeInt(grammarLines.size());
+		for(final GedcomGrammarLine grammarLine : grammarLines)
+			grammarLine.write(out);
+	}
+
+	/**
+	 * Makes this block, and all its lines, unmodifiable.
+	 */
+	void freeze(){
+		grammarLines = Collections.unmodifiableList(grammarLines);
+		idToLineLinks = Collections.unmodifiableMap(idToLineLinks);
+		for(final GedcomGrammarLine grammarLine : grammarLines)
+			grammarLine.freeze();
+	}
+
 	/**
 	 * Process a sub block.
 	 */
@@ -169,7 +203,7 @@ class GedcomGrammarBlock{
 	 */
 	public List<GedcomGrammarLine> getMandatoryLines(){
 		/** A sublist of the {@link #grammarLines} which only contains the mandatory lines. */
-		final List<GedcomGrammarLine> mandatoryLines = new ArrayList<>(grammarLines);
+		final List<GedcomGrammarLine> mandatoryLines = new ArrayList<>();
 		for(final GedcomGrammarLine line : grammarLines)
 			if(line.getMin() > 0)
 				mandatoryLines.add(line);
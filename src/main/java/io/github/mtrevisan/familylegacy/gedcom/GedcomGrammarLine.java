@@ -29,6 +29,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -43,8 +46,9 @@ import java.util.regex.Pattern;
  * multiple tag possibilities (enclosed in {@code [} and {@code ]} and separated by {@code |}).<br>
  * <br>
  * The class {@link GedcomGrammarStructure} has more information about the hierarchy of structures, blocks and lines.</p>
+ * <p>Once its grammar is complete, the line is {@link #freeze() frozen} and cannot be changed anymore.</p>
  */
-class GedcomGrammarLine{
+public class GedcomGrammarLine{
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(GedcomGrammarLine.class);
 
@@ -74,17 +78,19 @@ class GedcomGrammarLine{
 	private int min;
 	private int max;
 
-	private final Set<String> xrefNames = new HashSet<>();
-	private final Set<String> valueNames = new HashSet<>();
-	private final Set<String> tagNamesBeforeXRef = new HashSet<>();
-	private final Set<String> tagNamesAfterXRef = new HashSet<>();
-	private final Set<String> valuePossibilities = new HashSet<>();
+	private Set<String> xrefNames = new HashSet<>();
+	private Set<String> valueNames = new HashSet<>();
+	private Set<String> tagNamesBeforeXRef = new HashSet<>();
+	private Set<String> tagNamesAfterXRef = new HashSet<>();
+	private Set<String> valuePossibilities = new HashSet<>();
 
 	private String structureName;
 	private String originalDefinitionLine;
 
 	private GedcomGrammarBlock childBlock;
 
+	private boolean frozen;
+
 
 	/**
 	 * Parses the given lineage linked grammar line.
@@ -175,6 +181,82 @@ class GedcomGrammarLine{
 		return sl;
 	}
 
+	/**
+	 * Reads a line, with its child block, written by {@link #write(DataOutput)}.
+	 */
+	static GedcomGrammarLine read(final DataInput in) throws IOException{
+		final GedcomGrammarLine sl = new GedcomGrammarLine();
+		sl.min = in.readInt();
+		sl.max = in.readInt();
+		readStrings(in, sl.xrefNames);
+		readStrings(in, sl.valueNames);
+		readStrings(in, sl.tagNamesBeforeXRef);
+		readStrings(in, sl.tagNamesAfterXRef);
+		readStrings(in, sl.valuePossibilities);
+		sl.structureName = readString(in);
+		sl.originalDefinitionLine = readString(in);
+		if(in.readBoolean())
+			sl.childBlock = GedcomGrammarBlock.read(in);
+		return sl;
+	}
+
+	/**
+	 * Writes this line, with its child block.
+	 */
+	void write(final DataOutput out) throws IOException{
+		out.writeInt(min);
+		out.writeInt(max);
+		writeStrings(out, xrefNames);
+		writeStrings(out, valueNames);
+		writeStrings(out, tagNamesBeforeXRef);
+		writeStrings(out, tagNamesAfterXRef);
+		writeStrings(out, valuePossibilities);
+		writeString(out, structureName);
+		writeString(out, originalDefinitionLine);
+		out.writeBoolean(childBlock != null);
+		if(childBlock != null)
+			childBlock.write(out);
+	}
+
+	private static void readStrings(final DataInput in, final Set<String> strings) throws IOException{
+		final int size = in.readInt();
+		for(int i = 0; i < size; i ++)
+			strings.add(readString(in));
+	}
+
+	private static void writeStrings(final DataOutput out, final Set<String> strings) throws IOException{
+		out.writeInt(strings.size());
+		for(final String string : strings)
+			writeString(out, string);
+	}
+
+	private static String readString(final DataInput in) throws IOException{
+		return (in.readBoolean()? in.readUTF(): null);
+	}
+
+	private static void writeString(final DataOutput out, final String string) throws IOException{
+		out.writeBoolean(string != null);
+		if(string != null)
+			out.writeUTF(string);
+	}
+
+	/**
+	 * Makes this line, and its child block, unmodifiable.
+	 */
+	void freeze(){
+		if(frozen)
+			return;
+
+		xrefNames = Collections.unmodifiableSet(xrefNames);
+		valueNames = Collections.unmodifiableSet(valueNames);
+		tagNamesBeforeXRef = Collections.unmodifiableSet(tagNamesBeforeXRef);
+		tagNamesAfterXRef = Collections.unmodifiableSet(tagNamesAfterXRef);
+		valuePossibilities = Collections.unmodifiableSet(valuePossibilities);
+		if(childBlock != null)
+			childBlock.freeze();
+		frozen = true;
+	}
+
 	/**
 	 * @return	Child block of this grammar line.
 	 */
@@ -186,6 +268,9 @@ class GedcomGrammarLine{
 	 * Sets a child block for this gedcom grammar line.
 	 */
 	public void setChildBlock(final GedcomGrammarBlock childBlock){
+		if(frozen)
+			throw new IllegalStateException("Cannot change a frozen grammar line");
+
 		this.childBlock = childBlock;
 	}
 
@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Shares the {@link GedcomGrammar grammars} among all the loads of GEDCOM files, parsing each grammar file only once.
+ * <p>The grammars are frozen, so the same instance can be used by many threads at once.</p>
+ * <p>A grammar can also be stored in a compiled (binary) form, along with its {@link GedcomGrammarTable state tables}, that is read
+ * without running the grammar parser: the compiled form records the SHA-256 hash of the grammar file, and it is discarded if the
+ * grammar file changes.<br>
+ * The build compiles the shipped grammars (see {@link #main(String[])}), the compiled form being the resource with the same name of
+ * the grammar file and extension {@value #COMPILED_EXTENSION}.</p>
+ */
+public final class GedcomGrammarRegistry{
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GedcomGrammarRegistry.class);
+
+	/** "FLGG" in ASCII. */
+	private static final int MAGIC = 0x464C4747;
+	private static final int VERSION = 4;
+
+	private static final String GRAMMAR_EXTENSION = ".gedg";
+	private static final String COMPILED_EXTENSION = ".gedc";
+
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+
+	private static final Map<String, GedcomGrammar> GRAMMARS = new ConcurrentHashMap<>();
+
+
+	private GedcomGrammarRegistry(){}
+
+	/**
+	 * Compiles the given grammar files.
+	 *
+	 * @param args	The directory of the compiled forms (the root of the resources), followed by the grammar files (as resources).
+	 */
+	public static void main(final String[] args) throws GedcomGrammarParseException, IOException{
+		if(args.length < 2)
+			throw new IllegalArgumentException("Usage: GedcomGrammarRegistry <output directory> <grammar file>...");
+
+		final Path outputDirectory = Path.of(args[0]);
+		for(int i = 1; i < args.length; i ++){
+			final Path compiledFile = outputDirectory.resolve(getCompiledResource(args[i]).substring(1));
+			compile(args[i], compiledFile);
+
+			LOGGER.info("Compiled grammar {} into {}", args[i], compiledFile);
+		}
+	}
+
+	/**
+	 * Returns the grammar of the given grammar file, parsing it only the first time.
+	 * <p>The grammar is read from its compiled resource, if present and up to date.</p>
+	 *
+	 * @param grammarFile	The grammar file (as a resource).
+	 * @return	The grammar.
+	 */
+	static GedcomGrammar get(final String grammarFile) throws GedcomGrammarParseException{
+		return get(grammarFile, null);
+	}
+
+	/**
+	 * Returns the grammar of the given grammar file, reading it from its compiled form if up to date, and parsing it otherwise.
+	 * <p>If the grammar is parsed, its compiled form is written for the next time.</p>
+	 *
+	 * @param grammarFile	The grammar file (as a resource).
+	 * @param compiledFile	The compiled form of the grammar, <code>null</code> not to use it.
+	 * @return	The grammar.
+	 */
+	static GedcomGrammar get(final String grammarFile, final Path compiledFile) throws GedcomGrammarParseException{
+		GedcomGrammar grammar = GRAMMARS.get(grammarFile);
+		if(grammar == null){
+			//NOTE: a grammar is created at most once per file, the threads asking for the same file wait for it
+			synchronized(GRAMMARS){
+				grammar = GRAMMARS.get(grammarFile);
+				if(grammar == null){
+					grammar = load(grammarFile, compiledFile);
+					GRAMMARS.put(grammarFile, grammar);
+				}
+			}
+		}
+		return grammar;
+	}
+
+	private static GedcomGrammar load(final String grammarFile, final Path compiledFile) throws GedcomGrammarParseException{
+		final byte[] content = readResource(grammarFile);
+		final byte[] hash = hash(content);
+		GedcomGrammar grammar = null;
+		final String compiledResource = getCompiledResource(grammarFile);
+		try(final InputStream is = (compiledFile != null && Files.exists(compiledFile)? Files.newInputStream(compiledFile):
+				GedcomGrammarRegistry.class.getResourceAsStream(compiledResource))){
+			if(is != null)
+				grammar = readCompiled(is, hash);
+		}
+		catch(final IOException e){
+			LOGGER.warn("Cannot read compiled grammar {}: {}", (compiledFile != null? compiledFile: compiledResource), e.getMessage());
+		}
+
+		if(grammar == null){
+			grammar = GedcomGrammar.create(new ByteArrayInputStream(content));
+
+			if(compiledFile != null){
+				try{
+					writeCompiled(grammar, hash, compiledFile);
+				}
+				catch(final IOException e){
+					LOGGER.warn("Cannot write compiled grammar {}: {}", compiledFile, e.getMessage());
+				}
+			}
+		}
+		return grammar;
+	}
+
+	private static String getCompiledResource(final String grammarFile){
+		return (grammarFile.endsWith(GRAMMAR_EXTENSION)?
+			grammarFile.substring(0, grammarFile.length() - GRAMMAR_EXTENSION.length()): grammarFile) + COMPILED_EXTENSION;
+	}
+
+	/**
+	 * Parses the given grammar file and writes its compiled form.
+	 *
+	 * @param grammarFile	The grammar file (as a resource).
+	 * @param compiledFile	The compiled form of the grammar.
+	 */
+	static void compile(final String grammarFile, final Path compiledFile) throws GedcomGrammarParseException, IOException{
+		final byte[] content = readResource(grammarFile);
+		final GedcomGrammar grammar = GedcomGrammar.create(new ByteArrayInputStream(content));
+		writeCompiled(grammar, hash(content), compiledFile);
+	}
+
+	/**
+	 * @return	The grammar, or <code>null</code> if the compiled form was written by another version, or does not match the grammar
+	 * 	file.
+	 */
+	private static GedcomGrammar readCompiled(final InputStream is, final byte[] hash) throws IOException{
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+		if(in.readInt() != MAGIC || in.readInt() != VERSION)
+			return null;
+		final byte[] grammarHash = new byte[hash.length];
+		in.readFully(grammarHash);
+		if(!Arrays.equals(grammarHash, hash))
+			return null;
+
+		return GedcomGrammar.read(in);
+	}
+
+	private static void writeCompiled(final GedcomGrammar grammar, final byte[] hash, final Path compiledFile) throws IOException{
+		if(compiledFile.getParent() != null)
+			Files.createDirectories(compiledFile.getParent());
+		try(final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(compiledFile)))){
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.write(hash);
+			grammar.write(out);
+		}
+	}
+
+	private static byte[] readResource(final String grammarFile) throws GedcomGrammarParseException{
+		try(final InputStream is = GedcomGrammarRegistry.class.getResourceAsStream(grammarFile)){
+			if(is == null)
+				throw GedcomGrammarParseException.create("File {} not found!", grammarFile);
+
+			return is.readAllBytes();
+		}
+		catch(final IOException e){
+			throw GedcomGrammarParseException.create("File {} not found!", grammarFile);
+		}
+	}
+
+	private static byte[] hash(final byte[] content){
+		try{
+			return MessageDigest.getInstance(HASH_ALGORITHM)
+				.digest(content);
+		}
+		catch(final NoSuchAlgorithmException e){
+			//cannot happen, every implementation of the platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
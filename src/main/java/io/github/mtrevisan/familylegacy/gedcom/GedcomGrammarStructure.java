@@ -24,6 +24,9 @@
  */
 package io.github.mtrevisan.familylegacy.gedcom;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 
 
@@ -65,16 +68,34 @@ final class GedcomGrammarStructure{
 	/** The name of this structure, like FAMILY_EVENT_STRUCTURE etc. **/
 	private final String structureName;
 	/** The starting block in the structure. **/
-	private final GedcomGrammarBlock grammarBlock = new GedcomGrammarBlock();
+	private final GedcomGrammarBlock grammarBlock;
 
 
 	public static GedcomGrammarStructure create(final String structureName, final List<String> block) throws GedcomGrammarParseException{
-		return new GedcomGrammarStructure(structureName, block);
+		final GedcomGrammarBlock grammarBlock = new GedcomGrammarBlock();
+		grammarBlock.parse(block);
+		return new GedcomGrammarStructure(structureName, grammarBlock);
+	}
+
+	/**
+	 * Reads a structure written by {@link #write(DataOutput)}.
+	 */
+	static GedcomGrammarStructure read(final DataInput in) throws IOException{
+		final String structureName = in.readUTF();
+		return new GedcomGrammarStructure(structureName, GedcomGrammarBlock.read(in));
 	}
 
-	private GedcomGrammarStructure(final String structureName, final List<String> block) throws GedcomGrammarParseException{
+	private GedcomGrammarStructure(final String structureName, final GedcomGrammarBlock grammarBlock){
 		this.structureName = structureName;
-		grammarBlock.parse(block);
+		this.grammarBlock = grammarBlock;
+	}
+
+	/**
+	 * Writes this structure.
+	 */
+	void write(final DataOutput out) throws IOException{
+		out.writeUTF(structureName);
+		grammarBlock.write(out);
 	}
 
 	/**
@@ -0,0 +1,433 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * A {@link GedcomGrammar grammar} compiled into state tables.
+ * <p>Each block of the grammar is a state, each line of a block is a transition from its state, taken on the code of any of its tags
+ * in the {@link GedcomTagTable tag table} and on whether the GEDCOM line has an xref; a line leads to the state of its child block, if
+ * any.<br>
+ * A line referencing a structure (as in {@code <<NOTE_STRUCTURE>>}) is expanded into the top lines of all the variations of that
+ * structure, unless the block already has a line with the same tag; the occurrences of such lines count towards the referencing
+ * line too, and each of them can occur up to the product of the maximum occurrences of the lines along the chain of references.<br>
+ * Lines and states are numbered in depth-first order of the structures of the grammar, so the tables can be stored and read back
+ * along with the same grammar; the tags are stored by name, and mapped to the codes of the current run when read.</p>
+ * <p>The cardinality and the value names of each line, and the mandatory lines of each state, are kept in arrays too, so a parser or a
+ * validator can walk the grammar with integers only.</p>
+ * <p>The level-0 records are dispatched by tag code to the top line of their structure (the header and every {@code *_RECORD}
+ * structure of the grammar).</p>
+ */
+final class GedcomGrammarTable{
+
+	static final int NONE = -1;
+
+	private static final String HEADER_STRUCTURE = "HEADER";
+	private static final String RECORD_STRUCTURE_SUFFIX = "_RECORD";
+	/** The xref name of a line that accepts a missing xref, as in {@code [@<XREF:REPO>@|<NULL>]}. */
+	private static final String NULL_XREF = "NULL";
+
+	private static final int[] NO_TRANSITIONS = new int[0];
+
+
+	private final GedcomGrammarLine[] lines;
+	/** State of the child block of each line, {@link #NONE} if the line has no child block. */
+	private final int[] childStates;
+	private final int[] mins;
+	private final int[] maxes;
+	private final String[][] valueNames;
+	/**
+	 * For each state, the line reached by each key (see {@link #key(int, boolean)}), {@link #NONE} if none.
+	 */
+	private final int[][] transitions;
+	/**
+	 * For each state, the line of its block that references the structure of the line reached by each key (see
+	 * {@link #key(int, boolean)}), {@link #NONE} if the line is in the block.
+	 */
+	private final int[][] referenceLines;
+	/** For each state, the maximum number of occurrences of the line reached by each key, -1 if unbounded. */
+	private final int[][] transitionMaxes;
+	/** For each state, the lines of its block with a minimum number of occurrences. */
+	private final int[][] mandatoryLines;
+	/** The top line of the structure of each level-0 record, indexed by tag code, {@link #NONE} if none. */
+	private int[] recordLines = NO_TRANSITIONS;
+
+
+	/**
+	 * Compiles the tables of the given grammar.
+	 */
+	static GedcomGrammarTable create(final GedcomGrammar grammar){
+		final List<GedcomGrammarLine> lines = new ArrayList<>();
+		final List<GedcomGrammarBlock> blocks = new ArrayList<>();
+		for(final GedcomGrammarStructure structure : grammar.getStructures())
+			enumerate(structure.getGrammarBlock(), lines, blocks);
+
+		final Map<Object, Integer> positions = new IdentityHashMap<>(lines.size() + blocks.size());
+		for(int line = 0; line < lines.size(); line ++)
+			positions.put(lines.get(line), line);
+		for(int state = 0; state < blocks.size(); state ++)
+			positions.put(blocks.get(state), state);
+
+		final GedcomGrammarTable table = new GedcomGrammarTable(lines.toArray(GedcomGrammarLine[]::new), blocks.size());
+		for(int line = 0; line < table.lines.length; line ++){
+			final GedcomGrammarLine grammarLine = table.lines[line];
+			table.mins[line] = grammarLine.getMin();
+			table.maxes[line] = grammarLine.getMax();
+			table.valueNames[line] = grammarLine.getValueNames().toArray(String[]::new);
+			table.childStates[line] = (grammarLine.hasChildBlock()? positions.get(grammarLine.getChildBlock()): NONE);
+		}
+		for(int state = 0; state < blocks.size(); state ++){
+			final List<GedcomGrammarLine> grammarLines = blocks.get(state).getGrammarLines();
+			for(final GedcomGrammarLine grammarLine : grammarLines)
+				if(!grammarLine.hasStructureName()){
+					table.addTransitions(state, grammarLine, positions.get(grammarLine), NONE, grammarLine.getMax());
+				}
+			for(final GedcomGrammarLine grammarLine : grammarLines)
+				if(grammarLine.hasStructureName())
+					table.addReferencedTransitions(state, grammarLine.getStructureName(), positions.get(grammarLine), grammarLine.getMax(),
+						grammar, positions, new HashSet<>());
+
+			table.mandatoryLines[state] = grammarLines.stream()
+				.filter(GedcomGrammarLine::isMandatory)
+				.mapToInt(positions::get)
+				.toArray();
+		}
+		for(final GedcomGrammarStructure structure : grammar.getStructures())
+			if(isRecordStructure(structure))
+				for(final GedcomGrammarLine grammarLine : structure.getGrammarBlock().getGrammarLines())
+					for(final String tag : grammarLine.getTagNames())
+						table.recordLines = put(table.recordLines, GedcomTagTable.intern(tag), positions.get(grammarLine));
+		return table;
+	}
+
+	/** Numbers the given block and, depth-first, its lines and their child blocks. */
+	private static void enumerate(final GedcomGrammarBlock block, final List<GedcomGrammarLine> lines,
+			final List<GedcomGrammarBlock> blocks){
+		blocks.add(block);
+		for(final GedcomGrammarLine grammarLine : block.getGrammarLines()){
+			lines.add(grammarLine);
+			if(grammarLine.hasChildBlock())
+				enumerate(grammarLine.getChildBlock(), lines, blocks);
+		}
+	}
+
+	/**
+	 * Adds the transitions to the top lines of the variations of the given structure, following nested references.
+	 *
+	 * @param referenceLine	The line of the block of the state that references the structure.
+	 * @param referenceMax	The maximum number of occurrences of the structure, -1 if unbounded.
+	 */
+	private void addReferencedTransitions(final int state, final String structureName, final int referenceLine,
+			final int referenceMax, final GedcomGrammar grammar, final Map<Object, Integer> positions,
+			final Set<String> visitedStructures){
+		final List<GedcomGrammarStructure> variations = grammar.getVariations(structureName);
+		if(variations == null || !visitedStructures.add(structureName))
+			return;
+
+		for(final GedcomGrammarStructure variation : variations)
+			for(final GedcomGrammarLine grammarLine : variation.getGrammarBlock().getGrammarLines()){
+				final int max = multiplyMax(referenceMax, grammarLine.getMax());
+				if(grammarLine.hasStructureName())
+					addReferencedTransitions(state, grammarLine.getStructureName(), referenceLine, max, grammar, positions,
+						visitedStructures);
+				else
+					addTransitions(state, grammarLine, positions.get(grammarLine), referenceLine, max);
+			}
+	}
+
+	private static int multiplyMax(final int max1, final int max2){
+		return (max1 < 0 || max2 < 0? -1: max1 * max2);
+	}
+
+	/** Adds the transitions on all the tags of the given line, without replacing the ones already present. */
+	private void addTransitions(final int state, final GedcomGrammarLine grammarLine, final int line, final int referenceLine,
+			final int max){
+		final boolean withXRef = (grammarLine.hasTagBeforeXRef() && grammarLine.hasXRefNames());
+		final boolean withoutXRef = (!withXRef || grammarLine.getXRefNames().contains(NULL_XREF));
+		for(final String tag : grammarLine.getTagNames()){
+			final int tagCode = GedcomTagTable.intern(tag);
+			if(withXRef)
+				addTransition(state, key(tagCode, true), line, referenceLine, max);
+			if(withoutXRef)
+				addTransition(state, key(tagCode, false), line, referenceLine, max);
+		}
+	}
+
+	private void addTransition(final int state, final int key, final int line, final int referenceLine, final int max){
+		if(key < 0 || key < transitions[state].length && transitions[state][key] != NONE)
+			return;
+
+		transitions[state] = put(transitions[state], key, line);
+		referenceLines[state] = put(referenceLines[state], key, referenceLine);
+		transitionMaxes[state] = put(transitionMaxes[state], key, max);
+	}
+
+	private static boolean isRecordStructure(final GedcomGrammarStructure structure){
+		final String name = structure.getStructureName();
+		return (HEADER_STRUCTURE.equals(name) || name.endsWith(RECORD_STRUCTURE_SUFFIX));
+	}
+
+	/**
+	 * Reads the tables written by {@link #write(DataOutput)} for the given grammar.
+	 */
+	static GedcomGrammarTable read(final DataInput in, final GedcomGrammar grammar) throws IOException{
+		final List<GedcomGrammarLine> lines = new ArrayList<>();
+		final List<GedcomGrammarBlock> blocks = new ArrayList<>();
+		for(final GedcomGrammarStructure structure : grammar.getStructures())
+			enumerate(structure.getGrammarBlock(), lines, blocks);
+
+		final int lineCount = in.readInt();
+		final int stateCount = in.readInt();
+		if(lineCount != lines.size() || stateCount != blocks.size())
+			throw new IOException("Grammar tables do not match the grammar");
+
+		final GedcomGrammarTable table = new GedcomGrammarTable(lines.toArray(GedcomGrammarLine[]::new), stateCount);
+		for(int line = 0; line < lineCount; line ++){
+			table.childStates[line] = in.readInt();
+			table.mins[line] = in.readInt();
+			table.maxes[line] = in.readInt();
+			final String[] names = new String[in.readInt()];
+			for(int i = 0; i < names.length; i ++)
+				names[i] = in.readUTF();
+			table.valueNames[line] = names;
+		}
+		for(int state = 0; state < stateCount; state ++){
+			final int size = in.readInt();
+			for(int i = 0; i < size; i ++){
+				final int tagCode = GedcomTagTable.intern(in.readUTF());
+				final boolean hasXRef = in.readBoolean();
+				final int line = in.readInt();
+				final int referenceLine = in.readInt();
+				table.addTransition(state, key(tagCode, hasXRef), line, referenceLine, in.readInt());
+			}
+			final int[] mandatory = new int[in.readInt()];
+			for(int i = 0; i < mandatory.length; i ++)
+				mandatory[i] = in.readInt();
+			table.mandatoryLines[state] = mandatory;
+		}
+		final int records = in.readInt();
+		for(int i = 0; i < records; i ++){
+			final int tagCode = GedcomTagTable.intern(in.readUTF());
+			table.recordLines = put(table.recordLines, tagCode, in.readInt());
+		}
+		return table;
+	}
+
+	private GedcomGrammarTable(final GedcomGrammarLine[] lines, final int states){
+		this.lines = lines;
+		childStates = new int[lines.length];
+		mins = new int[lines.length];
+		maxes = new int[lines.length];
+		valueNames = new String[lines.length][];
+		transitions = new int[states][];
+		referenceLines = new int[states][];
+		transitionMaxes = new int[states][];
+		mandatoryLines = new int[states][];
+		Arrays.fill(transitions, NO_TRANSITIONS);
+		Arrays.fill(referenceLines, NO_TRANSITIONS);
+		Arrays.fill(transitionMaxes, NO_TRANSITIONS);
+	}
+
+	/** Maps the given index to the given line, growing the array (filled with {@link #NONE}) if needed. */
+	private static int[] put(int[] lineByIndex, final int index, final int line){
+		if(index < 0)
+			return lineByIndex;
+
+		if(index >= lineByIndex.length){
+			final int oldLength = lineByIndex.length;
+			lineByIndex = Arrays.copyOf(lineByIndex, index + 1);
+			Arrays.fill(lineByIndex, oldLength, index + 1, NONE);
+		}
+		lineByIndex[index] = line;
+		return lineByIndex;
+	}
+
+	/**
+	 * Returns the key of the transitions taken on the given tag code by a GEDCOM line with or without an xref, -1 if the tag is
+	 * unknown.
+	 */
+	private static int key(final int tagCode, final boolean hasXRef){
+		return (tagCode != GedcomTagTable.UNKNOWN? (tagCode << 1) | (hasXRef? 1: 0): -1);
+	}
+
+	/**
+	 * Writes the tables.
+	 */
+	void write(final DataOutput out) throws IOException{
+		out.writeInt(lines.length);
+		out.writeInt(transitions.length);
+		for(int line = 0; line < lines.length; line ++){
+			out.writeInt(childStates[line]);
+			out.writeInt(mins[line]);
+			out.writeInt(maxes[line]);
+			out.writeInt(valueNames[line].length);
+			for(final String name : valueNames[line])
+				out.writeUTF(name);
+		}
+		for(int state = 0; state < transitions.length; state ++){
+			final int[] stateTransitions = transitions[state];
+			out.writeInt(count(stateTransitions));
+			for(int key = 0; key < stateTransitions.length; key ++)
+				if(stateTransitions[key] != NONE){
+					out.writeUTF(GedcomTagTable.getTag(key >> 1));
+					out.writeBoolean((key & 1) != 0);
+					out.writeInt(stateTransitions[key]);
+					out.writeInt(referenceLines[state][key]);
+					out.writeInt(transitionMaxes[state][key]);
+				}
+			out.writeInt(mandatoryLines[state].length);
+			for(final int line : mandatoryLines[state])
+				out.writeInt(line);
+		}
+		out.writeInt(count(recordLines));
+		for(int tagCode = 0; tagCode < recordLines.length; tagCode ++)
+			if(recordLines[tagCode] != NONE){
+				out.writeUTF(GedcomTagTable.getTag(tagCode));
+				out.writeInt(recordLines[tagCode]);
+			}
+	}
+
+	private static int count(final int[] lineByIndex){
+		int size = 0;
+		for(final int line : lineByIndex)
+			if(line != NONE)
+				size ++;
+		return size;
+	}
+
+	/**
+	 * Returns the line reached from the given state with the given tag.
+	 * <p>If the state has no line for the given presence of the xref, the line for the opposite case is returned, as in the case of a
+	 * missing mandatory xref.</p>
+	 *
+	 * @param state	The state.
+	 * @param tagCode	The code of the tag in the {@link GedcomTagTable tag table}.
+	 * @param hasXRef	Whether the GEDCOM line has an xref.
+	 * @return	The line, {@link #NONE} if the tag is not allowed in the state.
+	 */
+	int getTransition(final int state, final int tagCode, final boolean hasXRef){
+		final int key = resolveKey(state, tagCode, hasXRef);
+		return (key >= 0? transitions[state][key]: NONE);
+	}
+
+	/**
+	 * Returns the line of the block of the given state that references the structure of the line reached with the given tag.
+	 *
+	 * @param state	The state.
+	 * @param tagCode	The code of the tag in the {@link GedcomTagTable tag table}.
+	 * @param hasXRef	Whether the GEDCOM line has an xref.
+	 * @return	The line, {@link #NONE} if the line reached is in the block of the state, or if the tag is not allowed.
+	 */
+	int getReferenceLine(final int state, final int tagCode, final boolean hasXRef){
+		final int key = resolveKey(state, tagCode, hasXRef);
+		return (key >= 0? referenceLines[state][key]: NONE);
+	}
+
+	/**
+	 * Returns the maximum number of occurrences, in the given state, of the line reached with the given tag.
+	 *
+	 * @param state	The state.
+	 * @param tagCode	The code of the tag in the {@link GedcomTagTable tag table}.
+	 * @param hasXRef	Whether the GEDCOM line has an xref.
+	 * @return	The maximum number of occurrences, -1 if unbounded or if the tag is not allowed.
+	 */
+	int getTransitionMax(final int state, final int tagCode, final boolean hasXRef){
+		final int key = resolveKey(state, tagCode, hasXRef);
+		return (key >= 0? transitionMaxes[state][key]: -1);
+	}
+
+	private int resolveKey(final int state, final int tagCode, final boolean hasXRef){
+		final int[] stateTransitions = transitions[state];
+		int key = key(tagCode, hasXRef);
+		if(key < 0)
+			return -1;
+		if(key >= stateTransitions.length || stateTransitions[key] == NONE)
+			key ^= 1;
+		return (key < stateTransitions.length && stateTransitions[key] != NONE? key: -1);
+	}
+
+	/**
+	 * Returns the state of the child block of the given line, {@link #NONE} if the line has no child block.
+	 */
+	int getChildState(final int line){
+		return childStates[line];
+	}
+
+	/**
+	 * Returns the lines of the block of the given state that must occur at least once.
+	 */
+	int[] getMandatoryLines(final int state){
+		return mandatoryLines[state];
+	}
+
+	/**
+	 * Returns the top line of the structure of a level-0 record.
+	 *
+	 * @param tagCode	The code of the tag of the record in the {@link GedcomTagTable tag table}.
+	 * @return	The line, {@link #NONE} if the tag is not a record of the grammar.
+	 */
+	int getRecordLine(final int tagCode){
+		return (tagCode >= 0 && tagCode < recordLines.length? recordLines[tagCode]: NONE);
+	}
+
+	GedcomGrammarLine getLine(final int line){
+		return (line != NONE? lines[line]: null);
+	}
+
+	int getMin(final int line){
+		return mins[line];
+	}
+
+	/**
+	 * @return	The maximum number of occurrences of the line, -1 if unbounded.
+	 */
+	int getMax(final int line){
+		return maxes[line];
+	}
+
+	String[] getValueNames(final int line){
+		return valueNames[line];
+	}
+
+	int getLineCount(){
+		return lines.length;
+	}
+
+	int getStateCount(){
+		return transitions.length;
+	}
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+
+/**
+ * Receives the events generated while parsing a GEDCOM file.
+ * <p>A record is a line at level zero (like {@code 0 @I1@ INDI}), an element is any other line.<br>
+ * The nodes passed to the callbacks are not linked to their parents nor to their children, the handler is free to keep them or
+ * not: the parser retains only the nodes of the elements not yet closed.</p>
+ * <p>The grammar line is the one resolved by the parser for the given node, it is <code>null</code> if the tag is unknown to the
+ * grammar (like a custom tag).</p>
+ * <p>{@code CONC} and {@code CONT} lines are sent as elements like any other line; moreover, when a record or an element ends, its
+ * {@link GedcomNode#getLogicalValue() logical value} holds the value joined with the ones of its continuation lines.</p>
+ */
+public interface GedcomHandler{
+
+	/**
+	 * Called before any other event.
+	 */
+	default void startDocument() throws GedcomParseException{}
+
+	/**
+	 * Called after all the other events.
+	 */
+	default void endDocument() throws GedcomParseException{}
+
+	/**
+	 * Called when a record starts.
+	 *
+	 * @param record	The node of the record.
+	 * @param grammarLine	The grammar line of the record.
+	 */
+	default void startRecord(final GedcomNode record, final GedcomGrammarLine grammarLine) throws GedcomParseException{}
+
+	/**
+	 * Called when a record, and all its elements, ends.
+	 *
+	 * @param record	The node of the record.
+	 */
+	default void endRecord(final GedcomNode record) throws GedcomParseException{}
+
+	/**
+	 * Called when an element starts.
+	 *
+	 * @param element	The node of the element.
+	 * @param grammarLine	The grammar line of the element.
+	 */
+	default void startElement(final GedcomNode element, final GedcomGrammarLine grammarLine) throws GedcomParseException{}
+
+	/**
+	 * Called when an element, and all its sub-elements, ends.
+	 *
+	 * @param element	The node of the element.
+	 */
+	default void endElement(final GedcomNode element) throws GedcomParseException{}
+
+	/**
+	 * Called right after the start of a record or an element that has a value.
+	 *
+	 * @param node	The node of the record or element.
+	 * @param value	The value of the line.
+	 */
+	default void value(final GedcomNode node, final String value) throws GedcomParseException{}
+
+}
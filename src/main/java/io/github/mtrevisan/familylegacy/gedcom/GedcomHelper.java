@@ -29,127 +29,252 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 
 final class GedcomHelper{
 
-	private static final Pattern PATTERN_SPACES = Pattern.compile("\\s+");
+	/** Maximum number of bytes read in order to detect the charset. */
+	private static final int HEADER_PREFIX_SIZE = 4096;
+
+	private static final String ANSEL = AnselCharset.NAME;
+
+	private static final byte[] BOM_UTF_8 = {(byte)0xEF, (byte)0xBB, (byte)0xBF};
+	private static final byte[] BOM_UTF_16BE = {(byte)0xFE, (byte)0xFF};
+	private static final byte[] BOM_UTF_16LE = {(byte)0xFF, (byte)0xFE};
+
+	/** Charsets in which every byte below 0x80 is an ASCII character, and that never use such bytes in multi-byte sequences. */
+	private static final Set<String> ASCII_COMPATIBLE_CHARSETS = Set.of("US-ASCII", "UTF-8", "ISO-8859-1", "windows-1251",
+		"windows-1252", "windows-1254", "x-IBM874", "x-MacRoman", "IBM850");
 
 
 	private GedcomHelper(){}
 
-	@SuppressWarnings({"InjectedReferences", "ResultOfMethodCallIgnored"})
+	/**
+	 * Returns a reader for the given GEDCOM stream, decoding it with the charset detected from its header.
+	 * <p>The junk at the beginning of the stream (like a byte order mark) is skipped.</p>
+	 *
+	 * @param in	The stream, positioned at the beginning of the GEDCOM.
+	 * @return	The reader.
+	 */
 	static BufferedReader getBufferedReader(InputStream in) throws IOException{
 		if(!in.markSupported())
 			in = new BufferedInputStream(in);
-		in.mark(Integer.MAX_VALUE);
 
-		String charEncoding = readCorrectedCharsetName(in);
-		in.reset();
+		final HeaderCharset header = detectCharset(in);
 
-		if(charEncoding.isEmpty()){
-			//let's try again with a UTF-16 reader
-			final BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_16));
-			charEncoding = readCorrectedCharsetName(br);
-			in.reset();
-
-			if("UTF-16".equals(charEncoding)){
-				//skip over junk at the beginning of the file
-				InputStreamReader reader = new InputStreamReader(in, StandardCharsets.UTF_16);
-				int cnt = 0;
-				int c;
-				while((c = reader.read()) != '0' && c != -1)
-					cnt ++;
-
-				in.reset();
-				reader = new InputStreamReader(in, StandardCharsets.UTF_16);
-				for(int i = 0; i < cnt; i ++)
-					reader.read();
-				return new BufferedReader(reader);
-			}
+		//skip over junk at the beginning of the file
+		long skip = header.offset;
+		while(skip > 0){
+			final long skipped = in.skip(skip);
+			if(skipped <= 0)
+				break;
+
+			skip -= skipped;
 		}
 
-		if(charEncoding.isEmpty())
-			//default
-			charEncoding = "ANSEL";
+		return new BufferedReader(new InputStreamReader(in, getCharset(header.charsetName)));
+	}
 
-		//skip over junk at the beginning of the file
-		in.reset();
-		int cnt = 0;
-		int c;
-		while((c = in.read()) != '0' && c != -1)
-			cnt ++;
+	/**
+	 * Detects the charset of a GEDCOM stream from the informations in its header.
+	 *
+	 * @param in	The stream, positioned at the beginning of the GEDCOM.
+	 * @return	The name of the charset.
+	 */
+	static String detectCharsetName(InputStream in) throws IOException{
+		if(!in.markSupported())
+			in = new BufferedInputStream(in);
 
+		return detectCharset(in).charsetName;
+	}
+
+	/**
+	 * Returns the charset with the given name.
+	 * <p>ANSEL is returned directly, without relying on the registration of its provider.</p>
+	 * <p>An illegal or unsupported name is reported as an {@link UnsupportedEncodingException}, like {@link InputStreamReader}
+	 * does.</p>
+	 *
+	 * @param charsetName	The name of the charset.
+	 * @return	The charset.
+	 */
+	static Charset getCharset(final String charsetName) throws UnsupportedEncodingException{
+		if(ANSEL.equals(charsetName))
+			return AnselCharset.INSTANCE;
+
+		try{
+			return Charset.forName(charsetName);
+		}
+		catch(final IllegalArgumentException e){
+			throw new UnsupportedEncodingException(charsetName);
+		}
+	}
+
+	/**
+	 * Whether the structural characters of a GEDCOM line (digits, spaces, {@code @}, tags, line terminators) can be read as single
+	 * bytes from a stream encoded with the given charset.
+	 *
+	 * @param charsetName	The name of the charset.
+	 * @return	Whether the charset is compatible with ASCII, <code>false</code> if the name is not legal.
+	 */
+	static boolean isAsciiCompatible(final String charsetName){
+		try{
+			return (Charset.isSupported(charsetName) && ASCII_COMPATIBLE_CHARSETS.contains(Charset.forName(charsetName).name()));
+		}
+		catch(final IllegalArgumentException e){
+			return false;
+		}
+	}
+
+	/**
+	 * Reads (at most) the first {@value #HEADER_PREFIX_SIZE} bytes of the stream and detects the charset, resetting the stream
+	 * afterwards.
+	 */
+	private static HeaderCharset detectCharset(final InputStream in) throws IOException{
+		in.mark(HEADER_PREFIX_SIZE);
+		final byte[] prefix = in.readNBytes(HEADER_PREFIX_SIZE);
 		in.reset();
-		for(int i = 0; i < cnt; i ++)
-			in.read();
 
-		final InputStreamReader reader = ("ANSEL".equals(charEncoding)?
-			new AnselInputStreamReader(in): new InputStreamReader(in, charEncoding));
+		return detectCharset(prefix, prefix.length < HEADER_PREFIX_SIZE);
+	}
+
+	/**
+	 * Detects the charset from the byte order mark, from the UTF-16 pattern of the first character, and from the {@code CHAR},
+	 * {@code SOUR}, and {@code VERS} lines of the header.
+	 *
+	 * @param prefix	The first bytes of the file.
+	 * @param whole	Whether the prefix is the whole file.
+	 */
+	private static HeaderCharset detectCharset(final byte[] prefix, final boolean whole){
+		Charset unicode = null;
+		int offset = 0;
+		if(startsWith(prefix, BOM_UTF_8)){
+			unicode = StandardCharsets.UTF_8;
+			offset = BOM_UTF_8.length;
+		}
+		else if(startsWith(prefix, BOM_UTF_16BE)){
+			unicode = StandardCharsets.UTF_16BE;
+			offset = BOM_UTF_16BE.length;
+		}
+		else if(startsWith(prefix, BOM_UTF_16LE)){
+			unicode = StandardCharsets.UTF_16LE;
+			offset = BOM_UTF_16LE.length;
+		}
+		else if(prefix.length >= 2 && prefix[0] == '0' && prefix[1] == 0)
+			unicode = StandardCharsets.UTF_16LE;
+		else if(prefix.length >= 2 && prefix[0] == 0 && prefix[1] == '0')
+			unicode = StandardCharsets.UTF_16BE;
+
+		final boolean wide = (unicode != null && unicode != StandardCharsets.UTF_8);
+		//NOTE: the structural parts of the header are ASCII, so any single-byte charset will do
+		final String header = new String(prefix, offset, (wide? (prefix.length - offset) & ~1: prefix.length - offset),
+			(wide? unicode: StandardCharsets.ISO_8859_1));
 
-		return new BufferedReader(reader);
+		//skip over junk at the beginning of the file
+		final int start = Math.max(header.indexOf('0'), 0);
+		offset += start * (wide? 2: 1);
+
+		String charsetName = readCorrectedCharsetName(header, start, whole);
+		if(unicode != null)
+			//the byte pattern is more reliable than the header
+			charsetName = unicode.name();
+		else if(charsetName.isEmpty())
+			//default
+			charsetName = ANSEL;
+		return new HeaderCharset(charsetName, offset);
 	}
 
-	private static String readCorrectedCharsetName(final InputStream is) throws IOException{
-		final BufferedReader r = new BufferedReader(new InputStreamReader(is));
-		return readCorrectedCharsetName(r);
+	private static boolean startsWith(final byte[] array, final byte[] prefix){
+		if(array.length < prefix.length)
+			return false;
+
+		for(int i = 0; i < prefix.length; i ++)
+			if(array[i] != prefix[i])
+				return false;
+		return true;
 	}
 
-	private static String readCorrectedCharsetName(final BufferedReader in) throws IOException{
-		//try to read only the first 100 lines of the file attempting to get the char encoding.
-		String line;
+	/**
+	 * Scans the header records looking for the generator name, the encoding, and its version.
+	 */
+	private static String readCorrectedCharsetName(final String header, int start, final boolean whole){
+		final GedcomLineTokenizer tokenizer = new GedcomLineTokenizer();
 		String generatorName = null;
 		String encoding = null;
 		String version = null;
-		for(int i = 0; i < 100; i ++){
-			line = in.readLine();
-			if(line != null){
-				String[] split = PATTERN_SPACES.split(line.trim(), 3);
-				if(split.length == 3){
-					final boolean level1 = "1".equals(split[0]);
-					if(level1){
-						final String id = split[1];
-						if(generatorName == null && "SOUR".equals(id))
-							generatorName = split[2];
-						else if("CHAR".equals(id) || "CHARACTER".equals(id)){
-							//get encoding
-							encoding = split[2].toUpperCase();
-							//look for version
-							line = in.readLine();
-							if(line != null){
-								split = PATTERN_SPACES.split(line.trim(), 3);
-								if(split.length == 3 && "2".equals(split[0]) && "VERS".equals(split[1]))
-									version = split[2];
-							}
-						}
+		boolean characterSetLine = false;
+		boolean firstRecord = true;
+		final int limit = header.length();
+		while(start < limit){
+			int end = start;
+			char chr;
+			while(end < limit && (chr = header.charAt(end)) != '\n' && chr != '\r')
+				end ++;
+			if(end == limit && !whole)
+				//the last line could be truncated
+				break;
+
+			if(tokenizer.tokenize(header, start, end)){
+				final int level = tokenizer.getLevel();
+				if(level == 0){
+					//the header ends where the next record starts
+					if(!firstRecord)
+						break;
+
+					firstRecord = false;
+				}
+
+				final String tag = tokenizer.getTag();
+				if(characterSetLine && level == 2 && "VERS".equals(tag))
+					version = tokenizer.getValue();
+				characterSetLine = false;
+				if(level == 1 && tokenizer.getValue() != null){
+					if(generatorName == null && "SOUR".equals(tag))
+						generatorName = tokenizer.getValue();
+					else if("CHAR".equals(tag) || "CHARACTER".equals(tag)){
+						encoding = tokenizer.getValue().toUpperCase();
+						characterSetLine = true;
 					}
 				}
 			}
-			if(generatorName != null && encoding != null)
-				break;
+
+			start = end + 1;
 		}
 
 		return getCorrectedCharsetName(generatorName, encoding, version);
 	}
 
-	private static String getCorrectedCharsetName(final String generatorName, String encoding, final String version){
+	private static String getCorrectedCharsetName(final String generatorName, final String encoding, final String version){
 		//correct incorrectly-assigned encoding values
 		if("GeneWeb".equals(generatorName) && "ASCII".equals(encoding))
 			//GeneWeb ASCII -> Cp1252 (ANSI)
-			encoding = "Cp1252";
-		else if("Geni.com".equals(generatorName) && "UNICODE".equals(encoding))
+			return "Cp1252";
+		if("Geni.com".equals(generatorName) && "UNICODE".equals(encoding))
 			//Geni.com UNICODE -> UTF-8
-			encoding = "UTF-8";
-		else if("Geni.com".equals(generatorName) && "ANSEL".equals(encoding))
+			return "UTF-8";
+		if("Geni.com".equals(generatorName) && "ANSEL".equals(encoding))
 			//Geni.com ANSEL -> UTF-8
-			encoding = "UTF-8";
-		else if("GENJ".equals(generatorName) && "UNICODE".equals(encoding))
+			return "UTF-8";
+		if("GENJ".equals(generatorName) && "UNICODE".equals(encoding))
 			//GENJ UNICODE -> UTF-8
-			encoding = "UTF-8";
+			return "UTF-8";
+
+		return getCharsetName(encoding, version);
+	}
+
+	/**
+	 * Translates the value of a {@code CHAR} line into a java charset name.
+	 *
+	 * @param encoding	The value of the {@code CHAR} line, uppercase.
+	 * @param version	The value of the {@code VERS} line under {@code CHAR}, if any.
+	 * @return	The charset name, an empty string if the encoding is <code>null</code>.
+	 */
+	static String getCharsetName(String encoding, final String version){
 		//make encoding value java-friendly
-		else if("ASCII".equals(encoding)){
+		if("ASCII".equals(encoding)){
 			//ASCII followed by VERS MacOS Roman is MACINTOSH
 			if("MacOS Roman".equals(version))
 				encoding = "x-MacRoman";
@@ -178,4 +303,19 @@ final class GedcomHelper{
 		return encoding;
 	}
 
+
+	private static final class HeaderCharset{
+
+		private final String charsetName;
+		/** Number of bytes to be skipped at the beginning of the file. */
+		private final int offset;
+
+
+		HeaderCharset(final String charsetName, final int offset){
+			this.charsetName = charsetName;
+			this.offset = offset;
+		}
+
+	}
+
 }
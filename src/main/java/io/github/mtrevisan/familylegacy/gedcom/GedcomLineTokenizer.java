@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+
+/**
+ * Splits a GEDCOM line into its five fields: level, ID, tag, xref, and value.
+ * <p>The line is scanned only once, and only the offsets of the fields are stored: the strings are created on request.<br>
+ * The accepted syntax is the same of the regex {@code ^\s*(\d+)\s+(@([^@ ]+)@\s+)?([a-zA-Z_0-9.]+)(\s+@([^@ ]+)@)?(\s(.*))?$}.</p>
+ * <p>If the line is a {@link ByteBufferCharSequence}, the fields are decoded straight from the underlying bytes.</p>
+ * <p>An instance is meant to be reused line after line, it is not thread-safe.</p>
+ */
+final class GedcomLineTokenizer{
+
+	private static final int MAX_LEVEL = (Integer.MAX_VALUE - 9) / 10;
+
+
+	private CharSequence line;
+
+	private int level;
+	private int idStart;
+	private int idEnd;
+	private int tagStart;
+	private int tagEnd;
+	private boolean tagHasLowercase;
+	private int xrefStart;
+	private int xrefEnd;
+	private int valueStart;
+	private int valueEnd;
+
+
+	/**
+	 * Tokenizes the given line.
+	 *
+	 * @param line	The line to be tokenized.
+	 * @return	Whether the line is a valid GEDCOM line.
+	 */
+	boolean tokenize(final CharSequence line){
+		return tokenize(line, 0, line.length());
+	}
+
+	/**
+	 * Tokenizes the given portion of a sequence of characters.
+	 *
+	 * @param line	The sequence containing the line to be tokenized.
+	 * @param start	The index of the first character of the line.
+	 * @param end	The index after the last character of the line.
+	 * @return	Whether the line is a valid GEDCOM line.
+	 */
+	boolean tokenize(final CharSequence line, int start, int end){
+		this.line = line;
+		idStart = -1;
+		xrefStart = -1;
+		valueStart = -1;
+		tagHasLowercase = false;
+
+		//trim
+		while(start < end && line.charAt(start) <= ' ')
+			start ++;
+		while(end > start && line.charAt(end - 1) <= ' ')
+			end --;
+
+		//level
+		int i = start;
+		level = 0;
+		char chr;
+		while(i < end && (chr = line.charAt(i)) >= '0' && chr <= '9'){
+			if(level > MAX_LEVEL)
+				return false;
+
+			level = level * 10 + (chr - '0');
+			i ++;
+		}
+		if(i == start || i == end || !isWhitespace(line.charAt(i)))
+			return false;
+		i = skipWhitespaces(line, i, end);
+
+		//ID
+		if(line.charAt(i) == '@'){
+			final int idDelimiter = indexOfDelimiter(line, i + 1, end);
+			if(idDelimiter < 0 || idDelimiter + 1 == end || !isWhitespace(line.charAt(idDelimiter + 1)))
+				return false;
+
+			idStart = i + 1;
+			idEnd = idDelimiter;
+			i = skipWhitespaces(line, idDelimiter + 1, end);
+		}
+
+		//tag
+		tagStart = i;
+		while(i < end && isTagCharacter(chr = line.charAt(i))){
+			if(chr >= 'a' && chr <= 'z')
+				tagHasLowercase = true;
+			i ++;
+		}
+		tagEnd = i;
+		if(tagStart == tagEnd || i < end && !isWhitespace(line.charAt(i)))
+			return false;
+
+		if(i < end){
+			//xref
+			final int xrefDelimiterStart = skipWhitespaces(line, i, end);
+			if(line.charAt(xrefDelimiterStart) == '@'){
+				final int xrefDelimiterEnd = indexOfDelimiter(line, xrefDelimiterStart + 1, end);
+				if(xrefDelimiterEnd >= 0 && (xrefDelimiterEnd + 1 == end || isWhitespace(line.charAt(xrefDelimiterEnd + 1)))){
+					xrefStart = xrefDelimiterStart + 1;
+					xrefEnd = xrefDelimiterEnd;
+					i = xrefDelimiterEnd + 1;
+				}
+			}
+
+			//value (the first whitespace is a separator, the others are part of the value)
+			if(i < end){
+				valueStart = i + 1;
+				valueEnd = end;
+			}
+		}
+		return true;
+	}
+
+	/** Returns the index of the closing {@code @} of a non-empty identifier starting at {@code start}, -1 if not found. */
+	private static int indexOfDelimiter(final CharSequence line, final int start, final int end){
+		int i = start;
+		char chr;
+		while(i < end && (chr = line.charAt(i)) != '@' && chr != ' ')
+			i ++;
+		return (i > start && i < end && line.charAt(i) == '@'? i: -1);
+	}
+
+	private static int skipWhitespaces(final CharSequence line, int index, final int end){
+		while(index < end && isWhitespace(line.charAt(index)))
+			index ++;
+		return index;
+	}
+
+	/** NOTE: same characters of the regex class {@code \s}. */
+	private static boolean isWhitespace(final char chr){
+		return (chr == ' ' || chr == '\t' || chr == '\n' || chr == '\u000B' || chr == '\f' || chr == '\r');
+	}
+
+	private static boolean isTagCharacter(final char chr){
+		return (chr >= 'A' && chr <= 'Z' || chr >= 'a' && chr <= 'z' || chr >= '0' && chr <= '9' || chr == '_' || chr == '.');
+	}
+
+	/**
+	 * Whether the given portion of a sequence of characters contains only whitespaces.
+	 */
+	static boolean isBlank(final CharSequence line, final int start, final int end){
+		for(int i = start; i < end; i ++)
+			if(line.charAt(i) > ' ')
+				return false;
+		return true;
+	}
+
+	int getLevel(){
+		return level;
+	}
+
+	String getID(){
+		return (idStart >= 0? substring(idStart, idEnd): null);
+	}
+
+	String getTag(){
+		if(!tagHasLowercase)
+			return substring(tagStart, tagEnd);
+
+		final char[] tag = new char[tagEnd - tagStart];
+		for(int i = 0; i < tag.length; i ++){
+			final char chr = line.charAt(tagStart + i);
+			tag[i] = (chr >= 'a' && chr <= 'z'? (char)(chr - 'a' + 'A'): chr);
+		}
+		return new String(tag);
+	}
+
+	/**
+	 * Returns the code of the tag in the {@link GedcomTagTable tag table}, adding the tag if not already present.
+	 * <p>The tag string is created only if it is not in the table.</p>
+	 */
+	int getTagCode(){
+		final int code = GedcomTagTable.getCode(line, tagStart, tagEnd);
+		return (code != GedcomTagTable.UNKNOWN? code: GedcomTagTable.intern(getTag()));
+	}
+
+	String getXRef(){
+		return (xrefStart >= 0? substring(xrefStart, xrefEnd): null);
+	}
+
+	String getValue(){
+		return (valueStart >= 0? substring(valueStart, valueEnd): null);
+	}
+
+	/** Returns the sequence the last line was read from. */
+	CharSequence getLine(){
+		return line;
+	}
+
+	/** Returns the index of the first character of the value in {@link #getLine() the line}, -1 if there is no value. */
+	int getValueStart(){
+		return valueStart;
+	}
+
+	/** Returns the index after the last character of the value in {@link #getLine() the line}. */
+	int getValueEnd(){
+		return valueEnd;
+	}
+
+	private String substring(final int start, final int end){
+		return (line instanceof ByteBufferCharSequence?
+			((ByteBufferCharSequence)line).decode(start, end):
+			line.subSequence(start, end).toString());
+	}
+
+}
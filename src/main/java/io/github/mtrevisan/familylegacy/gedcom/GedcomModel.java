@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The typed records of a GEDCOM file (see {@link GedcomModelHandler}).
+ */
+public final class GedcomModel{
+
+	private final List<Individual> individuals;
+	private final List<Family> families;
+	private final List<Source> sources;
+	private final List<Repository> repositories;
+
+	private final Map<String, Individual> individualIndex;
+	private final Map<String, Family> familyIndex;
+	private final Map<String, Source> sourceIndex;
+	private final Map<String, Repository> repositoryIndex;
+
+
+	GedcomModel(final List<Individual> individuals, final List<Family> families, final List<Source> sources,
+			final List<Repository> repositories){
+		this.individuals = Collections.unmodifiableList(individuals);
+		this.families = Collections.unmodifiableList(families);
+		this.sources = Collections.unmodifiableList(sources);
+		this.repositories = Collections.unmodifiableList(repositories);
+
+		individualIndex = index(individuals);
+		familyIndex = index(families);
+		sourceIndex = index(sources);
+		repositoryIndex = index(repositories);
+	}
+
+	private static <T extends TypedRecord> Map<String, T> index(final List<T> records){
+		final Map<String, T> index = new HashMap<>(records.size() * 4 / 3 + 1);
+		for(final T record : records)
+			if(record.getID() != null)
+				index.put(record.getID(), record);
+		return index;
+	}
+
+	public List<Individual> getIndividuals(){
+		return individuals;
+	}
+
+	public List<Family> getFamilies(){
+		return families;
+	}
+
+	public List<Source> getSources(){
+		return sources;
+	}
+
+	public List<Repository> getRepositories(){
+		return repositories;
+	}
+
+	public Individual getIndividual(final String id){
+		return individualIndex.get(id);
+	}
+
+	public Family getFamily(final String id){
+		return familyIndex.get(id);
+	}
+
+	public Source getSource(final String id){
+		return sourceIndex.get(id);
+	}
+
+	public Repository getRepository(final String id){
+		return repositoryIndex.get(id);
+	}
+
+}
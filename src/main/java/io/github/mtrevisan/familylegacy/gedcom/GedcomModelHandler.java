@@ -0,0 +1,345 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Builds the {@link GedcomModel typed records} straight from the parsing events, without building any tree.
+ * <p>The lines of the grammar are bound once to the fields of the records (see {@link GedcomRecordField}), so each element costs a
+ * lookup of its grammar line; the values are read only for the bound elements, hence parsing with lazy values avoids decoding all
+ * the others.</p>
+ */
+class GedcomModelHandler implements GedcomHandler{
+
+	private static final int INITIAL_LEVELS = 16;
+
+
+	private final Map<GedcomGrammarLine, GedcomRecordField> bindings;
+
+	private final List<Individual> individuals = new ArrayList<>();
+	private final List<Family> families = new ArrayList<>();
+	private final List<Source> sources = new ArrayList<>();
+	private final List<Repository> repositories = new ArrayList<>();
+	private GedcomModel model;
+
+	/** The typed object in scope at each level, either created by the element at that level or inherited from its parent. */
+	private Object[] scopes = new Object[INITIAL_LEVELS];
+	/** The field bound to the element at each level, <code>null</code> if none. */
+	private GedcomRecordField[] fields = new GedcomRecordField[INITIAL_LEVELS];
+
+
+	GedcomModelHandler(final GedcomGrammar grammar){
+		bindings = GedcomRecordField.bind(grammar);
+	}
+
+	GedcomModel getModel(){
+		return model;
+	}
+
+	@Override
+	public void startDocument(){
+		individuals.clear();
+		families.clear();
+		sources.clear();
+		repositories.clear();
+		model = null;
+	}
+
+	@Override
+	public void endDocument(){
+		model = new GedcomModel(new ArrayList<>(individuals), new ArrayList<>(families), new ArrayList<>(sources),
+			new ArrayList<>(repositories));
+	}
+
+	@Override
+	public void startRecord(final GedcomNode record, final GedcomGrammarLine grammarLine){
+		startElement(record, grammarLine);
+	}
+
+	@Override
+	public void endRecord(final GedcomNode record){
+		endElement(record);
+	}
+
+	@Override
+	public void startElement(final GedcomNode element, final GedcomGrammarLine grammarLine){
+		final int level = element.getLevel();
+		if(level == scopes.length){
+			scopes = Arrays.copyOf(scopes, level << 1);
+			fields = Arrays.copyOf(fields, level << 1);
+		}
+
+		final GedcomRecordField field = (grammarLine != null? bindings.get(grammarLine): null);
+		final Object owner = (level > 0? scopes[level - 1]: null);
+		Object scope = owner;
+		if(field != null)
+			switch(field){
+				case INDIVIDUAL:
+					scope = new Individual(element.getID());
+					break;
+
+				case FAMILY:
+					scope = new Family(element.getID());
+					break;
+
+				case SOURCE:
+					scope = new Source(element.getID());
+					break;
+
+				case REPOSITORY:
+					scope = new Repository(element.getID());
+					break;
+
+				case EVENT:
+					if(owner instanceof Individual || owner instanceof Family)
+						scope = new Event(element.getTagCode());
+					break;
+
+				case ADDRESS:
+					if(owner instanceof Event || owner instanceof Repository)
+						scope = new Address();
+					break;
+
+				default:
+			}
+		scopes[level] = scope;
+		fields[level] = field;
+	}
+
+	@Override
+	@SuppressWarnings("ConstantConditions")
+	public void endElement(final GedcomNode element){
+		final int level = element.getLevel();
+		final GedcomRecordField field = fields[level];
+		if(field == null)
+			return;
+
+		final Object owner = (level > 0? scopes[level - 1]: null);
+		final Object scope = scopes[level];
+		scopes[level] = null;
+		switch(field){
+			case INDIVIDUAL:
+				individuals.add((Individual)scope);
+				break;
+
+			case FAMILY:
+				families.add((Family)scope);
+				break;
+
+			case SOURCE:
+				sources.add((Source)scope);
+				break;
+
+			case REPOSITORY:
+				repositories.add((Repository)scope);
+				break;
+
+			case EVENT:
+				if(scope != owner){
+					final Event event = (Event)scope;
+					event.setValue(element.getLogicalValue());
+					if(owner instanceof Individual)
+						((Individual)owner).addEvent(event);
+					else
+						((Family)owner).addEvent(event);
+				}
+				break;
+
+			case ADDRESS:
+				if(scope != owner){
+					final Address address = (Address)scope;
+					address.setValue(element.getLogicalValue());
+					if(owner instanceof Event)
+						((Event)owner).setAddress(address);
+					else
+						((Repository)owner).setAddress(address);
+				}
+				break;
+
+			default:
+				setField(field, owner, element);
+		}
+	}
+
+	/** Sets the value or the xref of the given element into the given field of the owner, if it is of the right type. */
+	private static void setField(final GedcomRecordField field, final Object owner, final GedcomNode element){
+		if(owner instanceof Individual)
+			setIndividualField(field, (Individual)owner, element);
+		else if(owner instanceof Family)
+			setFamilyField(field, (Family)owner, element);
+		else if(owner instanceof Event)
+			setEventField(field, (Event)owner, element);
+		else if(owner instanceof Address)
+			setAddressField(field, (Address)owner, element);
+		else if(owner instanceof Source)
+			setSourceField(field, (Source)owner, element);
+		else if(owner instanceof Repository && field == GedcomRecordField.REPOSITORY_NAME)
+			((Repository)owner).setName(element.getLogicalValue());
+	}
+
+	private static void setIndividualField(final GedcomRecordField field, final Individual individual, final GedcomNode element){
+		switch(field){
+			case INDIVIDUAL_SEX:
+				individual.setSex(element.getValue());
+				break;
+
+			case INDIVIDUAL_NAME:
+				individual.addName(element.getLogicalValue());
+				break;
+
+			case INDIVIDUAL_CHILD_FAMILY:
+				if(element.getXRef() != null)
+					individual.addChildFamilyID(element.getXRef());
+				break;
+
+			case INDIVIDUAL_SPOUSE_FAMILY:
+				if(element.getXRef() != null)
+					individual.addSpouseFamilyID(element.getXRef());
+				break;
+
+			default:
+		}
+	}
+
+	private static void setFamilyField(final GedcomRecordField field, final Family family, final GedcomNode element){
+		switch(field){
+			case FAMILY_HUSBAND:
+				family.setHusbandID(element.getXRef());
+				break;
+
+			case FAMILY_WIFE:
+				family.setWifeID(element.getXRef());
+				break;
+
+			case FAMILY_CHILD:
+				if(element.getXRef() != null)
+					family.addChildID(element.getXRef());
+				break;
+
+			default:
+		}
+	}
+
+	private static void setEventField(final GedcomRecordField field, final Event event, final GedcomNode element){
+		switch(field){
+			case EVENT_TYPE:
+				event.setType(element.getLogicalValue());
+				break;
+
+			case EVENT_DATE:
+				event.setDate(element.getValue());
+				break;
+
+			case EVENT_PLACE:
+				event.setPlace(element.getLogicalValue());
+				break;
+
+			case EVENT_AGE:
+				event.setAge(element.getValue());
+				break;
+
+			case EVENT_AGENCY:
+				event.setAgency(element.getLogicalValue());
+				break;
+
+			case EVENT_CAUSE:
+				event.setCause(element.getLogicalValue());
+				break;
+
+			default:
+		}
+	}
+
+	private static void setAddressField(final GedcomRecordField field, final Address address, final GedcomNode element){
+		switch(field){
+			case ADDRESS_LINE1:
+				address.setLine1(element.getValue());
+				break;
+
+			case ADDRESS_LINE2:
+				address.setLine2(element.getValue());
+				break;
+
+			case ADDRESS_LINE3:
+				address.setLine3(element.getValue());
+				break;
+
+			case ADDRESS_CITY:
+				address.setCity(element.getValue());
+				break;
+
+			case ADDRESS_STATE:
+				address.setState(element.getValue());
+				break;
+
+			case ADDRESS_POSTAL_CODE:
+				address.setPostalCode(element.getValue());
+				break;
+
+			case ADDRESS_COUNTRY:
+				address.setCountry(element.getValue());
+				break;
+
+			default:
+		}
+	}
+
+	private static void setSourceField(final GedcomRecordField field, final Source source, final GedcomNode element){
+		switch(field){
+			case SOURCE_TITLE:
+				source.setTitle(element.getLogicalValue());
+				break;
+
+			case SOURCE_AUTHOR:
+				source.setAuthor(element.getLogicalValue());
+				break;
+
+			case SOURCE_PUBLICATION:
+				source.setPublication(element.getLogicalValue());
+				break;
+
+			case SOURCE_ABBREVIATION:
+				source.setAbbreviation(element.getLogicalValue());
+				break;
+
+			case SOURCE_TEXT:
+				source.setText(element.getLogicalValue());
+				break;
+
+			case SOURCE_REPOSITORY:
+				if(element.getXRef() != null)
+					source.addRepositoryID(element.getXRef());
+				break;
+
+			default:
+		}
+	}
+
+}
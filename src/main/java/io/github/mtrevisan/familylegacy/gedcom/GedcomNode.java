@@ -30,29 +30,35 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 public final class GedcomNode{
 
-	/** NOTE: {@link Pattern#DOTALL} is for unicode line separator. */
-	private static final Pattern GEDCOM_LINE = Pattern.compile("^\\s*(\\d)\\s+(@([^@ ]+)@\\s+)?([a-zA-Z_0-9.]+)(\\s+@([^@ ]+)@)?(\\s(.*))?$",
-		Pattern.DOTALL);
-	private static final int GEDCOM_LINE_LEVEL = 1;
-	private static final int GEDCOM_LINE_ID = 3;
-	private static final int GEDCOM_LINE_TAG = 4;
-	private static final int GEDCOM_LINE_XREF = 6;
-	private static final int GEDCOM_LINE_VALUE = 8;
+	private static final int TAG_CONCATENATION = GedcomTagTable.intern("CONC");
+	private static final int TAG_CONTINUATION = GedcomTagTable.intern("CONT");
 
 
 	private int level;
 	private String id;
+	/** The code of the tag in the {@link GedcomTagTable tag table}, {@link GedcomTagTable#UNKNOWN} if none. */
+	private int tagCode = GedcomTagTable.UNKNOWN;
+	/** The tag, shared among all the nodes with the same tag. */
 	private String tag;
 	private String xref;
 	private String value;
+	/**
+	 * The text holding the value not yet decoded, <code>null</code> if the value is already decoded (or there is none).
+	 * <p>It is cleared only after {@link #value} is set, and it is volatile so a thread seeing it cleared also sees the value.</p>
+	 */
+	private volatile CharSequence valueSource;
+	private int valueStart;
+	private int valueEnd;
+	/** The value joined with the ones of the {@code CONC}/{@code CONT} children, <code>null</code> if there are none. */
+	private String logicalValue;
 
 	private Object object;
+	/** The record the xref points to, <code>null</code> if it is not resolved (see {@link GedcomXRefResolver}). */
+	private GedcomNode reference;
 
 	private List<GedcomNode> children;
 
@@ -62,20 +68,80 @@ public final class GedcomNode{
 	}
 
 	public static GedcomNode parse(final String line){
-		final Matcher m = GEDCOM_LINE.matcher(line.trim());
-		if(!m.find())
-			return null;
+		final GedcomLineTokenizer tokenizer = new GedcomLineTokenizer();
+		return (tokenizer.tokenize(line)? create(tokenizer): null);
+	}
+
+	/**
+	 * Creates a node from the fields of the last line read by the given tokenizer.
+	 */
+	static GedcomNode create(final GedcomLineTokenizer tokenizer){
+		return create(tokenizer, false);
+	}
 
+	/**
+	 * Creates a node from the fields of the last line read by the given tokenizer.
+	 * <p>If the value is lazy, only its position in the text is kept, and the string is created on the first call to
+	 * {@link #getValue()}; the text must not change afterwards.</p>
+	 *
+	 * @param tokenizer	The tokenizer.
+	 * @param lazyValue	Whether to postpone the creation of the value.
+	 */
+	static GedcomNode create(final GedcomLineTokenizer tokenizer, final boolean lazyValue){
 		final GedcomNode node = new GedcomNode();
-		node.setLevel(m.group(GEDCOM_LINE_LEVEL));
-		node.setTag(m.group(GEDCOM_LINE_TAG));
-		node.setID(m.group(GEDCOM_LINE_ID));
-		node.setXRef(m.group(GEDCOM_LINE_XREF));
-		node.setValue(m.group(GEDCOM_LINE_VALUE));
+		node.level = tokenizer.getLevel();
+		node.tagCode = tokenizer.getTagCode();
+		node.tag = (node.tagCode != GedcomTagTable.UNKNOWN? GedcomTagTable.getTag(node.tagCode): tokenizer.getTag());
+		node.setID(tokenizer.getID());
+		node.setXRef(tokenizer.getXRef());
+		if(!lazyValue)
+			node.setValue(tokenizer.getValue());
+		else if(tokenizer.getValueStart() >= 0 && tokenizer.getValueStart() < tokenizer.getValueEnd()){
+			node.valueSource = tokenizer.getLine();
+			node.valueStart = tokenizer.getValueStart();
+			node.valueEnd = tokenizer.getValueEnd();
+		}
+		return node;
+	}
 
+	/**
+	 * Creates a node from the given node of a cursor, without its children.
+	 */
+	static GedcomNode create(final GedcomNodeCursor cursor, final int handle){
+		final GedcomNode node = new GedcomNode();
+		node.level = cursor.getLevel(handle);
+		node.tagCode = cursor.getTagCode(handle);
+		node.tag = cursor.getTag(handle);
+		node.setID(cursor.getID(handle));
+		node.setXRef(cursor.getXRef(handle));
+		node.setValue(cursor.getValue(handle));
+		node.logicalValue = joinContinuations(cursor, handle, node.value);
 		return node;
 	}
 
+	/**
+	 * Joins the given value with the ones of the {@code CONC} and {@code CONT} children of the given node of a cursor.
+	 *
+	 * @return	The joined value, <code>null</code> if the node has no such children.
+	 */
+	static String joinContinuations(final GedcomNodeCursor cursor, final int handle, final String value){
+		StringBuilder sb = null;
+		for(int child = cursor.getFirstChild(handle); child != GedcomNodeCursor.NONE; child = cursor.getNextSibling(child)){
+			final int tagCode = cursor.getTagCode(child);
+			if(tagCode != TAG_CONCATENATION && tagCode != TAG_CONTINUATION)
+				continue;
+
+			if(sb == null)
+				sb = new StringBuilder(value != null? value: "");
+			if(tagCode == TAG_CONTINUATION)
+				sb.append('\n');
+			final String childValue = cursor.getValue(child);
+			if(childValue != null)
+				sb.append(childValue);
+		}
+		return (sb != null? sb.toString(): null);
+	}
+
 	private GedcomNode(){}
 
 	public void setLevel(final String level){
@@ -99,9 +165,8 @@ public final class GedcomNode{
 		return tag;
 	}
 
-	private void setTag(final String tag){
-		if(tag != null && !tag.trim().isEmpty())
-			this.tag = tag.trim().toUpperCase();
+	public int getTagCode(){
+		return tagCode;
 	}
 
 	public String getXRef(){
@@ -114,19 +179,56 @@ public final class GedcomNode{
 	}
 
 	public String getValue(){
-		return value;
+		final CharSequence source = valueSource;
+		if(source == null)
+			return value;
+
+		//NOTE: threads racing here decode the same value
+		final String decoded = (source instanceof ByteBufferCharSequence?
+			((ByteBufferCharSequence)source).decodeConcurrently(valueStart, valueEnd):
+			source.subSequence(valueStart, valueEnd).toString());
+		value = decoded;
+		valueSource = null;
+		return decoded;
+	}
+
+	/**
+	 * Whether the node has a value, without creating it if lazy.
+	 */
+	public boolean hasValue(){
+		return (valueSource != null || value != null);
 	}
 
 	public void setValue(final String value){
 		if(value != null && !value.isEmpty())
 			this.value = value;
+		valueSource = null;
 	}
 
-	public void appendValue(final String value){
-		if(this.value == null)
-			this.value = value;
-		else
-			this.value += value;
+	/**
+	 * Returns the value joined with the ones of the {@code CONC} and {@code CONT} children (the latter preceded by a newline).
+	 * <p>The children are kept as they are, this value is assembled by the parser when the node ends.</p>
+	 */
+	public String getLogicalValue(){
+		return (logicalValue != null? logicalValue: getValue());
+	}
+
+	void setLogicalValue(final String logicalValue){
+		this.logicalValue = logicalValue;
+	}
+
+	/**
+	 * Returns the record the xref of this node points to.
+	 * <p>The pointers are resolved once the whole file is loaded, see {@link Gedcom#getXRefReport()}.</p>
+	 *
+	 * @return	The record, <code>null</code> if this node has no xref or it cannot be resolved.
+	 */
+	public GedcomNode getReference(){
+		return reference;
+	}
+
+	void setReference(final GedcomNode reference){
+		this.reference = reference;
 	}
 
 	public Object getObject(){
@@ -149,11 +251,33 @@ public final class GedcomNode{
 	}
 
 	public List<GedcomNode> getChildrenWithTag(final String tag){
+		final int code = GedcomTagTable.getCode(tag);
+		if(code != GedcomTagTable.UNKNOWN)
+			return getChildrenWithTag(code);
+
+		//NOTE: the tag table is full, or no node has the given tag
+		final List<GedcomNode> taggedChildren;
+		if(children != null){
+			taggedChildren = new ArrayList<>(0);
+			for(final GedcomNode child : children)
+				if(child.tagCode == GedcomTagTable.UNKNOWN && tag.equals(child.tag))
+					taggedChildren.add(child);
+		}
+		else
+			taggedChildren = Collections.emptyList();
+		return taggedChildren;
+	}
+
+	/**
+	 * @param tagCode	The code of the tag in the {@link GedcomTagTable tag table}.
+	 * @return	The children with the given tag.
+	 */
+	public List<GedcomNode> getChildrenWithTag(final int tagCode){
 		final List<GedcomNode> taggedChildren;
 		if(children != null){
 			taggedChildren = new ArrayList<>(0);
 			for(final GedcomNode child : children)
-				if(child.tag.equals(tag))
+				if(child.tagCode == tagCode)
 					taggedChildren.add(child);
 		}
 		else
@@ -173,7 +297,7 @@ public final class GedcomNode{
 			.append(id, rhs.id)
 			.append(tag, rhs.tag)
 			.append(xref, rhs.xref)
-			.append(value, rhs.value)
+			.append(getValue(), rhs.getValue())
 			.append(children, rhs.children);
 		return builder.isEquals();
 	}
@@ -184,7 +308,7 @@ public final class GedcomNode{
 			.append(id)
 			.append(tag)
 			.append(xref)
-			.append(value)
+			.append(getValue())
 			.append(children)
 			.hashCode();
 	}
@@ -198,8 +322,8 @@ public final class GedcomNode{
 			builder.append(builder.length() > 0? ", ": "").append("tag: ").append(tag);
 		if(xref != null)
 			builder.append(builder.length() > 0? ", ": "").append("ref: ").append(xref);
-		if(value != null)
-			builder.append(builder.length() > 0? ", ": "").append("value: ").append(value);
+		if(hasValue())
+			builder.append(builder.length() > 0? ", ": "").append("value: ").append(getValue());
 		if(children != null){
 			final StringBuilder childBuilder = new StringBuilder();
 
@@ -215,8 +339,8 @@ public final class GedcomNode{
 					childBuilder.append(childBuilder.length() > 1? ", ": "").append("tag: ").append(child.tag);
 				if(child.xref != null)
 					childBuilder.append(childBuilder.length() > 1? ", ": "").append("ref: ").append(child.xref);
-				if(child.value != null)
-					childBuilder.append(childBuilder.length() > 1? ", ": "").append("value: ").append(child.value);
+				if(child.hasValue())
+					childBuilder.append(childBuilder.length() > 1? ", ": "").append("value: ").append(child.getValue());
 				childBuilder.append('}');
 				builder.append(childBuilder);
 				if(i < size - 1)
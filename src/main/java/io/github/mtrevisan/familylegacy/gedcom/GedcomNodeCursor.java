@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.Arrays;
+
+
+/**
+ * Read-only access to a tree of GEDCOM lines whose nodes are addressed by integer handles instead of objects.
+ * <p>The root is an empty node (with level -1) whose children are the records; a missing node is {@link #NONE}.<br>
+ * Navigating the tree does not allocate, whereas the strings are created on request.</p>
+ */
+public interface GedcomNodeCursor{
+
+	/** Handle of a missing node. */
+	int NONE = -1;
+
+
+	/**
+	 * @return	The handle of the root.
+	 */
+	int getRoot();
+
+	/**
+	 * @return	The number of nodes, root included; handles range from zero to this value excluded.
+	 */
+	int size();
+
+	int getLevel(int node);
+
+	/**
+	 * @return	The handle of the parent, {@link #NONE} for the root.
+	 */
+	int getParent(int node);
+
+	/**
+	 * @return	The handle of the first child, {@link #NONE} if there are no children.
+	 */
+	int getFirstChild(int node);
+
+	/**
+	 * @return	The handle of the next sibling, {@link #NONE} if this is the last child.
+	 */
+	int getNextSibling(int node);
+
+	/**
+	 * @return	The code of the tag in the {@link GedcomTagTable tag table}.
+	 */
+	int getTagCode(int node);
+
+	String getTag(int node);
+
+	String getID(int node);
+
+	String getXRef(int node);
+
+	String getValue(int node);
+
+	/**
+	 * Returns the value joined with the ones of the {@code CONC} and {@code CONT} children (the latter preceded by a newline).
+	 */
+	default String getLogicalValue(final int node){
+		final String value = getValue(node);
+		final String logicalValue = GedcomNode.joinContinuations(this, node, value);
+		return (logicalValue != null? logicalValue: value);
+	}
+
+	/**
+	 * Returns the first child with the given tag.
+	 *
+	 * @param node	The handle of the parent.
+	 * @param tagCode	The code of the tag in the {@link GedcomTagTable tag table}.
+	 * @return	The handle of the child, {@link #NONE} if not found.
+	 */
+	default int getFirstChildWithTag(final int node, final int tagCode){
+		for(int child = getFirstChild(node); child != NONE; child = getNextSibling(child))
+			if(getTagCode(child) == tagCode)
+				return child;
+		return NONE;
+	}
+
+	/**
+	 * Creates the {@link GedcomNode} tree of the given node, that is independent of this cursor.
+	 * <p>NOTE: the parameter objects of the nodes (see {@link GedcomNode#getObject()}) are not preserved.</p>
+	 *
+	 * @param node	The handle of the node.
+	 * @return	The node, with all its descendants.
+	 */
+	default GedcomNode toNode(final int node){
+		final GedcomNode top = GedcomNode.create(this, node);
+		GedcomNode[] parents = {top};
+		int[] handles = {node};
+		int depth = 1;
+		while(depth > 0){
+			depth --;
+			final GedcomNode parent = parents[depth];
+			final int handle = handles[depth];
+			for(int child = getFirstChild(handle); child != NONE; child = getNextSibling(child)){
+				final GedcomNode childNode = GedcomNode.create(this, child);
+				parent.addChild(childNode);
+				if(getFirstChild(child) != NONE){
+					if(depth == handles.length){
+						parents = Arrays.copyOf(parents, depth << 1);
+						handles = Arrays.copyOf(handles, depth << 1);
+					}
+					parents[depth] = childNode;
+					handles[depth] = child;
+					depth ++;
+				}
+			}
+		}
+		return top;
+	}
+
+}
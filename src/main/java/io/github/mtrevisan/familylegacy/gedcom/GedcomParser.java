@@ -24,34 +24,68 @@
  */
 package io.github.mtrevisan.familylegacy.gedcom;
 
-import io.github.mtrevisan.familylegacy.services.JavaHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 
+/**
+ * Reads a GEDCOM file line by line, resolves the grammar line of each of them, and sends the corresponding events to a
+ * {@link GedcomHandler}.
+ * <p>Only the nodes of the elements not yet closed are retained, building a tree is up to the handler (see
+ * {@link GedcomTreeHandler}).</p>
+ */
 class GedcomParser{
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(GedcomParser.class);
 
 	private static final String GEDCOM_EXTENSION = "ged";
 
-	private static final String CUSTOM_TAGS_EXTENSION_KEY = "fl.custom_tags";
+	/** Number of chunks per thread of the pool, in order to balance the load when records have different sizes. */
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+	private static final int TAG_CONCATENATION = GedcomTagTable.intern("CONC");
+	private static final int TAG_CONTINUATION = GedcomTagTable.intern("CONT");
+
 
+	private final GedcomGrammar grammar;
+	private final GedcomHandler handler;
+	/** Whether the values are created only when requested, meaningful only if the whole text is available. */
+	private final boolean lazyValues;
+	/** The validator of the elements, <code>null</code> if they are not validated. */
+	private final GedcomValidator validator;
 
-	private final GedcomNode root = GedcomNode.createEmpty();
+	private final GedcomLineTokenizer tokenizer = new GedcomLineTokenizer();
 	private final Deque<GedcomNode> nodeStack = new ArrayDeque<>();
-	private final Deque<GedcomGrammarLine> grammarLineStack = new ArrayDeque<>();
+	/** The line of the {@link GedcomGrammarTable grammar table} of each open element, indexed by level. */
+	private int[] grammarLineStack = new int[16];
+	private int lineCount;
+	private int previousLevel;
+
+	/** The logical value of the element at each level, reused for all the elements that have {@code CONC}/{@code CONT} lines. */
+	private StringBuilder[] continuations = new StringBuilder[0];
+	/** Whether the element at each level has {@code CONC}/{@code CONT} lines. */
+	private boolean[] continued = new boolean[0];
 
 
 	/**
@@ -60,179 +94,697 @@ class GedcomParser{
 	 * @param gedcomFile	The GEDCOM file.
 	 */
 	public static GedcomNode parse(final String gedcomFile, final GedcomGrammar grammar) throws GedcomParseException{
+		final GedcomTreeHandler treeHandler = new GedcomTreeHandler();
+		parse(gedcomFile, grammar, treeHandler);
+		return treeHandler.getRoot();
+	}
+
+	/**
+	 * Parses the given GEDCOM file.
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static GedcomNode parse(final Path gedcomFile, final GedcomGrammar grammar) throws GedcomParseException{
+		final GedcomTreeHandler treeHandler = new GedcomTreeHandler();
+		parse(gedcomFile, grammar, treeHandler);
+		return treeHandler.getRoot();
+	}
+
+	/**
+	 * Parses the given GEDCOM file into a {@link GedcomCompactTree compact tree}.
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static GedcomCompactTree parseCompact(final String gedcomFile, final GedcomGrammar grammar) throws GedcomParseException{
+		return parseCompact(gedcomFile, grammar, false);
+	}
+
+	/**
+	 * Parses the given GEDCOM file into a {@link GedcomCompactTree compact tree}.
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param offHeap	Whether to store IDs, xrefs, and values outside the heap.
+	 */
+	public static GedcomCompactTree parseCompact(final String gedcomFile, final GedcomGrammar grammar, final boolean offHeap)
+			throws GedcomParseException{
+		final GedcomCompactTreeHandler treeHandler = new GedcomCompactTreeHandler(offHeap);
+		parse(gedcomFile, grammar, treeHandler);
+		return treeHandler.getTree();
+	}
+
+	/**
+	 * Parses the given GEDCOM file into a {@link GedcomCompactTree compact tree}.
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static GedcomCompactTree parseCompact(final Path gedcomFile, final GedcomGrammar grammar) throws GedcomParseException{
+		return parseCompact(gedcomFile, grammar, false);
+	}
+
+	/**
+	 * Parses the given GEDCOM file into a {@link GedcomCompactTree compact tree}.
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param offHeap	Whether to store IDs, xrefs, and values outside the heap.
+	 */
+	public static GedcomCompactTree parseCompact(final Path gedcomFile, final GedcomGrammar grammar, final boolean offHeap)
+			throws GedcomParseException{
+		final GedcomCompactTreeHandler treeHandler = new GedcomCompactTreeHandler(offHeap);
+		parse(gedcomFile, grammar, treeHandler);
+		return treeHandler.getTree();
+	}
+
+	/**
+	 * Parses the given GEDCOM file into {@link GedcomModel typed records}, without building any tree.
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static GedcomModel parseModel(final String gedcomFile, final GedcomGrammar grammar) throws GedcomParseException{
+		final GedcomModelHandler modelHandler = new GedcomModelHandler(grammar);
+		parse(gedcomFile, grammar, modelHandler);
+		return modelHandler.getModel();
+	}
+
+	/**
+	 * Parses the given GEDCOM file into {@link GedcomModel typed records}, without building any tree.
+	 * <p>The values are decoded only for the fields of the records, see {@link #parse(Path, GedcomGrammar, GedcomHandler, boolean)}.</p>
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static GedcomModel parseModel(final Path gedcomFile, final GedcomGrammar grammar) throws GedcomParseException{
+		final GedcomModelHandler modelHandler = new GedcomModelHandler(grammar);
+		parse(gedcomFile, grammar, modelHandler, true);
+		return modelHandler.getModel();
+	}
+
+	/**
+	 * Parses the given GEDCOM file from the file system, decoding the values only when requested.
+	 * <p>The values are lazy only if the file is encoded with an ASCII-compatible charset (like ASCII or UTF-8), see
+	 * {@link #parse(Path, GedcomGrammar, GedcomHandler, boolean)}.<br>
+	 * The parameter objects of the nodes (see {@link GedcomNode#getObject()}) are not filled.</p>
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 */
+	public static GedcomNode parseLazy(final Path gedcomFile, final GedcomGrammar grammar) throws GedcomParseException{
+		final GedcomTreeHandler treeHandler = new GedcomTreeHandler(false);
+		parse(gedcomFile, grammar, treeHandler, true);
+		return treeHandler.getRoot();
+	}
+
+	/**
+	 * Parses the given GEDCOM content, decoding the values only when requested.
+	 * <p>The values are lazy only if the content is encoded with an ASCII-compatible charset (like ASCII or UTF-8), see
+	 * {@link #parse(byte[], GedcomGrammar, GedcomHandler, boolean)}.<br>
+	 * The parameter objects of the nodes (see {@link GedcomNode#getObject()}) are not filled.</p>
+	 *
+	 * @param gedcom	The content of a GEDCOM file.
+	 */
+	public static GedcomNode parseLazy(final byte[] gedcom, final GedcomGrammar grammar) throws GedcomParseException{
+		final GedcomTreeHandler treeHandler = new GedcomTreeHandler(false);
+		parse(gedcom, grammar, treeHandler, true);
+		return treeHandler.getRoot();
+	}
+
+	/**
+	 * Parses the given GEDCOM file sending the events to the given handler, without building any tree.
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param handler	The handler of the events.
+	 */
+	public static void parse(final String gedcomFile, final GedcomGrammar grammar, final GedcomHandler handler)
+			throws GedcomParseException{
 		if(!gedcomFile.endsWith(GEDCOM_EXTENSION))
 			throw GedcomParseException.create("Invalid GEDCOM file: only files with extension {} are supported", GEDCOM_EXTENSION);
 
 		try(final InputStream is = GedcomParser.class.getResourceAsStream(gedcomFile)){
-			final GedcomParser parser = new GedcomParser();
-			return parser.parseGedcom(is, grammar);
+			final GedcomParser parser = new GedcomParser(grammar, handler);
+			parser.parseGedcom(is);
 		}
 		catch(final IOException e){
 			throw GedcomParseException.create("File {} not found!", gedcomFile);
 		}
 	}
 
-	private GedcomNode parseGedcom(final InputStream is, final GedcomGrammar grammar) throws GedcomParseException{
+	/**
+	 * Parses the given GEDCOM file sending the events to the given handler, without building any tree.
+	 * <p>If the file is encoded with an ASCII-compatible charset (like ASCII or UTF-8), it is memory-mapped and the lines are
+	 * tokenized directly on the mapped bytes, otherwise it is read through a {@link BufferedReader}.</p>
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param handler	The handler of the events.
+	 */
+	public static void parse(final Path gedcomFile, final GedcomGrammar grammar, final GedcomHandler handler)
+			throws GedcomParseException{
+		parse(gedcomFile, grammar, handler, false);
+	}
+
+	/**
+	 * Parses the given GEDCOM file sending the events to the given handler, without building any tree.
+	 * <p>If the file is encoded with an ASCII-compatible charset (like ASCII or UTF-8), it is memory-mapped and the lines are
+	 * tokenized directly on the mapped bytes, otherwise it is read through a {@link BufferedReader}.</p>
+	 * <p>With lazy values, the nodes read from a mapped file keep only the position of their value, and decode it on the first call
+	 * to {@link GedcomNode#getValue()}; in this case the {@link GedcomHandler#value(GedcomNode, String) value} event is not sent.</p>
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param handler	The handler of the events.
+	 * @param lazyValues	Whether to decode the values only when requested.
+	 */
+	public static void parse(final Path gedcomFile, final GedcomGrammar grammar, final GedcomHandler handler,
+			final boolean lazyValues) throws GedcomParseException{
+		parse(gedcomFile, grammar, handler, lazyValues, null);
+	}
+
+	/**
+	 * Checks the given GEDCOM file against the grammar, without building any tree.
+	 * <p>The values are decoded only if needed by a check, see {@link #parse(Path, GedcomGrammar, GedcomHandler, boolean, List)}.</p>
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 * @return	The violations of the grammar, in the order they are found.
+	 */
+	public static List<GedcomValidationError> validate(final Path gedcomFile, final GedcomGrammar grammar) throws GedcomParseException{
+		final List<GedcomValidationError> errors = new ArrayList<>();
+		parse(gedcomFile, grammar, new GedcomHandler(){}, true, errors);
+		return errors;
+	}
+
+	/**
+	 * Parses the given GEDCOM file sending the events to the given handler, and checking each element against the grammar, without
+	 * building any tree.
+	 * <p>See {@link #parse(Path, GedcomGrammar, GedcomHandler, boolean)}; the check is done in the same pass, keeping only the state
+	 * of the open elements (see {@link GedcomValidator}).<br>
+	 * The violations are found in the order of the lines, except for a missing mandatory line, that is found when its parent ends and
+	 * refers to the line of the parent.</p>
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param handler	The handler of the events.
+	 * @param lazyValues	Whether to decode the values only when requested.
+	 * @param errors	The list to which to add the violations of the grammar, <code>null</code> not to validate.
+	 */
+	public static void parse(final Path gedcomFile, final GedcomGrammar grammar, final GedcomHandler handler,
+			final boolean lazyValues, final List<GedcomValidationError> errors) throws GedcomParseException{
+		if(!gedcomFile.toString().endsWith(GEDCOM_EXTENSION))
+			throw GedcomParseException.create("Invalid GEDCOM file: only files with extension {} are supported", GEDCOM_EXTENSION);
+
+		try(final FileChannel channel = FileChannel.open(gedcomFile, StandardOpenOption.READ)){
+			final CharSequence text = mapText(channel);
+			if(text != null)
+				new GedcomParser(grammar, handler, lazyValues, errors)
+					.parseGedcom(text);
+			else{
+				channel.position(0);
+				new GedcomParser(grammar, handler, false, errors)
+					.parseGedcom(Channels.newInputStream(channel));
+			}
+		}
+		catch(final UnsupportedEncodingException e){
+			throw GedcomParseException.create("Unsupported charset {} in file {}", e.getMessage(), gedcomFile);
+		}
+		catch(final IOException e){
+			throw GedcomParseException.create("File {} not found!", gedcomFile);
+		}
+	}
+
+	/**
+	 * Parses the given GEDCOM content sending the events to the given handler, without building any tree.
+	 * <p>If the content is encoded with an ASCII-compatible charset (like ASCII or UTF-8), the lines are tokenized directly on the
+	 * bytes, otherwise they are decoded through a {@link BufferedReader}.</p>
+	 * <p>With lazy values, the nodes read directly from the bytes keep only the position of their value, and decode it on the first
+	 * call to {@link GedcomNode#getValue()}; in this case the {@link GedcomHandler#value(GedcomNode, String) value} event is not
+	 * sent.</p>
+	 *
+	 * @param gedcom	The content of a GEDCOM file, it must not be modified while nodes read from it are in use.
+	 * @param handler	The handler of the events.
+	 * @param lazyValues	Whether to decode the values only when requested.
+	 */
+	public static void parse(final byte[] gedcom, final GedcomGrammar grammar, final GedcomHandler handler,
+			final boolean lazyValues) throws GedcomParseException{
+		try{
+			final String charsetName = GedcomHelper.detectCharsetName(new ByteArrayInputStream(gedcom));
+			if(GedcomHelper.isAsciiCompatible(charsetName)){
+				final CharSequence text = new ByteBufferCharSequence(ByteBuffer.wrap(gedcom), GedcomHelper.getCharset(charsetName));
+				new GedcomParser(grammar, handler, lazyValues)
+					.parseGedcom(text);
+			}
+			else
+				new GedcomParser(grammar, handler)
+					.parseGedcom(new ByteArrayInputStream(gedcom));
+		}
+		catch(final IOException e){
+			throw GedcomParseException.create("Cannot detect the charset: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Parses the given GEDCOM file building the records concurrently.
+	 * <p>The file is cut into chunks at the beginning of level-0 lines, each chunk is parsed on the given pool, and the records are
+	 * then collected under the root in their original order. The result is the same of {@link #parse(Path, GedcomGrammar)}.</p>
+	 *
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param pool	The pool on which to parse the chunks.
+	 */
+	public static GedcomNode parse(final Path gedcomFile, final GedcomGrammar grammar, final ForkJoinPool pool)
+			throws GedcomParseException{
+		if(!gedcomFile.toString().endsWith(GEDCOM_EXTENSION))
+			throw GedcomParseException.create("Invalid GEDCOM file: only files with extension {} are supported", GEDCOM_EXTENSION);
+
+		try(final FileChannel channel = FileChannel.open(gedcomFile, StandardOpenOption.READ)){
+			CharSequence text = mapText(channel);
+			if(text == null){
+				//decode the whole file
+				channel.position(0);
+				text = readText(Channels.newInputStream(channel));
+			}
+
+			return parseParallel(text, grammar, pool);
+		}
+		catch(final UnsupportedEncodingException e){
+			throw GedcomParseException.create("Unsupported charset {} in file {}", e.getMessage(), gedcomFile);
+		}
+		catch(final IOException e){
+			throw GedcomParseException.create("File {} not found!", gedcomFile);
+		}
+	}
+
+	/**
+	 * Maps the file in memory, if it is encoded with an ASCII-compatible charset and it is not too big.
+	 *
+	 * @return	The content of the file as a sequence of characters, or <code>null</code> if the file cannot be mapped.
+	 */
+	private static CharSequence mapText(final FileChannel channel) throws IOException{
+		//NOTE: the stream is not closed in order not to close the channel
+		final String charsetName = GedcomHelper.detectCharsetName(new BufferedInputStream(Channels.newInputStream(channel)));
+		final long size = channel.size();
+		if(size > Integer.MAX_VALUE || !GedcomHelper.isAsciiCompatible(charsetName))
+			return null;
+
+		//NOTE: the mapping is released when the buffer is garbage collected
+		final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		return new ByteBufferCharSequence(buffer, GedcomHelper.getCharset(charsetName));
+	}
+
+	private static CharSequence readText(final InputStream is) throws IOException{
+		final StringBuilder sb = new StringBuilder();
+		try(final BufferedReader br = GedcomHelper.getBufferedReader(is)){
+			final char[] buffer = new char[8192];
+			int read;
+			while((read = br.read(buffer)) >= 0)
+				sb.append(buffer, 0, read);
+		}
+		return sb;
+	}
+
+	private static GedcomNode parseParallel(final CharSequence text, final GedcomGrammar grammar, final ForkJoinPool pool)
+			throws GedcomParseException{
+		LOGGER.info("Parsing GEDCOM file...");
+
+		final int start = skipJunk(text, 0);
+		final int[] boundaries = splitAtRecords(text, start, pool.getParallelism() * CHUNKS_PER_THREAD);
+		final int[] firstLines = countLines(text, boundaries);
+
+		final GedcomNode root;
+		try{
+			root = pool.invoke(new ChunkParserTask(text, boundaries, firstLines, 0, boundaries.length - 1, grammar));
+		}
+		catch(final RuntimeException e){
+			//the error of a chunk already reports the line it has in the file
+			for(Throwable cause = e; cause != null; cause = cause.getCause())
+				if(cause instanceof GedcomParseException)
+					throw (GedcomParseException)cause;
+
+			throw GedcomParseException.create("Failed to parse GEDCOM file: {}", e.getMessage());
+		}
+
+		LOGGER.info("Parsing done");
+
+		return root;
+	}
+
+	/**
+	 * Returns the start of the chunks, the last element being the end of the text.
+	 * <p>Each chunk starts with a level-0 line and contains roughly the same amount of characters.</p>
+	 */
+	private static int[] splitAtRecords(final CharSequence text, final int start, final int chunks){
+		final int limit = text.length();
+		final int chunkSize = Math.max((limit - start) / Math.max(chunks, 1), MIN_CHUNK_SIZE);
+
+		final int[] boundaries = new int[(limit - start) / chunkSize + 2];
+		int size = 0;
+		boundaries[size ++] = start;
+		int index = start + chunkSize;
+		while(index < limit){
+			//move to the beginning of the next level-0 line
+			int lineStart = nextLineStart(text, index - 1);
+			while(lineStart < limit && !isRecordStart(text, lineStart))
+				lineStart = nextLineStart(text, lineStart);
+			if(lineStart >= limit)
+				break;
+
+			boundaries[size ++] = lineStart;
+			index = lineStart + chunkSize;
+		}
+		boundaries[size ++] = limit;
+		return Arrays.copyOf(boundaries, size);
+	}
+
+	/**
+	 * Returns the number of lines before each chunk, counted from the first one, so each chunk can report the errors with the line
+	 * they have in the file.
+	 */
+	private static int[] countLines(final CharSequence text, final int[] boundaries){
+		final int[] firstLines = new int[boundaries.length];
+		int lines = 0;
+		for(int i = 1; i < boundaries.length; i ++){
+			//NOTE: a chunk starts at the beginning of a line, so a CR+LF is never split between two chunks
+			for(int index = boundaries[i - 1]; index < boundaries[i]; index ++){
+				final char chr = text.charAt(index);
+				if(chr == '\n' || (chr == '\r' && (index + 1 == boundaries[i] || text.charAt(index + 1) != '\n')))
+					lines ++;
+			}
+			firstLines[i] = lines;
+		}
+		return firstLines;
+	}
+
+	private static int nextLineStart(final CharSequence text, int index){
+		final int limit = text.length();
+		while(index < limit && !isLineTerminator(text.charAt(index)))
+			index ++;
+		while(index < limit && isLineTerminator(text.charAt(index)))
+			index ++;
+		return index;
+	}
+
+	private static boolean isRecordStart(final CharSequence text, int index){
+		final int limit = text.length();
+		char chr;
+		while(index < limit && ((chr = text.charAt(index)) == ' ' || chr == '\t'))
+			index ++;
+		return (index + 1 < limit && text.charAt(index) == '0' && Character.isWhitespace(text.charAt(index + 1))
+			&& !isLineTerminator(text.charAt(index + 1)));
+	}
+
+	private static boolean isLineTerminator(final char chr){
+		return (chr == '\n' || chr == '\r');
+	}
+
+	/** Skips over junk at the beginning of the file. */
+	private static int skipJunk(final CharSequence text, int index){
+		final int limit = text.length();
+		while(index < limit && text.charAt(index) != '0')
+			index ++;
+		return index;
+	}
+
+	private GedcomParser(final GedcomGrammar grammar, final GedcomHandler handler){
+		this(grammar, handler, false);
+	}
+
+	private GedcomParser(final GedcomGrammar grammar, final GedcomHandler handler, final boolean lazyValues){
+		this(grammar, handler, lazyValues, null);
+	}
+
+	private GedcomParser(final GedcomGrammar grammar, final GedcomHandler handler, final boolean lazyValues,
+			final List<GedcomValidationError> errors){
+		this.grammar = grammar;
+		this.handler = handler;
+		this.lazyValues = lazyValues;
+		validator = (errors != null? new GedcomValidator(grammar.getTable(), errors): null);
+	}
+
+	private void parseGedcom(final InputStream is) throws GedcomParseException{
 		LOGGER.info("Parsing GEDCOM file...");
 
-		int lineCount = 0;
 		try(final BufferedReader br = GedcomHelper.getBufferedReader(is)){
 			startDocument();
 
 			String line;
-			int currentLevel;
-			int previousLevel = -1;
 			while((line = br.readLine()) != null){
 				lineCount ++;
 
-				line = line.trim();
 				//skip empty lines
-				if(line.isEmpty())
-					continue;
-
-				//parse the line into five fields: level, ID, tag, xref, value
-				final GedcomNode child = GedcomNode.parse(line);
-				if(child == null)
-					throw GedcomParseException.create("Line {} does not appear to be a standard appending content to the last tag started: {}",
-						lineCount, line);
-
-				currentLevel = child.getLevel();
-				//if `currentLevel` is greater than `previousLevel+1`, ignore it until it comes back down
-				if(currentLevel > previousLevel + 1)
-					throw GedcomParseException.create("Current-level > previous-level + 1 at line {}", lineCount);
-				if(currentLevel < 0)
-					throw GedcomParseException.create("Current-level < 0 at line {}", lineCount);
-				if(child.getTag() == null)
-					throw GedcomParseException.create("Tag not found at line {}", lineCount);
-
-				//close pending levels
-				while(currentLevel <= previousLevel){
-					endElement();
-
-					previousLevel --;
-				}
-
-				startElement(child, grammar);
-
-				previousLevel = currentLevel;
+				if(!line.isBlank())
+					parseLine(line, 0, line.length());
 			}
 
-			endElement();
+			endDocument();
 
 			LOGGER.info("Parsing done");
-
-			return root;
+		}
+		catch(final GedcomParseException e){
+			throw e;
+		}
+		catch(final UnsupportedEncodingException e){
+			throw GedcomParseException.create("Unsupported charset {}", e.getMessage());
 		}
 		catch(final Exception e){
 			throw GedcomParseException.create("Failed to read line {}", lineCount);
 		}
 	}
 
-	private void startDocument(){
-		nodeStack.clear();
-		nodeStack.push(root);
+	private void parseGedcom(final CharSequence text) throws GedcomParseException{
+		LOGGER.info("Parsing GEDCOM file...");
+
+		parseLines(text, skipJunk(text, 0), text.length(), 0);
+
+		LOGGER.info("Parsing done");
 	}
 
-	@SuppressWarnings("ConstantConditions")
-	private void startElement(final GedcomNode child, final GedcomGrammar grammar) throws NoSuchMethodException{
-		final GedcomNode parent = nodeStack.peek();
-		final GedcomGrammarLine parentGrammarLine = (!grammarLineStack.isEmpty()? grammarLineStack.peek(): null);
+	/**
+	 * Parses the lines in the given range.
+	 *
+	 * @param firstLine	The number of lines preceding the range, for the error messages.
+	 */
+	private void parseLines(final CharSequence text, int start, final int limit, final int firstLine) throws GedcomParseException{
+		try{
+			startDocument();
+			lineCount = firstLine;
 
-		parent.addChild(child);
+			while(start < limit){
+				int end = start;
+				while(end < limit && !isLineTerminator(text.charAt(end)))
+					end ++;
 
-		final GedcomGrammarLine grammarLine = (parentGrammarLine != null?
-			parentGrammarLine.getChildBlock().getGrammarLine(child.getTag()):
-			//extract GEDCOM base structure
-			grammar.getGrammarStructures("HEAD").get(0).getGrammarBlock().getGrammarLine("HEAD"));
-		storeParameter(child, parent, grammarLine);
+				lineCount ++;
 
-		setValue(child);
+				//skip empty lines
+				if(!GedcomLineTokenizer.isBlank(text, start, end))
+					parseLine(text, start, end);
 
-		nodeStack.push(child);
-		//NOTE: re-enqueue `parentGrammarLine` if a custom tag is encountered (and therefore `grammarLine` is null)
-		grammarLineStack.push(grammarLine != null? grammarLine: parentGrammarLine);
-	}
-
-	@SuppressWarnings("unchecked")
-	private void storeParameter(final GedcomNode child, final GedcomNode parent, final GedcomGrammarLine grammarLine){
-		final String value = child.getValue();
-		if(value != null){
-			if(grammarLine != null){
-				final Set<String> valueNames = grammarLine.getValueNames();
-				if(!valueNames.isEmpty()){
-					final Object parentObject = JavaHelper.nonNullOrDefault(parent.getObject(), new HashMap<>());
-					for(final String valueName : valueNames)
-						((Map<String, Object>)parentObject).put(valueName.toLowerCase(), value);
-					parent.setObject(parentObject);
-				}
-			}
-			else if(child.getTag().charAt(0) == '_'){
-				final Object parentObject = JavaHelper.nonNullOrDefault(parent.getObject(), new HashMap<>());
-				if(handleUnexpectedTag(child, parentObject))
-					parent.setObject(parentObject);
+				//skip the line terminator (CR, LF, or CR+LF)
+				start = end + 1;
+				if(start < limit && text.charAt(end) == '\r' && text.charAt(start) == '\n')
+					start ++;
 			}
+
+			endDocument();
+		}
+		catch(final GedcomParseException e){
+			throw e;
+		}
+		catch(final Exception e){
+			throw GedcomParseException.create("Failed to read line {}", lineCount);
 		}
 	}
 
-	@SuppressWarnings("unchecked")
-	private boolean handleUnexpectedTag(final GedcomNode child, final Object parentObject){
-		boolean added = false;
-		final String tag = child.getTag();
-		if(parentObject instanceof Map)
-			added = addCustomTags((Map<String, Object>)parentObject, child);
-		else if(parentObject instanceof FieldRef && ((FieldRef) parentObject).getTarget() instanceof Map){
-			final Map<String, Object> extensionContainer = (Map<String, Object>)((FieldRef)parentObject).getTarget();
-			added = addCustomTags(extensionContainer, child);
+	private void parseLine(final CharSequence line, final int start, final int end) throws GedcomParseException{
+		//parse the line into five fields: level, ID, tag, xref, value
+		if(!tokenizer.tokenize(line, start, end))
+			throw GedcomParseException.create("Line {} does not appear to be a standard appending content to the last tag started: {}",
+				lineCount, line.subSequence(start, end));
+		final GedcomNode child = GedcomNode.create(tokenizer, lazyValues);
+
+		final int currentLevel = child.getLevel();
+		//if `currentLevel` is greater than `previousLevel+1`, ignore it until it comes back down
+		if(currentLevel > previousLevel + 1)
+			throw GedcomParseException.create("Current-level > previous-level + 1 at line {}", lineCount);
+		if(currentLevel < 0)
+			throw GedcomParseException.create("Current-level < 0 at line {}", lineCount);
+		if(child.getTag() == null)
+			throw GedcomParseException.create("Tag not found at line {}", lineCount);
+
+		//close pending levels
+		while(currentLevel <= previousLevel){
+			endElement();
+
+			previousLevel --;
 		}
+
+		startElement(child);
+
+		previousLevel = currentLevel;
+	}
+
+	private void startDocument() throws GedcomParseException{
+		nodeStack.clear();
+		lineCount = 0;
+		previousLevel = -1;
+		Arrays.fill(continued, false);
+
+		handler.startDocument();
+	}
+
+	private void endDocument() throws GedcomParseException{
+		//close pending levels
+		while(previousLevel >= 0){
+			endElement();
+
+			previousLevel --;
+		}
+
+		handler.endDocument();
+	}
+
+	private void startElement(final GedcomNode child) throws GedcomParseException{
+		final GedcomGrammarTable table = grammar.getTable();
+		final int level = child.getLevel();
+		final int parentLine = (level > 0? grammarLineStack[level - 1]: GedcomGrammarTable.NONE);
+
+		final int line;
+		if(level == 0)
+			line = table.getRecordLine(child.getTagCode());
+		else if(parentLine != GedcomGrammarTable.NONE && table.getChildState(parentLine) != GedcomGrammarTable.NONE)
+			line = table.getTransition(table.getChildState(parentLine), child.getTagCode(), child.getXRef() != null);
 		else
-			LOGGER.error("Dropped tag {}", tag);
-		return added;
+			line = GedcomGrammarTable.NONE;
+		final GedcomGrammarLine grammarLine = table.getLine(line);
+		if(validator != null)
+			validator.startElement(child, line, lineCount);
+
+		if(child.getLevel() == 0)
+			handler.startRecord(child, grammarLine);
+		else{
+			final int tagCode = child.getTagCode();
+			if(tagCode == TAG_CONCATENATION || tagCode == TAG_CONTINUATION)
+				appendContinuation(nodeStack.peek(), child, tagCode == TAG_CONTINUATION);
+
+			handler.startElement(child, grammarLine);
+		}
+		if(!lazyValues){
+			final String value = child.getValue();
+			if(value != null)
+				handler.value(child, value);
+		}
+
+		nodeStack.push(child);
+		//NOTE: re-enqueue `parentLine` if a custom tag is encountered (and therefore `line` is none)
+		if(level == grammarLineStack.length)
+			grammarLineStack = Arrays.copyOf(grammarLineStack, level << 1);
+		grammarLineStack[level] = (line != GedcomGrammarTable.NONE? line: parentLine);
 	}
 
-	@SuppressWarnings("unchecked")
-	public boolean addCustomTags(final Map<String, Object> map, final GedcomNode value){
-		return ((Collection<Object>)map.computeIfAbsent(CUSTOM_TAGS_EXTENSION_KEY, k -> new ArrayList<GedcomNode>()))
-			.add(value);
+	/**
+	 * Accumulates the value of a {@code CONC} (joined) or {@code CONT} (joined with a newline) line into the logical value of its
+	 * parent, which is materialized once, when the parent ends.
+	 */
+	private void appendContinuation(final GedcomNode parent, final GedcomNode continuation, final boolean newLine){
+		final int level = parent.getLevel();
+		if(level >= continued.length){
+			continuations = Arrays.copyOf(continuations, level + 1);
+			continued = Arrays.copyOf(continued, level + 1);
+		}
+		if(continuations[level] == null)
+			continuations[level] = new StringBuilder();
+
+		final StringBuilder logicalValue = continuations[level];
+		if(!continued[level]){
+			logicalValue.setLength(0);
+			if(parent.getValue() != null)
+				logicalValue.append(parent.getValue());
+			continued[level] = true;
+		}
+		if(newLine)
+			logicalValue.append('\n');
+		if(continuation.getValue() != null)
+			logicalValue.append(continuation.getValue());
+	}
+
+	private void endElement() throws GedcomParseException{
+		final GedcomNode child = nodeStack.pop();
+
+		final int level = child.getLevel();
+		if(level < continued.length && continued[level]){
+			child.setLogicalValue(continuations[level].toString());
+			continued[level] = false;
+		}
+		if(validator != null)
+			validator.endElement(child);
+
+		if(child.getLevel() == 0)
+			handler.endRecord(child);
+		else
+			handler.endElement(child);
 	}
 
-	@SuppressWarnings("unchecked")
 	public static Object getCustomTags(final GedcomNode node){
-		return (node.getObject() instanceof Map? ((Map<String, Object>)node.getObject()).get(CUSTOM_TAGS_EXTENSION_KEY): null);
+		return GedcomTreeHandler.getCustomTags(node);
 	}
 
-	private void setValue(final GedcomNode child) throws NoSuchMethodException{
-		final String value = child.getValue();
-		if(value != null){
-			final Object obj = child.getObject();
-			FieldRef fieldRef = null;
+
+	/** Parses a range of chunks, returning a root holding their records. */
+	private static final class ChunkParserTask extends RecursiveTask<GedcomNode>{
+
+		private static final long serialVersionUID = 2592170929411512375L;
+
+		private final transient CharSequence text;
+		private final int[] boundaries;
+		private final int[] firstLines;
+		private final int from;
+		private final int to;
+		private final transient GedcomGrammar grammar;
+
+
+		ChunkParserTask(final CharSequence text, final int[] boundaries, final int[] firstLines, final int from, final int to,
+				final GedcomGrammar grammar){
+			this.text = text;
+			this.boundaries = boundaries;
+			this.firstLines = firstLines;
+			this.from = from;
+			this.to = to;
+			this.grammar = grammar;
+		}
+
+		@Override
+		protected GedcomNode compute(){
+			if(to - from == 1)
+				return parseChunk();
+
+			final int middle = (from + to) >>> 1;
+			final ChunkParserTask left = new ChunkParserTask(text, boundaries, firstLines, from, middle, grammar);
+			final ChunkParserTask right = new ChunkParserTask(text, boundaries, firstLines, middle, to, grammar);
+			right.fork();
+			final GedcomNode root = left.compute();
+			GedcomTreeHandler.merge(root, right.join());
+			return root;
+		}
+
+		private GedcomNode parseChunk(){
+			//NOTE: the decoding of a byte buffer is not thread-safe, each chunk needs its own sequence
+			final CharSequence chunkText = (text instanceof ByteBufferCharSequence?
+				new ByteBufferCharSequence(((ByteBufferCharSequence)text).getBuffer(), ((ByteBufferCharSequence)text).getCharset()):
+				text);
+
+			final GedcomTreeHandler handler = new GedcomTreeHandler();
 			try{
-				if(obj instanceof GedcomNode)
-					((GedcomNode)obj).appendValue(value);
-				else if(obj instanceof FieldRef){
-					fieldRef = (FieldRef)obj;
-					fieldRef.appendValue(value);
-				}
-				//otherwise do nothing, the `value` is already valued
+				new GedcomParser(grammar, handler)
+					.parseLines(chunkText, boundaries[from], boundaries[to], firstLines[from]);
 			}
-			catch(final Exception e){
-				final String fieldName = (fieldRef != null? fieldRef.getFieldName(): null);
-				if("value".equals(fieldName))
-					//this object doesn't have a value field, so drop it
-					LOGGER.error("Value '{}' not stored for field '{}', parent '{}', and tag {}", value, fieldName,
-						obj.getClass().getSimpleName(), child.getTag());
-				else{
-					//if the method does not exists, it's programmer error
-					LOGGER.error("Setter for value '{}' does not exists for tag {}, field is {}", value, child.getTag(), fieldName);
-
-					throw e;
-				}
+			catch(final GedcomParseException e){
+				throw new ChunkParseException(e);
 			}
+			return handler.getRoot();
 		}
+
 	}
 
-	private void endElement(){
-		nodeStack.pop();
-		grammarLineStack.pop();
+	private static final class ChunkParseException extends RuntimeException{
+
+		private static final long serialVersionUID = -3459370346553934781L;
+
+
+		ChunkParseException(final GedcomParseException cause){
+			super(cause);
+		}
+
 	}
 
 }
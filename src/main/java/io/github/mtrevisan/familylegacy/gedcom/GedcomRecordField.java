@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+
+/**
+ * The fields of the typed records, each bound to the lines of the grammar it is read from.
+ * <p>A line is identified by the name of its structure and the path of tags from the top of the structure, as in
+ * {@code ADDRESS_STRUCTURE:ADDR/CITY}; {@code *} stands for any top line of the structure.<br>
+ * Since the lines of a structure are shared by all the places referencing it, a field is bound to a line wherever it appears: the
+ * handler checks that the object in scope has the right type.</p>
+ */
+enum GedcomRecordField{
+
+	INDIVIDUAL("INDIVIDUAL_RECORD:INDI"),
+	INDIVIDUAL_SEX("INDIVIDUAL_RECORD:INDI/SEX"),
+	INDIVIDUAL_NAME("PERSONAL_NAME_STRUCTURE:NAME"),
+	INDIVIDUAL_CHILD_FAMILY("CHILD_TO_FAMILY_LINK:FAMC"),
+	INDIVIDUAL_SPOUSE_FAMILY("SPOUSE_TO_FAMILY_LINK:FAMS"),
+
+	FAMILY("FAM_RECORD:FAM"),
+	FAMILY_HUSBAND("FAM_RECORD:FAM/HUSB"),
+	FAMILY_WIFE("FAM_RECORD:FAM/WIFE"),
+	FAMILY_CHILD("FAM_RECORD:FAM/CHIL"),
+
+	SOURCE("SOURCE_RECORD:SOUR"),
+	SOURCE_TITLE("SOURCE_RECORD:SOUR/TITL"),
+	SOURCE_AUTHOR("SOURCE_RECORD:SOUR/AUTH"),
+	SOURCE_PUBLICATION("SOURCE_RECORD:SOUR/PUBL"),
+	SOURCE_ABBREVIATION("SOURCE_RECORD:SOUR/ABBR"),
+	SOURCE_TEXT("SOURCE_RECORD:SOUR/TEXT"),
+	SOURCE_REPOSITORY("SOURCE_REPOSITORY_CITATION:REPO"),
+
+	REPOSITORY("REPOSITORY_RECORD:REPO"),
+	REPOSITORY_NAME("REPOSITORY_RECORD:REPO/NAME"),
+
+	EVENT("INDIVIDUAL_EVENT_STRUCTURE:*", "INDIVIDUAL_ATTRIBUTE_STRUCTURE:*", "FAMILY_EVENT_STRUCTURE:*"),
+	EVENT_TYPE("EVENT_DETAIL:TYPE"),
+	EVENT_DATE("EVENT_DETAIL:DATE"),
+	EVENT_PLACE("PLACE_STRUCTURE:PLAC"),
+	//NOTE: in 5.5 the age is part of the event detail
+	EVENT_AGE("INDIVIDUAL_EVENT_DETAIL:AGE", "EVENT_DETAIL:AGE"),
+	EVENT_AGENCY("EVENT_DETAIL:AGNC"),
+	EVENT_CAUSE("EVENT_DETAIL:CAUS"),
+
+	ADDRESS("ADDRESS_STRUCTURE:ADDR"),
+	ADDRESS_LINE1("ADDRESS_STRUCTURE:ADDR/ADR1"),
+	ADDRESS_LINE2("ADDRESS_STRUCTURE:ADDR/ADR2"),
+	ADDRESS_LINE3("ADDRESS_STRUCTURE:ADDR/ADR3"),
+	ADDRESS_CITY("ADDRESS_STRUCTURE:ADDR/CITY"),
+	ADDRESS_STATE("ADDRESS_STRUCTURE:ADDR/STAE"),
+	ADDRESS_POSTAL_CODE("ADDRESS_STRUCTURE:ADDR/POST"),
+	ADDRESS_COUNTRY("ADDRESS_STRUCTURE:ADDR/CTRY");
+
+
+	private static final char STRUCTURE_SEPARATOR = ':';
+	private static final char PATH_SEPARATOR = '/';
+	private static final String ANY_TOP_LINE = "*";
+
+	private static final Map<String, GedcomRecordField> FIELDS = new HashMap<>();
+	static{
+		for(final GedcomRecordField field : values())
+			for(final String path : field.paths)
+				FIELDS.put(path, field);
+	}
+
+
+	private final String[] paths;
+
+
+	GedcomRecordField(final String... paths){
+		this.paths = paths;
+	}
+
+	/**
+	 * Binds the lines of the given grammar to the fields.
+	 *
+	 * @return	The field of each bound line.
+	 */
+	static Map<GedcomGrammarLine, GedcomRecordField> bind(final GedcomGrammar grammar){
+		final Map<GedcomGrammarLine, GedcomRecordField> bindings = new IdentityHashMap<>();
+		for(final GedcomGrammarStructure structure : grammar.getStructures()){
+			final String structureName = structure.getStructureName();
+			for(final GedcomGrammarLine grammarLine : structure.getGrammarBlock().getGrammarLines()){
+				final GedcomRecordField field = FIELDS.get(structureName + STRUCTURE_SEPARATOR + ANY_TOP_LINE);
+				if(field != null && !grammarLine.hasStructureName())
+					bindings.put(grammarLine, field);
+				else
+					bind(grammarLine, structureName + STRUCTURE_SEPARATOR, bindings);
+			}
+		}
+		return bindings;
+	}
+
+	private static void bind(final GedcomGrammarLine grammarLine, final String parentPath,
+			final Map<GedcomGrammarLine, GedcomRecordField> bindings){
+		if(grammarLine.hasStructureName())
+			return;
+
+		for(final String tag : grammarLine.getTagNames()){
+			final String path = parentPath + tag;
+			final GedcomRecordField field = FIELDS.get(path);
+			if(field != null)
+				bindings.put(grammarLine, field);
+
+			if(grammarLine.hasChildBlock())
+				for(final GedcomGrammarLine childLine : grammarLine.getChildBlock().getGrammarLines())
+					bind(childLine, path + PATH_SEPARATOR, bindings);
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.lang.ref.SoftReference;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The records of a given type, with their index by ID.
+ * <p>The records can be already built {@link GedcomNode}s, or nodes of a {@link GedcomNodeCursor} that are materialized only when
+ * requested; the materialized records are held softly, so the garbage collector can reclaim them (they are then materialized
+ * again on the next request).<br>
+ * The index is built on the first lookup, unless the cursor is a {@link GedcomCompactTree} that already has one.</p>
+ * <p>NOTE: the pointers of the materialized records are not linked to their records (see {@link GedcomNode#getReference()}),
+ * navigate the cursor instead (see {@link GedcomCompactTree#getReference(int)}).</p>
+ */
+final class GedcomRecords{
+
+	private final GedcomNodeCursor cursor;
+	private final int[] handles;
+	private final GedcomNode[] records;
+	private final SoftReference<GedcomNode>[] materialized;
+
+	private Map<String, Integer> index;
+
+
+	static GedcomRecords of(final List<GedcomNode> records){
+		return new GedcomRecords(null, null, records.toArray(GedcomNode[]::new));
+	}
+
+	static GedcomRecords of(final GedcomNodeCursor cursor, final int[] handles){
+		return new GedcomRecords(cursor, handles, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private GedcomRecords(final GedcomNodeCursor cursor, final int[] handles, final GedcomNode[] records){
+		this.cursor = cursor;
+		this.handles = handles;
+		this.records = records;
+		materialized = (cursor != null? new SoftReference[handles.length]: null);
+	}
+
+	int size(){
+		return (cursor != null? handles.length: records.length);
+	}
+
+	List<GedcomNode> getAll(){
+		if(cursor == null)
+			return Collections.unmodifiableList(Arrays.asList(records));
+
+		return new AbstractList<>(){
+			@Override
+			public GedcomNode get(final int position){
+				return GedcomRecords.this.get(position);
+			}
+
+			@Override
+			public int size(){
+				return handles.length;
+			}
+		};
+	}
+
+	synchronized GedcomNode get(final String id){
+		if(cursor instanceof GedcomCompactTree && ((GedcomCompactTree)cursor).hasRecordIndex()){
+			//NOTE: the handles of the records are in increasing order
+			final int position = ((GedcomCompactTree)cursor).getRecord(id, handles);
+			return (position >= 0? get(position): null);
+		}
+
+		if(index == null){
+			final int size = size();
+			index = new HashMap<>(size);
+			for(int i = 0; i < size; i ++)
+				index.put((cursor != null? cursor.getID(handles[i]): records[i].getID()), i);
+		}
+
+		final Integer position = index.get(id);
+		return (position != null? get(position): null);
+	}
+
+	private synchronized GedcomNode get(final int position){
+		if(cursor == null)
+			return records[position];
+
+		GedcomNode record = (materialized[position] != null? materialized[position].get(): null);
+		if(record == null){
+			record = cursor.toNode(handles[position]);
+			materialized[position] = new SoftReference<>(record);
+		}
+		return record;
+	}
+
+}
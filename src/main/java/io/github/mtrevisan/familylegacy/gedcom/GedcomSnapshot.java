@@ -0,0 +1,402 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Writes and reads a binary snapshot of a parsed GEDCOM tree, so that a file already parsed can be reloaded without detecting its
+ * charset, creating the grammar, and parsing it again.
+ * <p>The snapshot is bound to its source file by size, last modification time, and SHA-256 hash: if any of them changed, the
+ * snapshot is discarded.</p>
+ * <p>Layout (big-endian):</p>
+ * <ul>
+ *    <li>magic number and version of the format;</li>
+ *    <li>size, last modification time (in milliseconds), and hash of the source file;</li>
+ *    <li>tag dictionary: the number of tags, then each tag as its length followed by its ASCII characters;</li>
+ *    <li>the number of nodes, then the arrays of levels, tags (as positions in the dictionary), parents, first children, next
+ *    siblings, IDs, xrefs, and values (as offsets in the string table);</li>
+ *    <li>record index: the number of records with an ID, then their handles sorted by ID;</li>
+ *    <li>string table: its size, then the strings in UTF-8, as stored by {@link DirectTextSlab}.</li>
+ * </ul>
+ * <p>On load the file is memory-mapped: the arrays are copied with bulk operations, the string table is used in place.</p>
+ */
+public final class GedcomSnapshot{
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GedcomSnapshot.class);
+
+	/** "FLGS" in ASCII. */
+	private static final int MAGIC = 0x464C4753;
+	private static final int VERSION = 1;
+
+	private static final String HASH_ALGORITHM = "SHA-256";
+	private static final int HASH_SIZE = 32;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+
+
+	private GedcomSnapshot(){}
+
+	/**
+	 * Writes the snapshot of the given tree.
+	 * <p>The snapshot is written to a temporary file first, then moved in place.</p>
+	 *
+	 * @param tree	The tree parsed from the GEDCOM file.
+	 * @param gedcomFile	The GEDCOM file.
+	 * @param snapshotFile	The snapshot file.
+	 */
+	public static void write(final GedcomNodeCursor tree, final Path gedcomFile, final Path snapshotFile) throws IOException{
+		final long sourceSize = Files.size(gedcomFile);
+		final long sourceLastModified = Files.getLastModifiedTime(gedcomFile).toMillis();
+		final byte[] sourceHash = hash(gedcomFile);
+
+		final int size = tree.size();
+		final Map<String, Integer> dictionary = new LinkedHashMap<>();
+		final short[] levels = new short[size];
+		final short[] tags = new short[size];
+		final int[] parents = new int[size];
+		final int[] firstChildren = new int[size];
+		final int[] nextSiblings = new int[size];
+		final int[] ids = new int[size];
+		final int[] xrefs = new int[size];
+		final int[] values = new int[size];
+		final DirectTextSlab strings = new DirectTextSlab();
+		for(int node = 0; node < size; node ++){
+			levels[node] = (short)tree.getLevel(node);
+			final String tag = tree.getTag(node);
+			tags[node] = (short)(tag != null? dictionary.computeIfAbsent(tag, k -> dictionary.size()): -1);
+			parents[node] = tree.getParent(node);
+			firstChildren[node] = tree.getFirstChild(node);
+			nextSiblings[node] = tree.getNextSibling(node);
+			ids[node] = strings.store(tree.getID(node));
+			xrefs[node] = strings.store(tree.getXRef(node));
+			values[node] = strings.store(tree.getValue(node));
+		}
+		if(dictionary.size() > Short.MAX_VALUE)
+			throw new IOException("Too many tags for a snapshot: " + dictionary.size());
+
+		final int[] recordIndex = createRecordIndex(tree);
+
+		final Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + TEMPORARY_EXTENSION);
+		try{
+			try(final FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)){
+				final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+				buffer.putInt(MAGIC)
+					.putInt(VERSION)
+					.putLong(sourceSize)
+					.putLong(sourceLastModified)
+					.put(sourceHash);
+
+				buffer.putInt(dictionary.size());
+				for(final String tag : dictionary.keySet()){
+					final byte[] name = tag.getBytes(StandardCharsets.US_ASCII);
+					ensureRemaining(channel, buffer, Short.BYTES + name.length);
+					buffer.putShort((short)name.length)
+						.put(name);
+				}
+
+				ensureRemaining(channel, buffer, Integer.BYTES);
+				buffer.putInt(size);
+				put(channel, buffer, levels);
+				put(channel, buffer, tags);
+				put(channel, buffer, parents);
+				put(channel, buffer, firstChildren);
+				put(channel, buffer, nextSiblings);
+				put(channel, buffer, ids);
+				put(channel, buffer, xrefs);
+				put(channel, buffer, values);
+
+				ensureRemaining(channel, buffer, Integer.BYTES);
+				buffer.putInt(recordIndex.length);
+				put(channel, buffer, recordIndex);
+
+				ensureRemaining(channel, buffer, Integer.BYTES);
+				buffer.putInt(strings.size());
+				flush(channel, buffer);
+				strings.writeTo(channel);
+			}
+			Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(final IOException | RuntimeException e){
+			//do not leave a partial snapshot behind
+			Files.deleteIfExists(temporaryFile);
+			throw e;
+		}
+	}
+
+	/** Returns the handles of the records with an ID, sorted by ID (and by handle if the same ID is shared). */
+	private static int[] createRecordIndex(final GedcomNodeCursor tree){
+		final Map<Integer, String> recordIDs = new HashMap<>();
+		for(int record = tree.getFirstChild(tree.getRoot()); record != GedcomNodeCursor.NONE; record = tree.getNextSibling(record)){
+			final String id = tree.getID(record);
+			if(id != null)
+				recordIDs.put(record, id);
+		}
+		return recordIDs.keySet().stream()
+			.sorted(Comparator.<Integer, String>comparing(recordIDs::get).thenComparingInt(Integer::intValue))
+			.mapToInt(Integer::intValue)
+			.toArray();
+	}
+
+	/**
+	 * Loads the snapshot of the given GEDCOM file.
+	 *
+	 * @param snapshotFile	The snapshot file.
+	 * @param gedcomFile	The GEDCOM file.
+	 * @return	The tree, or <code>null</code> if the snapshot does not exist, was written by another version, or does not match the
+	 * 	GEDCOM file.
+	 */
+	public static GedcomCompactTree load(final Path snapshotFile, final Path gedcomFile) throws IOException{
+		if(!Files.exists(snapshotFile))
+			return null;
+
+		try(final FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)){
+			//NOTE: the mapping is released when the buffer is garbage collected
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION){
+				LOGGER.info("Snapshot {} was written by another version, discarded", snapshotFile);
+				return null;
+			}
+
+			final long sourceSize = buffer.getLong();
+			final long sourceLastModified = buffer.getLong();
+			final byte[] sourceHash = new byte[HASH_SIZE];
+			buffer.get(sourceHash);
+			if(sourceSize != Files.size(gedcomFile) || sourceLastModified != Files.getLastModifiedTime(gedcomFile).toMillis()
+					|| !Arrays.equals(sourceHash, hash(gedcomFile))){
+				LOGGER.info("Snapshot {} does not match {}, discarded", snapshotFile, gedcomFile);
+				return null;
+			}
+
+			return readTree(buffer);
+		}
+		catch(final RuntimeException e){
+			//any inconsistency in the decoding (like a negative count, or a handle out of range) means the snapshot is corrupted
+			LOGGER.warn("Snapshot {} is corrupted, discarded", snapshotFile);
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the tree, checking that every handle and every string offset is in range, so a corrupted snapshot is discarded here
+	 * instead of failing while the tree is navigated.
+	 */
+	private static GedcomCompactTree readTree(final ByteBuffer buffer){
+		final int[] tagCodes = new int[getCount(buffer, Short.BYTES)];
+		final String[] tagNames = new String[tagCodes.length];
+		for(int i = 0; i < tagCodes.length; i ++){
+			final byte[] name = new byte[buffer.getShort()];
+			buffer.get(name);
+			tagNames[i] = new String(name, StandardCharsets.US_ASCII);
+			tagCodes[i] = GedcomTagTable.intern(tagNames[i]);
+		}
+
+		final int size = buffer.getInt();
+		final short[] levels = getShorts(buffer, size);
+		final short[] tags = getShorts(buffer, size);
+		final int[] parents = getInts(buffer, size);
+		final int[] firstChildren = getInts(buffer, size);
+		final int[] nextSiblings = getInts(buffer, size);
+		final int[] ids = getInts(buffer, size);
+		final int[] xrefs = getInts(buffer, size);
+		final int[] values = getInts(buffer, size);
+		final int[] recordIndex = getInts(buffer, buffer.getInt());
+		checkHandles(parents, size, true);
+		checkHandles(firstChildren, size, true);
+		checkHandles(nextSiblings, size, true);
+		checkHandles(recordIndex, size, false);
+
+		final int stringsSize = getCount(buffer, Byte.BYTES);
+		final ByteBuffer strings = buffer.slice();
+		strings.limit(stringsSize);
+		checkStrings(strings, ids);
+		checkStrings(strings, xrefs);
+		checkStrings(strings, values);
+
+		//map the tags of the dictionary to the codes of this run
+		final Map<Integer, String> unknownTags = new HashMap<>(0);
+		for(int node = 0; node < size; node ++){
+			final int tag = tags[node];
+			if(tag < -1 || tag >= tagCodes.length)
+				throw new IndexOutOfBoundsException("Tag out of range: " + tag);
+			final int tagCode = (tag >= 0? tagCodes[tag]: GedcomTagTable.UNKNOWN);
+			if(tagCode == GedcomTagTable.UNKNOWN && tag >= 0)
+				unknownTags.put(node, tagNames[tag]);
+			tags[node] = (short)tagCode;
+		}
+
+		return new GedcomCompactTree(levels, parents, firstChildren, nextSiblings, tags, ids, xrefs, values,
+			new DirectTextSlab(strings), unknownTags, recordIndex);
+	}
+
+	/**
+	 * Reads a count of elements, checking that the buffer can hold them, so a corrupted count does not cause a huge allocation.
+	 *
+	 * @param elementSize	The minimum size of an element, in bytes.
+	 */
+	private static int getCount(final ByteBuffer buffer, final int elementSize){
+		return checkCount(buffer, buffer.getInt(), elementSize);
+	}
+
+	private static int checkCount(final ByteBuffer buffer, final int count, final int elementSize){
+		if(count < 0 || count > buffer.remaining() / elementSize)
+			throw new BufferUnderflowException();
+
+		return count;
+	}
+
+	/**
+	 * Checks that each handle is a node of the tree, or {@link GedcomNodeCursor#NONE} if allowed.
+	 */
+	private static void checkHandles(final int[] handles, final int size, final boolean allowNone){
+		final int min = (allowNone? GedcomNodeCursor.NONE: 0);
+		for(final int handle : handles)
+			if(handle < min || handle >= size)
+				throw new IndexOutOfBoundsException("Handle out of range: " + handle);
+	}
+
+	/**
+	 * Checks that each string (its length, then its bytes, see {@link DirectTextSlab}) lies inside the string table.
+	 */
+	private static void checkStrings(final ByteBuffer strings, final int[] offsets){
+		final int limit = strings.limit();
+		for(final int offset : offsets){
+			if(offset == GedcomNodeCursor.NONE)
+				continue;
+			if(offset < 0 || offset >= limit)
+				throw new IndexOutOfBoundsException("String offset out of range: " + offset);
+
+			int position = offset;
+			int length = 0;
+			int shift = 0;
+			byte value;
+			do{
+				//NOTE: a length takes at most five bytes
+				if(position == limit || shift > 28)
+					throw new BufferUnderflowException();
+
+				value = strings.get(position ++);
+				length |= (value & 0x7F) << shift;
+				shift += 7;
+			}while(value < 0);
+			if(length < 0 || length > limit - position)
+				throw new BufferUnderflowException();
+		}
+	}
+
+	private static short[] getShorts(final ByteBuffer buffer, final int size){
+		checkCount(buffer, size, Short.BYTES);
+		final short[] array = new short[size];
+		buffer.asShortBuffer()
+			.get(array);
+		buffer.position(buffer.position() + size * Short.BYTES);
+		return array;
+	}
+
+	private static int[] getInts(final ByteBuffer buffer, final int size){
+		checkCount(buffer, size, Integer.BYTES);
+		final int[] array = new int[size];
+		buffer.asIntBuffer()
+			.get(array);
+		buffer.position(buffer.position() + size * Integer.BYTES);
+		return array;
+	}
+
+	private static void put(final FileChannel channel, final ByteBuffer buffer, final short[] array) throws IOException{
+		int offset = 0;
+		while(offset < array.length){
+			ensureRemaining(channel, buffer, Short.BYTES);
+			final int length = Math.min(buffer.remaining() / Short.BYTES, array.length - offset);
+			buffer.asShortBuffer()
+				.put(array, offset, length);
+			buffer.position(buffer.position() + length * Short.BYTES);
+			offset += length;
+		}
+	}
+
+	private static void put(final FileChannel channel, final ByteBuffer buffer, final int[] array) throws IOException{
+		int offset = 0;
+		while(offset < array.length){
+			ensureRemaining(channel, buffer, Integer.BYTES);
+			final int length = Math.min(buffer.remaining() / Integer.BYTES, array.length - offset);
+			buffer.asIntBuffer()
+				.put(array, offset, length);
+			buffer.position(buffer.position() + length * Integer.BYTES);
+			offset += length;
+		}
+	}
+
+	private static void ensureRemaining(final FileChannel channel, final ByteBuffer buffer, final int bytes) throws IOException{
+		if(buffer.remaining() < bytes)
+			flush(channel, buffer);
+	}
+
+	private static void flush(final FileChannel channel, final ByteBuffer buffer) throws IOException{
+		buffer.flip();
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	private static byte[] hash(final Path file) throws IOException{
+		try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			final MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+			final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			while(channel.read(buffer) >= 0){
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+			return digest.digest();
+		}
+		catch(final NoSuchAlgorithmException e){
+			//cannot happen, every implementation of the platform supports SHA-256
+			throw new IOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+
+/**
+ * Symbol table of the GEDCOM tags.
+ * <p>Each tag is given a small integer code, so a node stores the code and a shared tag string instead of its own copy, and tags are
+ * compared as integers.<br>
+ * The table is seeded with the tags of the grammars as they are loaded, and it is extended at runtime with the tags not in any
+ * grammar (like the custom {@code _TAG}s) found while parsing.</p>
+ * <p>Lookups are lock-free on a snapshot of the table, published through a volatile field; additions are serialized. The arrays of
+ * the table grow geometrically and are shared among the snapshots: a snapshot reads only the codes below its size, so an addition
+ * appends to them in place and the cost of interning <i>n</i> tags is linear.</p>
+ * <p>The table is static and lives as long as the process: tags are never removed, and it can hold at most {@value #MAX_SIZE}
+ * tags.</p>
+ */
+public final class GedcomTagTable{
+
+	/** Code of a tag not in the table. */
+	public static final int UNKNOWN = -1;
+
+	/** Maximum number of tags, so a code always fits in a {@code short}. */
+	private static final int MAX_SIZE = Short.MAX_VALUE;
+
+
+	private static final int INITIAL_CAPACITY = 32;
+
+
+	private static volatile Snapshot snapshot = new Snapshot(new String[INITIAL_CAPACITY], 0, new int[INITIAL_CAPACITY << 1]);
+
+
+	private GedcomTagTable(){}
+
+	/**
+	 * Returns the code of the given tag, adding it to the table if not already present.
+	 *
+	 * @param tag	The tag (case insensitive, it is stored uppercase).
+	 * @return	The code of the tag, or {@link #UNKNOWN} if the table is full.
+	 */
+	public static int intern(final String tag){
+		final int code = getCode(tag);
+		return (code != UNKNOWN? code: add(tag));
+	}
+
+	private static synchronized int add(final String tag){
+		final Snapshot current = snapshot;
+		final int hash = hash(tag, 0, tag.length());
+		int code = current.find(tag, 0, tag.length(), hash);
+		if(code == UNKNOWN && current.size < MAX_SIZE){
+			final char[] name = new char[tag.length()];
+			for(int i = 0; i < name.length; i ++)
+				name[i] = toUpperCase(tag.charAt(i));
+
+			code = current.size;
+			snapshot = current.add(new String(name), hash);
+		}
+		return code;
+	}
+
+	/**
+	 * @param tag	The tag (case insensitive).
+	 * @return	The code of the tag, or {@link #UNKNOWN} if it is not in the table.
+	 */
+	public static int getCode(final CharSequence tag){
+		return getCode(tag, 0, tag.length());
+	}
+
+	/**
+	 * @param text	The sequence containing the tag (case insensitive).
+	 * @param start	The index of the first character of the tag.
+	 * @param end	The index after the last character of the tag.
+	 * @return	The code of the tag, or {@link #UNKNOWN} if it is not in the table.
+	 */
+	static int getCode(final CharSequence text, final int start, final int end){
+		return snapshot.find(text, start, end, hash(text, start, end));
+	}
+
+	/**
+	 * @param code	The code of a tag.
+	 * @return	The (shared) tag with the given code.
+	 */
+	public static String getTag(final int code){
+		final Snapshot current = snapshot;
+		return current.names[Objects.checkIndex(code, current.size)];
+	}
+
+	/**
+	 * @return	The number of tags in the table, every code is less than this.
+	 */
+	public static int size(){
+		return snapshot.size;
+	}
+
+	private static int hash(final CharSequence text, final int start, final int end){
+		int hash = 0;
+		for(int i = start; i < end; i ++)
+			hash = 31 * hash + toUpperCase(text.charAt(i));
+		return hash ^ (hash >>> 16);
+	}
+
+	private static char toUpperCase(final char chr){
+		return (chr >= 'a' && chr <= 'z'? (char)(chr - 'a' + 'A'): chr);
+	}
+
+
+	/**
+	 * A state of the table, an open-addressing hash set of the codes.
+	 * <p>The arrays can be shared with the following states, which only append to them: the codes not below {@link #size} are
+	 * skipped.</p>
+	 */
+	private static final class Snapshot{
+
+		/** The tags by code, its length is the capacity. */
+		private final String[] names;
+		private final int size;
+		/** Code plus one of the tag in each slot, zero if the slot is empty; its length is a power of two. */
+		private final int[] slots;
+
+
+		Snapshot(final String[] names, final int size, final int[] slots){
+			this.names = names;
+			this.size = size;
+			this.slots = slots;
+		}
+
+		int find(final CharSequence text, final int start, final int end, final int hash){
+			final int mask = slots.length - 1;
+			int slot;
+			for(int i = hash & mask; (slot = slots[i]) != 0; i = (i + 1) & mask){
+				//NOTE: a code added after this snapshot was published is skipped
+				final int code = slot - 1;
+				if(code < size && matches(names[code], text, start, end))
+					return code;
+			}
+			return UNKNOWN;
+		}
+
+		private static boolean matches(final String name, final CharSequence text, final int start, final int end){
+			if(name.length() != end - start)
+				return false;
+
+			for(int i = start; i < end; i ++)
+				if(name.charAt(i - start) != toUpperCase(text.charAt(i)))
+					return false;
+			return true;
+		}
+
+		/**
+		 * Returns the state with the given tag added, with code {@link #size}.
+		 * <p>NOTE: must be called only on the latest state.</p>
+		 */
+		Snapshot add(final String tag, final int hash){
+			final String[] newNames = (size < names.length? names: Arrays.copyOf(names, Math.min(names.length << 1, MAX_SIZE)));
+			newNames[size] = tag;
+
+			//keep the load factor at most 1/2
+			int[] newSlots = slots;
+			if(((size + 1) << 1) > slots.length){
+				newSlots = new int[slots.length << 1];
+				for(int code = 0; code < size; code ++)
+					insert(newSlots, hash(names[code], 0, names[code].length()), code);
+			}
+			insert(newSlots, hash, size);
+			return new Snapshot(newNames, size + 1, newSlots);
+		}
+
+		private static void insert(final int[] slots, final int hash, final int code){
+			final int mask = slots.length - 1;
+			int i = hash & mask;
+			while(slots[i] != 0)
+				i = (i + 1) & mask;
+			slots[i] = code + 1;
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+
+/**
+ * Append-only storage for the strings of a {@link GedcomCompactTree}, each one addressed by the offset returned when stored.
+ */
+interface GedcomTextSlab{
+
+	/**
+	 * Appends the string.
+	 *
+	 * @param text	The string.
+	 * @return	The offset of the string, {@link GedcomNodeCursor#NONE} if the string is <code>null</code>.
+	 */
+	int store(String text);
+
+	/**
+	 * Returns the string stored at the given offset.
+	 *
+	 * @param offset	The offset, as returned by {@link #store(String)}.
+	 * @return	The string, <code>null</code> if the offset is {@link GedcomNodeCursor#NONE}.
+	 */
+	String load(int offset);
+
+	/**
+	 * Releases the unused capacity, once no more strings are stored.
+	 */
+	void trimToSize();
+
+}
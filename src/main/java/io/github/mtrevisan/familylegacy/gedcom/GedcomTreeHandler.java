@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Builds the whole tree of {@link GedcomNode}s under an empty root node.
+ */
+class GedcomTreeHandler implements GedcomHandler{
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GedcomTreeHandler.class);
+
+	private static final String CUSTOM_TAGS_EXTENSION_KEY = "fl.custom_tags";
+
+
+	private final GedcomNode root = GedcomNode.createEmpty();
+	private final Deque<GedcomNode> nodeStack = new ArrayDeque<>();
+	/** Whether to fill the parameter objects of the nodes, that needs the values of all of them. */
+	private final boolean storeParameters;
+
+
+	GedcomTreeHandler(){
+		this(true);
+	}
+
+	/**
+	 * @param storeParameters	Whether to fill the parameter objects of the nodes (see {@link GedcomNode#getObject()}), set to
+	 * 	<code>false</code> in order not to read the values of lazy nodes.
+	 */
+	GedcomTreeHandler(final boolean storeParameters){
+		this.storeParameters = storeParameters;
+	}
+
+	GedcomNode getRoot(){
+		return root;
+	}
+
+	@Override
+	public void startDocument(){
+		nodeStack.clear();
+		nodeStack.push(root);
+	}
+
+	@Override
+	public void startRecord(final GedcomNode record, final GedcomGrammarLine grammarLine) throws GedcomParseException{
+		startElement(record, grammarLine);
+	}
+
+	@Override
+	public void endRecord(final GedcomNode record){
+		endElement(record);
+	}
+
+	@Override
+	@SuppressWarnings("ConstantConditions")
+	public void startElement(final GedcomNode element, final GedcomGrammarLine grammarLine) throws GedcomParseException{
+		final GedcomNode parent = nodeStack.peek();
+
+		parent.addChild(element);
+
+		if(storeParameters)
+			storeParameter(element, parent, grammarLine);
+
+		nodeStack.push(element);
+	}
+
+	@Override
+	public void endElement(final GedcomNode element){
+		nodeStack.pop();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void storeParameter(final GedcomNode child, final GedcomNode parent, final GedcomGrammarLine grammarLine){
+		final String value = child.getValue();
+		if(value != null){
+			if(grammarLine != null){
+				final Set<String> valueNames = grammarLine.getValueNames();
+				if(!valueNames.isEmpty()){
+					final Object parentObject = getOrCreateObject(parent);
+					for(final String valueName : valueNames)
+						((Map<String, Object>)parentObject).put(valueName.toLowerCase(), value);
+					parent.setObject(parentObject);
+				}
+			}
+			else if(child.getTag().charAt(0) == '_'){
+				final Object parentObject = getOrCreateObject(parent);
+				if(handleUnexpectedTag(child, parentObject))
+					parent.setObject(parentObject);
+			}
+		}
+	}
+
+	/** Returns the parameter object of the given node, or a new map if it has none (the map is not set into the node). */
+	private static Object getOrCreateObject(final GedcomNode node){
+		final Object object = node.getObject();
+		return (object != null? object: new HashMap<String, Object>());
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean handleUnexpectedTag(final GedcomNode child, final Object parentObject){
+		boolean added = false;
+		final String tag = child.getTag();
+		if(parentObject instanceof Map)
+			added = addCustomTags((Map<String, Object>)parentObject, child);
+		else if(parentObject instanceof FieldRef && ((FieldRef) parentObject).getTarget() instanceof Map){
+			final Map<String, Object> extensionContainer = (Map<String, Object>)((FieldRef)parentObject).getTarget();
+			added = addCustomTags(extensionContainer, child);
+		}
+		else
+			LOGGER.error("Dropped tag {}", tag);
+		return added;
+	}
+
+	/**
+	 * Moves the records of a partial tree under the given root, after the ones already present.
+	 *
+	 * @param root	The root to which to append the records.
+	 * @param partialRoot	The root of the records to be appended.
+	 */
+	@SuppressWarnings("unchecked")
+	static void merge(final GedcomNode root, final GedcomNode partialRoot){
+		for(final GedcomNode child : partialRoot.getChildren())
+			root.addChild(child);
+
+		if(partialRoot.getObject() instanceof Map){
+			final Map<String, Object> partialObject = (Map<String, Object>)partialRoot.getObject();
+			if(root.getObject() instanceof Map){
+				final Map<String, Object> rootObject = (Map<String, Object>)root.getObject();
+				for(final Map.Entry<String, Object> entry : partialObject.entrySet()){
+					if(CUSTOM_TAGS_EXTENSION_KEY.equals(entry.getKey()) && rootObject.get(CUSTOM_TAGS_EXTENSION_KEY) instanceof Collection)
+						((Collection<Object>)rootObject.get(CUSTOM_TAGS_EXTENSION_KEY)).addAll((Collection<Object>)entry.getValue());
+					else
+						rootObject.put(entry.getKey(), entry.getValue());
+				}
+			}
+			else
+				root.setObject(partialObject);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public boolean addCustomTags(final Map<String, Object> map, final GedcomNode value){
+		return ((Collection<Object>)map.computeIfAbsent(CUSTOM_TAGS_EXTENSION_KEY, k -> new ArrayList<GedcomNode>()))
+			.add(value);
+	}
+
+	@SuppressWarnings("unchecked")
+	public static Object getCustomTags(final GedcomNode node){
+		return (node.getObject() instanceof Map? ((Map<String, Object>)node.getObject()).get(CUSTOM_TAGS_EXTENSION_KEY): null);
+	}
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import io.github.mtrevisan.familylegacy.services.JavaHelper;
+
+
+/**
+ * A violation of the grammar found while validating a GEDCOM file.
+ */
+public final class GedcomValidationError{
+
+	private final int lineNumber;
+	private final String message;
+
+
+	static GedcomValidationError create(final int lineNumber, final String message, final Object... parameters){
+		return new GedcomValidationError(lineNumber, JavaHelper.format(message, parameters));
+	}
+
+	private GedcomValidationError(final int lineNumber, final String message){
+		this.lineNumber = lineNumber;
+		this.message = message;
+	}
+
+	/**
+	 * @return	The number of the line of the GEDCOM file the violation refers to, starting from 1.
+	 */
+	public int getLineNumber(){
+		return lineNumber;
+	}
+
+	public String getMessage(){
+		return message;
+	}
+
+	@Override
+	public String toString(){
+		return "Line " + lineNumber + ": " + message;
+	}
+
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Checks the elements of a GEDCOM file against the {@link GedcomGrammarTable grammar table}, while they are parsed.
+ * <p>For each element it checks that its tag is allowed under its parent, that it does not occur more times than allowed, that its
+ * xref is present if needed, and that its value is one of the possible ones, if the grammar enumerates them; when an element ends, it
+ * checks that all the mandatory lines occurred under it.<br>
+ * Elements under a custom tag (one that starts with an underscore) are not checked, nor are the {@code CONC}/{@code CONT} lines not
+ * declared by the grammar, since the parser joins them to any value anyway.</p>
+ * <p>Only the state of the open elements is kept: an array of occurrence counters per nesting level, reset by stamping it with a new
+ * epoch, so the memory needed does not grow with the size of the file.</p>
+ */
+final class GedcomValidator{
+
+	private static final int TAG_CONCATENATION = GedcomTagTable.intern("CONC");
+	private static final int TAG_CONTINUATION = GedcomTagTable.intern("CONT");
+	private static final int TAG_TRAILER = GedcomTagTable.intern("TRLR");
+	/** The xref name of a line that accepts a missing xref, as in {@code [@<XREF:REPO>@|<NULL>]}. */
+	private static final String NULL_XREF = "NULL";
+	private static final char ESCAPE_START = '#';
+
+	private static final int INITIAL_LEVELS = 16;
+
+
+	private final GedcomGrammarTable table;
+	private final List<GedcomValidationError> errors;
+
+	/** The grammar line of the open element at each level, {@link GedcomGrammarTable#NONE} if it is not checked. */
+	private int[] lines = new int[INITIAL_LEVELS];
+	private int[] tagCodes = new int[INITIAL_LEVELS];
+	private int[] lineNumbers = new int[INITIAL_LEVELS];
+	/** The epoch of the open element at each level. */
+	private int[] epochs = new int[INITIAL_LEVELS];
+	/** The occurrences of each grammar line under the open element at each level, valid only if stamped with its epoch. */
+	private int[][] occurrences = new int[INITIAL_LEVELS][];
+	private int[][] stamps = new int[INITIAL_LEVELS][];
+	private int epoch;
+
+
+	/**
+	 * @param table	The grammar table to validate against.
+	 * @param errors	The list to which to add the violations found.
+	 */
+	GedcomValidator(final GedcomGrammarTable table, final List<GedcomValidationError> errors){
+		this.table = table;
+		this.errors = errors;
+	}
+
+	/**
+	 * Checks an element that starts.
+	 *
+	 * @param element	The node of the element.
+	 * @param line	The grammar line of the element, as resolved by the parser from the grammar line of its parent,
+	 * 	{@link GedcomGrammarTable#NONE} if none.
+	 * @param lineNumber	The number of the line of the element in the file.
+	 */
+	void startElement(final GedcomNode element, int line, final int lineNumber){
+		final int level = element.getLevel();
+		ensureCapacity(level);
+
+		final int tagCode = element.getTagCode();
+		if(level == 0)
+			line = checkRecord(element, line, lineNumber);
+		else if(lines[level - 1] == GedcomGrammarTable.NONE)
+			//the parent is not checked
+			line = GedcomGrammarTable.NONE;
+		else{
+			line = countOccurrence(element, line, lineNumber);
+			if(line != GedcomGrammarTable.NONE)
+				checkLine(element, table.getLine(line), lineNumber);
+		}
+
+		lines[level] = line;
+		tagCodes[level] = tagCode;
+		lineNumbers[level] = lineNumber;
+		epochs[level] = ++ epoch;
+	}
+
+	private int checkRecord(final GedcomNode record, final int line, final int lineNumber){
+		final int tagCode = record.getTagCode();
+		if(line == GedcomGrammarTable.NONE){
+			if(!isCustom(record) && tagCode != TAG_TRAILER)
+				errors.add(GedcomValidationError.create(lineNumber, "Unknown record {}", record.getTag()));
+		}
+		else if(table.getLine(line).hasTagAfterXRef() && record.getID() == null)
+			errors.add(GedcomValidationError.create(lineNumber, "Missing ID of record {}", record.getTag()));
+		return line;
+	}
+
+	/**
+	 * Counts the occurrence of the given element under its parent.
+	 *
+	 * @return	The grammar line of the element, {@link GedcomGrammarTable#NONE} if the element is not allowed.
+	 */
+	private int countOccurrence(final GedcomNode element, final int line, final int lineNumber){
+		final int parentLevel = element.getLevel() - 1;
+		final int tagCode = element.getTagCode();
+		if(line == GedcomGrammarTable.NONE){
+			if(!isCustom(element) && tagCode != TAG_CONCATENATION && tagCode != TAG_CONTINUATION)
+				errors.add(GedcomValidationError.create(lineNumber, "Tag {} is not allowed under {}", element.getTag(),
+					GedcomTagTable.getTag(tagCodes[parentLevel])));
+			return GedcomGrammarTable.NONE;
+		}
+
+		final int state = table.getChildState(lines[parentLevel]);
+		//NOTE: same lookup of the parser
+		final boolean hasXRef = (element.getXRef() != null);
+		final int count = increment(parentLevel, line);
+		final int referenceLine = table.getReferenceLine(state, tagCode, hasXRef);
+		if(referenceLine != GedcomGrammarTable.NONE)
+			increment(parentLevel, referenceLine);
+		final int max = table.getTransitionMax(state, tagCode, hasXRef);
+		if(max >= 0 && count == max + 1)
+			errors.add(GedcomValidationError.create(lineNumber, "Too many {} under {}, at most {} allowed", element.getTag(),
+				GedcomTagTable.getTag(tagCodes[parentLevel]), max));
+		return line;
+	}
+
+	/** Increments the occurrences of the given grammar line under the open element at the given level. */
+	private int increment(final int level, final int line){
+		final int[] levelOccurrences = occurrences(level);
+		final int[] levelStamps = stamps[level];
+		if(levelStamps[line] != epochs[level]){
+			levelStamps[line] = epochs[level];
+			levelOccurrences[line] = 0;
+		}
+		return ++ levelOccurrences[line];
+	}
+
+	private void checkLine(final GedcomNode element, final GedcomGrammarLine grammarLine, final int lineNumber){
+		final String xref = element.getXRef();
+		//NOTE: an escape sequence (as in `@#DJULIAN@`) is read as an xref
+		final boolean hasXRef = (xref != null && xref.charAt(0) != ESCAPE_START);
+		if(grammarLine.hasXRefNames()){
+			if(!hasXRef && !grammarLine.getXRefNames().contains(NULL_XREF))
+				errors.add(GedcomValidationError.create(lineNumber, "Missing xref of {}", element.getTag()));
+		}
+		else if(hasXRef)
+			errors.add(GedcomValidationError.create(lineNumber, "Unexpected xref {} of {}", element.getXRef(), element.getTag()));
+
+		final Set<String> valuePossibilities = grammarLine.getValuePossibilities();
+		if(!valuePossibilities.isEmpty() && !valuePossibilities.contains(element.getValue()))
+			errors.add(GedcomValidationError.create(lineNumber, "Value '{}' of {} is not one of {}", element.getValue(),
+				element.getTag(), valuePossibilities));
+	}
+
+	/**
+	 * Checks an element that ends, with all its sub-elements.
+	 *
+	 * @param element	The node of the element.
+	 */
+	void endElement(final GedcomNode element){
+		final int level = element.getLevel();
+		final int line = lines[level];
+		final int state = (line != GedcomGrammarTable.NONE? table.getChildState(line): GedcomGrammarTable.NONE);
+		if(state == GedcomGrammarTable.NONE)
+			return;
+
+		final int[] levelOccurrences = occurrences[level];
+		final int[] levelStamps = stamps[level];
+		for(final int mandatoryLine : table.getMandatoryLines(state)){
+			final int count = (levelStamps != null && levelStamps[mandatoryLine] == epochs[level]? levelOccurrences[mandatoryLine]: 0);
+			final int min = table.getMin(mandatoryLine);
+			if(count < min)
+				errors.add(GedcomValidationError.create(lineNumbers[level], "Missing {} under {}, at least {} expected",
+					table.getLine(mandatoryLine).getId(), element.getTag(), min));
+		}
+	}
+
+	private static boolean isCustom(final GedcomNode node){
+		return (node.getTag().charAt(0) == '_');
+	}
+
+	private int[] occurrences(final int level){
+		if(occurrences[level] == null){
+			occurrences[level] = new int[table.getLineCount()];
+			stamps[level] = new int[table.getLineCount()];
+		}
+		return occurrences[level];
+	}
+
+	private void ensureCapacity(final int level){
+		if(level < lines.length)
+			return;
+
+		final int size = Math.max(level + 1, lines.length << 1);
+		lines = Arrays.copyOf(lines, size);
+		tagCodes = Arrays.copyOf(tagCodes, size);
+		lineNumbers = Arrays.copyOf(lineNumbers, size);
+		epochs = Arrays.copyOf(epochs, size);
+		occurrences = Arrays.copyOf(occurrences, size);
+		stamps = Arrays.copyOf(stamps, size);
+	}
+
+}
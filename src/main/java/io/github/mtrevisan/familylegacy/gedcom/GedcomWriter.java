@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+
+/**
+ * Writes GEDCOM lines straight to a stream, encoding them with the given charset.
+ * <p>Only the line being written is kept in memory: the bytes are written to the stream as soon as the buffer fills up.<br>
+ * Characters that cannot be encoded are replaced with the replacement of the encoder (usually {@code ?}).</p>
+ * <p>The writer is also a {@link GedcomHandler}, so a file can be copied (for example into another charset) while it is parsed,
+ * without building its tree.</p>
+ * <p>An instance is not thread-safe.</p>
+ */
+public final class GedcomWriter implements GedcomHandler, Closeable, Flushable{
+
+	private static final String LINE_SEPARATOR = "\r\n";
+	private static final String INDENTATION = "  ";
+
+	private static final int BUFFER_SIZE = 8192;
+
+
+	private final OutputStream os;
+	private final CharsetEncoder encoder;
+	private final boolean indent;
+
+	private final StringBuilder line = new StringBuilder();
+	private char[] chars = new char[256];
+	private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+	private final Deque<GedcomNode> nodeStack = new ArrayDeque<>();
+
+
+	public GedcomWriter(final OutputStream os, final Charset charset){
+		this(os, charset, false);
+	}
+
+	/**
+	 * @param os	The stream to write to, closed along with the writer.
+	 * @param charset	The charset used to encode the lines.
+	 * @param indent	Whether to indent each line according to its level.
+	 */
+	public GedcomWriter(final OutputStream os, final Charset charset, final boolean indent){
+		this.os = os;
+		encoder = charset.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.indent = indent;
+	}
+
+	/**
+	 * Writes the given node and all its descendants.
+	 *
+	 * @param node	The node to be written, usually a record.
+	 */
+	public void write(final GedcomNode node) throws IOException{
+		nodeStack.push(node);
+		while(!nodeStack.isEmpty()){
+			final GedcomNode child = nodeStack.pop();
+			final List<GedcomNode> children = child.getChildren();
+			for(int i = children.size() - 1; i >= 0; i --)
+				nodeStack.push(children.get(i));
+
+			writeLine(child);
+		}
+	}
+
+	/**
+	 * Writes the given node alone, without its children.
+	 *
+	 * @param node	The node to be written.
+	 */
+	public void writeLine(final GedcomNode node) throws IOException{
+		line.setLength(0);
+		if(indent)
+			line.append(StringUtils.repeat(INDENTATION, node.getLevel()));
+		line.append(node.getLevel());
+		if(node.getLevel() == 0){
+			appendID(node.getID());
+			line.append(' ').append(node.getTag());
+		}
+		else{
+			line.append(' ').append(node.getTag());
+			appendID(node.getXRef());
+			appendID(node.getID());
+		}
+		if(node.getValue() != null)
+			line.append(' ').append(node.getValue());
+		line.append(LINE_SEPARATOR);
+
+		final int length = line.length();
+		if(chars.length < length)
+			chars = new char[Math.max(length, chars.length << 1)];
+		line.getChars(0, length, chars, 0);
+		encode(CharBuffer.wrap(chars, 0, length), false);
+	}
+
+	private void appendID(final String id){
+		if(id != null)
+			line.append(' ').append('@').append(id).append('@');
+	}
+
+	private void encode(final CharBuffer in, final boolean endOfInput) throws IOException{
+		while(true){
+			final CoderResult result = encoder.encode(in, bytes, endOfInput);
+			if(result.isUnderflow())
+				break;
+
+			if(result.isOverflow())
+				drain();
+			else
+				result.throwException();
+		}
+	}
+
+	private void drain() throws IOException{
+		os.write(bytes.array(), 0, bytes.position());
+		bytes.clear();
+	}
+
+	@Override
+	public void startRecord(final GedcomNode record, final GedcomGrammarLine grammarLine) throws GedcomParseException{
+		startElement(record, grammarLine);
+	}
+
+	@Override
+	public void startElement(final GedcomNode element, final GedcomGrammarLine grammarLine) throws GedcomParseException{
+		try{
+			writeLine(element);
+		}
+		catch(final IOException e){
+			throw GedcomParseException.create("Cannot write line: {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public void endDocument() throws GedcomParseException{
+		try{
+			flush();
+		}
+		catch(final IOException e){
+			throw GedcomParseException.create("Cannot write: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes to the stream.
+	 * <p>NOTE: some encoders (like ANSEL, that must know whether a combining mark follows) keep the last character until the writer
+	 * is closed.</p>
+	 */
+	@Override
+	public void flush() throws IOException{
+		drain();
+		os.flush();
+	}
+
+	@Override
+	public void close() throws IOException{
+		encode(CharBuffer.allocate(0), true);
+		while(encoder.flush(bytes).isOverflow())
+			drain();
+		drain();
+		os.close();
+	}
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The outcome of the resolution of the cross-references of a GEDCOM file (see {@link GedcomXRefResolver}).
+ */
+public final class GedcomXRefReport{
+
+	/**
+	 * A pointer that could not be resolved.
+	 */
+	public static final class Reference{
+
+		private final String recordID;
+		private final String tag;
+		private final String xref;
+		private final String targetTag;
+
+
+		Reference(final String recordID, final String tag, final String xref, final String targetTag){
+			this.recordID = recordID;
+			this.tag = tag;
+			this.xref = xref;
+			this.targetTag = targetTag;
+		}
+
+		/**
+		 * @return	The ID of the record containing the pointer, <code>null</code> if it has none.
+		 */
+		public String getRecordID(){
+			return recordID;
+		}
+
+		public String getTag(){
+			return tag;
+		}
+
+		public String getXRef(){
+			return xref;
+		}
+
+		/**
+		 * @return	The tag of the record pointed to, <code>null</code> if there is no such record.
+		 */
+		public String getTargetTag(){
+			return targetTag;
+		}
+
+		@Override
+		public String toString(){
+			return (recordID != null? "@" + recordID + "@ ": "") + tag + " @" + xref + "@"
+				+ (targetTag != null? " -> " + targetTag: "");
+		}
+
+	}
+
+
+	private final List<String> duplicateIDs = new ArrayList<>(0);
+	private final List<Reference> danglingReferences = new ArrayList<>(0);
+	private final List<Reference> mismatchedReferences = new ArrayList<>(0);
+	private int resolvedReferences;
+
+
+	GedcomXRefReport(){}
+
+	void addDuplicateID(final String id){
+		duplicateIDs.add(id);
+	}
+
+	void addDanglingReference(final Reference reference){
+		danglingReferences.add(reference);
+	}
+
+	void addMismatchedReference(final Reference reference){
+		mismatchedReferences.add(reference);
+	}
+
+	void addResolvedReference(){
+		resolvedReferences ++;
+	}
+
+	/**
+	 * Whether all the pointers were resolved to a record of the expected type, and all the IDs are unique.
+	 */
+	public boolean isClean(){
+		return (duplicateIDs.isEmpty() && danglingReferences.isEmpty() && mismatchedReferences.isEmpty());
+	}
+
+	/**
+	 * @return	The IDs shared by more than one record, the pointers to them are resolved to the last one.
+	 */
+	public List<String> getDuplicateIDs(){
+		return Collections.unmodifiableList(duplicateIDs);
+	}
+
+	/**
+	 * @return	The pointers to a record that does not exist.
+	 */
+	public List<Reference> getDanglingReferences(){
+		return Collections.unmodifiableList(danglingReferences);
+	}
+
+	/**
+	 * @return	The pointers to a record of a type not allowed by the grammar, they are left unresolved.
+	 */
+	public List<Reference> getMismatchedReferences(){
+		return Collections.unmodifiableList(mismatchedReferences);
+	}
+
+	public int getResolvedReferences(){
+		return resolvedReferences;
+	}
+
+	@Override
+	public String toString(){
+		return "resolved: " + resolvedReferences + ", duplicate IDs: " + duplicateIDs.size() + ", dangling: " + danglingReferences.size()
+			+ ", mismatched: " + mismatchedReferences.size();
+	}
+
+}
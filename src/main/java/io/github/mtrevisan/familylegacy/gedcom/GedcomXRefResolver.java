@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Resolves, once and for all, the pointers of a GEDCOM file (as in {@code 1 FAMC @F1@}) to the records they point to.
+ * <p>The records are indexed by ID in a single map, then each pointer is linked to its record (see {@link GedcomNode#getReference()}
+ * and {@link GedcomCompactTree#getReference(int)}), so a traversal needs no lookup by ID.<br>
+ * The type of the record pointed to is checked against the ones the grammar allows for the tag of the pointer (the
+ * {@code @<XREF:TAG>@} fields); tags the grammar does not know can point to any record.<br>
+ * In the same pass, the resolved pointers are indexed by the record they point to (see {@link GedcomBacklinks}).</p>
+ */
+final class GedcomXRefResolver{
+
+	private static final String XREF_PREFIX = "XREF:";
+
+
+	/** For the code of each tag of a pointer, the codes of the tags of the records it can point to. */
+	private final Map<Integer, Set<Integer>> targetTagCodes = new HashMap<>();
+
+	private GedcomBacklinks backlinks;
+
+
+	GedcomXRefResolver(final GedcomGrammar grammar){
+		for(final GedcomGrammarStructure structure : grammar.getStructures())
+			for(final GedcomGrammarLine grammarLine : structure.getGrammarBlock().getGrammarLines())
+				collectTargets(grammarLine);
+	}
+
+	private void collectTargets(final GedcomGrammarLine grammarLine){
+		if(grammarLine.hasTagBeforeXRef())
+			for(final String xrefName : grammarLine.getXRefNames())
+				if(xrefName.startsWith(XREF_PREFIX)){
+					final int targetTagCode = GedcomTagTable.intern(xrefName.substring(XREF_PREFIX.length()));
+					for(final String tag : grammarLine.getTagNames())
+						targetTagCodes.computeIfAbsent(GedcomTagTable.intern(tag), k -> new HashSet<>(1))
+							.add(targetTagCode);
+				}
+
+		if(grammarLine.hasChildBlock())
+			for(final GedcomGrammarLine childLine : grammarLine.getChildBlock().getGrammarLines())
+				collectTargets(childLine);
+	}
+
+	/**
+	 * Links each pointer of the given tree to the record it points to.
+	 *
+	 * @param root	The root of the tree, whose children are the records.
+	 * @return	The pointers that cannot be resolved, and the duplicated IDs.
+	 */
+	GedcomXRefReport resolve(final GedcomNode root){
+		final GedcomXRefReport report = new GedcomXRefReport();
+
+		final List<GedcomNode> records = root.getChildren();
+		final String[] recordIDs = new String[records.size()];
+		for(int i = 0; i < recordIDs.length; i ++)
+			recordIDs[i] = records.get(i).getID();
+		final Map<String, Integer> index = createIndex(recordIDs, report);
+		backlinks = new GedcomBacklinks(index, recordIDs, false);
+
+		final Deque<GedcomNode> nodeStack = new ArrayDeque<>();
+		for(int owner = 0; owner < recordIDs.length; owner ++){
+			nodeStack.push(records.get(owner));
+			while(!nodeStack.isEmpty()){
+				final GedcomNode node = nodeStack.pop();
+				final List<GedcomNode> children = node.getChildren();
+				for(int i = children.size() - 1; i >= 0; i --)
+					nodeStack.push(children.get(i));
+
+				final String xref = node.getXRef();
+				if(!isPointer(xref))
+					continue;
+
+				final Integer position = index.get(xref);
+				final GedcomNode target = (position != null? records.get(position): null);
+				if(target == null)
+					report.addDanglingReference(new GedcomXRefReport.Reference(recordIDs[owner], node.getTag(), xref, null));
+				else if(!isAllowed(node.getTagCode(), target.getTagCode()))
+					report.addMismatchedReference(new GedcomXRefReport.Reference(recordIDs[owner], node.getTag(), xref,
+						target.getTag()));
+				else{
+					node.setReference(target);
+					backlinks.add(position, owner, node);
+					report.addResolvedReference();
+				}
+			}
+		}
+		backlinks.build();
+		return report;
+	}
+
+	/**
+	 * Links each pointer of the given tree to the handle of the record it points to.
+	 *
+	 * @param tree	The tree.
+	 * @return	The pointers that cannot be resolved, and the duplicated IDs.
+	 */
+	GedcomXRefReport resolve(final GedcomCompactTree tree){
+		final GedcomXRefReport report = new GedcomXRefReport();
+
+		int[] records = new int[0];
+		int size = 0;
+		for(int record = tree.getFirstChild(tree.getRoot()); record != GedcomNodeCursor.NONE; record = tree.getNextSibling(record)){
+			if(size == records.length)
+				records = Arrays.copyOf(records, Math.max(size << 1, 16));
+			records[size ++] = record;
+		}
+		final String[] recordIDs = new String[size];
+		for(int i = 0; i < size; i ++)
+			recordIDs[i] = tree.getID(records[i]);
+		final Map<String, Integer> index = createIndex(recordIDs, report);
+		backlinks = new GedcomBacklinks(index, recordIDs, true);
+
+		final int[] references = new int[tree.size()];
+		Arrays.fill(references, GedcomNodeCursor.NONE);
+		for(int owner = 0; owner < size; owner ++){
+			final int record = records[owner];
+			//visit the lines of the record in pre-order, without a stack
+			int node = record;
+			while(node != GedcomNodeCursor.NONE){
+				resolve(tree, node, owner, records, recordIDs, index, references, report);
+
+				int next = tree.getFirstChild(node);
+				while(next == GedcomNodeCursor.NONE && node != record){
+					next = tree.getNextSibling(node);
+					if(next == GedcomNodeCursor.NONE)
+						node = tree.getParent(node);
+				}
+				node = next;
+			}
+		}
+		tree.setReferences(references);
+		backlinks.build();
+		return report;
+	}
+
+	private void resolve(final GedcomCompactTree tree, final int node, final int owner, final int[] records, final String[] recordIDs,
+			final Map<String, Integer> index, final int[] references, final GedcomXRefReport report){
+		if(!tree.hasXRef(node))
+			return;
+
+		final String xref = tree.getXRef(node);
+		if(!isPointer(xref))
+			return;
+
+		final Integer position = index.get(xref);
+		if(position == null)
+			report.addDanglingReference(new GedcomXRefReport.Reference(recordIDs[owner], tree.getTag(node), xref, null));
+		else if(!isAllowed(tree.getTagCode(node), tree.getTagCode(records[position])))
+			report.addMismatchedReference(new GedcomXRefReport.Reference(recordIDs[owner], tree.getTag(node), xref,
+				tree.getTag(records[position])));
+		else{
+			references[node] = records[position];
+			backlinks.add(position, owner, node);
+			report.addResolvedReference();
+		}
+	}
+
+	/**
+	 * Returns the position of each record by ID, the last one if more records share the same ID.
+	 */
+	private static Map<String, Integer> createIndex(final String[] recordIDs, final GedcomXRefReport report){
+		final Map<String, Integer> index = new HashMap<>(recordIDs.length);
+		for(int i = 0; i < recordIDs.length; i ++)
+			if(recordIDs[i] != null && index.put(recordIDs[i], i) != null)
+				report.addDuplicateID(recordIDs[i]);
+		return index;
+	}
+
+	/**
+	 * @return	The pointers to each record, as found by the last resolution.
+	 */
+	GedcomBacklinks getBacklinks(){
+		return backlinks;
+	}
+
+	/** Whether the given xref points to a record ({@code @#D...@} is an escape, as in dates). */
+	private static boolean isPointer(final String xref){
+		return (xref != null && xref.charAt(0) != '#');
+	}
+
+	private boolean isAllowed(final int tagCode, final int targetTagCode){
+		final Set<Integer> allowedTagCodes = targetTagCodes.get(tagCode);
+		return (allowedTagCodes == null || allowedTagCodes.contains(targetTagCode));
+	}
+
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.Arrays;
+
+
+/**
+ * Stores the strings in a single character array on the heap.
+ * <p>Each string is preceded by its length, in one character if less than 2<sup>15</sup>, in two otherwise.</p>
+ */
+final class HeapTextSlab implements GedcomTextSlab{
+
+	private static final int LONG_LENGTH_FLAG = 0x8000;
+
+
+	private char[] slab;
+	private int size;
+
+
+	HeapTextSlab(final int capacity){
+		slab = new char[capacity];
+	}
+
+	@Override
+	public int store(final String text){
+		if(text == null)
+			return GedcomNodeCursor.NONE;
+
+		final int length = text.length();
+		final int needed = size + 2 + length;
+		if(needed > slab.length)
+			slab = Arrays.copyOf(slab, Math.max(needed, slab.length << 1));
+
+		final int offset = size;
+		if(length < LONG_LENGTH_FLAG)
+			slab[size ++] = (char)length;
+		else{
+			slab[size ++] = (char)(LONG_LENGTH_FLAG | (length >>> 16));
+			slab[size ++] = (char)length;
+		}
+		text.getChars(0, length, slab, size);
+		size += length;
+		return offset;
+	}
+
+	@Override
+	public String load(final int offset){
+		if(offset == GedcomNodeCursor.NONE)
+			return null;
+
+		int start = offset;
+		int length = slab[start ++];
+		if((length & LONG_LENGTH_FLAG) != 0)
+			length = ((length & ~LONG_LENGTH_FLAG) << 16) | slab[start ++];
+		return new String(slab, start, length);
+	}
+
+	@Override
+	public void trimToSize(){
+		slab = Arrays.copyOf(slab, size);
+	}
+
+}
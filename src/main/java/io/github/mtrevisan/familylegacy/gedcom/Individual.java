@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.List;
+
+
+/**
+ * An individual record ({@code INDIVIDUAL_RECORD} of the grammar).
+ */
+public final class Individual extends TypedRecord{
+
+	private static final int TAG_BIRTH = GedcomTagTable.intern("BIRT");
+	private static final int TAG_DEATH = GedcomTagTable.intern("DEAT");
+
+
+	private String sex;
+	private List<String> names = emptyList();
+	private List<Event> events = emptyList();
+	private List<String> childFamilyIDs = emptyList();
+	private List<String> spouseFamilyIDs = emptyList();
+
+
+	Individual(final String id){
+		super(id);
+	}
+
+	/**
+	 * @return	The sex value ({@code M}, {@code F}, {@code U}), <code>null</code> if not given.
+	 */
+	public String getSex(){
+		return sex;
+	}
+
+	void setSex(final String sex){
+		this.sex = sex;
+	}
+
+	/**
+	 * @return	The personal names, in the {@code Given /Surname/} form of the file.
+	 */
+	public List<String> getNames(){
+		return names;
+	}
+
+	/**
+	 * @return	The first personal name, <code>null</code> if none.
+	 */
+	public String getName(){
+		return (!names.isEmpty()? names.get(0): null);
+	}
+
+	void addName(final String name){
+		names = add(names, name);
+	}
+
+	/**
+	 * @return	The events and the attributes of this individual.
+	 */
+	public List<Event> getEvents(){
+		return events;
+	}
+
+	void addEvent(final Event event){
+		events = add(events, event);
+	}
+
+	/**
+	 * @return	The first birth event, <code>null</code> if none.
+	 */
+	public Event getBirth(){
+		return Event.findFirst(events, TAG_BIRTH);
+	}
+
+	/**
+	 * @return	The first death event, <code>null</code> if none.
+	 */
+	public Event getDeath(){
+		return Event.findFirst(events, TAG_DEATH);
+	}
+
+	/**
+	 * @return	The IDs of the families this individual is a child of.
+	 */
+	public List<String> getChildFamilyIDs(){
+		return childFamilyIDs;
+	}
+
+	void addChildFamilyID(final String familyID){
+		childFamilyIDs = add(childFamilyIDs, familyID);
+	}
+
+	/**
+	 * @return	The IDs of the families this individual is a spouse of.
+	 */
+	public List<String> getSpouseFamilyIDs(){
+		return spouseFamilyIDs;
+	}
+
+	void addSpouseFamilyID(final String familyID){
+		spouseFamilyIDs = add(spouseFamilyIDs, familyID);
+	}
+
+	@Override
+	public String toString(){
+		return "Individual{id=" + getID() + ", name=" + getName() + ", sex=" + sex + "}";
+	}
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.List;
+
+
+/**
+ * A source record ({@code SOURCE_RECORD} of the grammar).
+ */
+public final class Source extends TypedRecord{
+
+	private String title;
+	private String author;
+	private String publication;
+	private String abbreviation;
+	private String text;
+	private List<String> repositoryIDs = emptyList();
+
+
+	Source(final String id){
+		super(id);
+	}
+
+	public String getTitle(){
+		return title;
+	}
+
+	void setTitle(final String title){
+		this.title = title;
+	}
+
+	public String getAuthor(){
+		return author;
+	}
+
+	void setAuthor(final String author){
+		this.author = author;
+	}
+
+	public String getPublication(){
+		return publication;
+	}
+
+	void setPublication(final String publication){
+		this.publication = publication;
+	}
+
+	public String getAbbreviation(){
+		return abbreviation;
+	}
+
+	void setAbbreviation(final String abbreviation){
+		this.abbreviation = abbreviation;
+	}
+
+	public String getText(){
+		return text;
+	}
+
+	void setText(final String text){
+		this.text = text;
+	}
+
+	/**
+	 * @return	The IDs of the repositories holding this source.
+	 */
+	public List<String> getRepositoryIDs(){
+		return repositoryIDs;
+	}
+
+	void addRepositoryID(final String repositoryID){
+		repositoryIDs = add(repositoryIDs, repositoryID);
+	}
+
+	@Override
+	public String toString(){
+		return "Source{id=" + getID() + ", title=" + title + "}";
+	}
+
+}
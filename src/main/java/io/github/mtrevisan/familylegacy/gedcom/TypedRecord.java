@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * A record with fixed fields, filled by the parser (see {@link GedcomModelHandler}).
+ * <p>The lists returned by the getters are the internal ones and must not be modified; they are created only when the first element
+ * is added, so a record with no such elements costs nothing.</p>
+ */
+public abstract class TypedRecord{
+
+	private final String id;
+
+
+	TypedRecord(final String id){
+		this.id = id;
+	}
+
+	public String getID(){
+		return id;
+	}
+
+	/** Adds the given element to the given list, creating it if it is the shared empty one. */
+	static <T> List<T> add(List<T> list, final T element){
+		if(list.isEmpty())
+			list = new ArrayList<>(2);
+		list.add(element);
+		return list;
+	}
+
+	static <T> List<T> emptyList(){
+		return Collections.emptyList();
+	}
+
+}
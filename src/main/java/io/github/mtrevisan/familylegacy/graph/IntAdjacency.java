@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import java.util.Arrays;
+
+
+/**
+ * An adjacency list stored as compressed sparse rows: the neighbors of the node <code>n</code> are the entries from
+ * <code>offsets[n]</code> to <code>offsets[n + 1]</code> of a single array.
+ * <p>Once built it is read-only.</p>
+ */
+final class IntAdjacency{
+
+	private final int[] offsets;
+	private final int[] targets;
+
+
+	/**
+	 * Collects the edges of an adjacency, in order.
+	 */
+	static final class Builder{
+
+		private final int size;
+		private int[] sources = new int[16];
+		private int[] targets = new int[16];
+		private int edges;
+
+
+		/**
+		 * @param size	The number of source nodes.
+		 */
+		Builder(final int size){
+			this.size = size;
+		}
+
+		Builder add(final int source, final int target){
+			if(edges == sources.length){
+				sources = Arrays.copyOf(sources, edges << 1);
+				targets = Arrays.copyOf(targets, edges << 1);
+			}
+			sources[edges] = source;
+			targets[edges] = target;
+			edges ++;
+			return this;
+		}
+
+		/**
+		 * Builds the rows, keeping the order in which the edges were added and dropping the repeated ones.
+		 *
+		 * @param targetSize	The number of target nodes.
+		 */
+		IntAdjacency build(final int targetSize){
+			final int[] offsets = new int[size + 1];
+			for(int i = 0; i < edges; i ++)
+				offsets[sources[i] + 1] ++;
+			for(int i = 0; i < size; i ++)
+				offsets[i + 1] += offsets[i];
+
+			final int[] next = Arrays.copyOf(offsets, size);
+			final int[] sortedTargets = new int[edges];
+			for(int i = 0; i < edges; i ++)
+				sortedTargets[next[sources[i]] ++] = targets[i];
+
+			//drop the repeated edges, marking each target with the (1-based) source whose row is being compacted
+			final int[] marks = new int[targetSize];
+			int count = 0;
+			int start = 0;
+			for(int source = 0; source < size; source ++){
+				final int end = offsets[source + 1];
+				offsets[source] = count;
+				for(int i = start; i < end; i ++)
+					if(marks[sortedTargets[i]] != source + 1){
+						marks[sortedTargets[i]] = source + 1;
+						sortedTargets[count ++] = sortedTargets[i];
+					}
+				start = end;
+			}
+			offsets[size] = count;
+			return new IntAdjacency(offsets, Arrays.copyOf(sortedTargets, count));
+		}
+
+	}
+
+
+	private IntAdjacency(final int[] offsets, final int[] targets){
+		this.offsets = offsets;
+		this.targets = targets;
+	}
+
+	int size(){
+		return offsets.length - 1;
+	}
+
+	/**
+	 * @return	The number of neighbors of the given node.
+	 */
+	int count(final int node){
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/**
+	 * @return	The <code>index</code>-th neighbor of the given node.
+	 */
+	int get(final int node, final int index){
+		return targets[offsets[node] + index];
+	}
+
+	/**
+	 * @return	The index in {@link #targets()} of the first neighbor of the given node.
+	 */
+	int start(final int node){
+		return offsets[node];
+	}
+
+	/**
+	 * @return	The index in {@link #targets()} after the last neighbor of the given node.
+	 */
+	int end(final int node){
+		return offsets[node + 1];
+	}
+
+	/**
+	 * @return	The neighbors of all the nodes, row after row (must not be modified).
+	 */
+	int[] targets(){
+		return targets;
+	}
+
+}
@@ -0,0 +1,317 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Computes the coefficients of kinship and inbreeding of the individuals of a {@link PedigreeGraph}.
+ * <p>The kinship of two individuals is the probability that two alleles taken at random one from each are identical by descent; the
+ * inbreeding of an individual is the kinship of its parents.<br>
+ * The relationship matrix is factored as <i>A = L D L<sup>T</sup></i> (Meuwissen and Luo, 1992): the row of <i>L</i> of an
+ * individual holds the contribution of each of its ancestors, and is traced going up generation by generation; then</p>
+ * <ul>
+ *    <li><i>F(i) = Σ<sub>j</sub> L(i, j)<sup>2</sup> D(j) - 1</i>;</li>
+ *    <li><i>φ(a, b) = Σ<sub>j</sub> L(a, j) L(b, j) D(j) / 2</i>, over the common ancestors;</li>
+ *    <li><i>D(j) = 1 - (1 + F(father)) / 4 - (1 + F(mother)) / 4</i>, each term only if the parent is known.</li>
+ * </ul>
+ * <p>The parents of an individual are the spouses of the first family it is a child of. The inbreeding coefficients are computed
+ * generation by generation, each in parallel on a fork/join pool, so those of the ancestors are always ready; full siblings
+ * following one another share the computation.<br>
+ * Only the coefficients of the individuals are stored, and each thread traces one row at a time, so memory grows linearly with the
+ * individuals, never with their square.</p>
+ * <p>Once computed, the coefficients can be read from any thread.</p>
+ */
+public final class KinshipCalculator{
+
+	/** Number of individuals below which a generation is no longer split among the threads. */
+	private static final int SEQUENTIAL_THRESHOLD = 64;
+
+
+	private final PedigreeGraph graph;
+	private final int[] fathers;
+	private final int[] mothers;
+	private final double[] inbreedingCoefficients;
+	/** The diagonal of <i>D</i>, the variance of the Mendelian sampling of each individual. */
+	private final double[] variances;
+
+	/** The rows being traced by each thread. */
+	private final ThreadLocal<Scratch> scratches;
+
+
+	/**
+	 * A row of <i>L</i>: the ancestors of an individual (itself included) with their contribution.
+	 */
+	private static final class Row{
+
+		private final double[] coefficients;
+		/** The ancestors in the current row are the ones marked with the current epoch. */
+		private final int[] marks;
+		private int epoch;
+		private final int[] ancestors;
+		private int size;
+
+
+		Row(final int capacity){
+			coefficients = new double[capacity];
+			marks = new int[capacity];
+			ancestors = new int[capacity];
+		}
+
+		void clear(){
+			if(++ epoch == 0){
+				//the epochs wrapped around: the marks are no longer reliable
+				Arrays.fill(marks, 0);
+				epoch = 1;
+			}
+			size = 0;
+		}
+
+		/**
+		 * @return	Whether the ancestor is new to this row.
+		 */
+		boolean add(final int ancestor, final double coefficient){
+			if(marks[ancestor] != epoch){
+				marks[ancestor] = epoch;
+				coefficients[ancestor] = coefficient;
+				ancestors[size ++] = ancestor;
+				return true;
+			}
+
+			coefficients[ancestor] += coefficient;
+			return false;
+		}
+
+		double get(final int ancestor){
+			return (marks[ancestor] == epoch? coefficients[ancestor]: 0.);
+		}
+
+	}
+
+	/**
+	 * The working memory of a thread: two rows, and the ancestors waiting to be visited, bucketed by generation.
+	 */
+	private static final class Scratch{
+
+		private final Row first;
+		private final Row second;
+		private final int[] bucketHeads;
+		private final int[] bucketNexts;
+
+
+		Scratch(final int size, final int generationCount){
+			first = new Row(size);
+			second = new Row(size);
+			bucketHeads = new int[generationCount];
+			bucketNexts = new int[size];
+			Arrays.fill(bucketHeads, PedigreeGraph.NONE);
+		}
+
+	}
+
+
+	/**
+	 * Computes the inbreeding coefficients of all the individuals of the given graph.
+	 *
+	 * @param graph	The graph.
+	 * @param pool	The pool on which to compute each generation.
+	 * @return	The calculator, ready to answer.
+	 */
+	public static KinshipCalculator compute(final PedigreeGraph graph, final ForkJoinPool pool){
+		final KinshipCalculator calculator = new KinshipCalculator(graph);
+		for(int generation = 1; generation < graph.getGenerationCount(); generation ++)
+			pool.invoke(calculator.new GenerationTask(generation, 0, graph.getGenerationSize(generation)));
+		return calculator;
+	}
+
+	private KinshipCalculator(final PedigreeGraph graph){
+		this.graph = graph;
+
+		final int size = graph.getPersonCount();
+		fathers = new int[size];
+		mothers = new int[size];
+		Arrays.fill(fathers, PedigreeGraph.NONE);
+		Arrays.fill(mothers, PedigreeGraph.NONE);
+		for(int person = 0; person < size; person ++)
+			if(graph.getChildFamilyCount(person) > 0){
+				final int family = graph.getChildFamily(person, 0);
+				final int spouseCount = graph.getFamilySpouseCount(family);
+				fathers[person] = (spouseCount > 0? getParent(person, graph.getFamilySpouse(family, 0)): PedigreeGraph.NONE);
+				mothers[person] = (spouseCount > 1? getParent(person, graph.getFamilySpouse(family, 1)): PedigreeGraph.NONE);
+			}
+		inbreedingCoefficients = new double[size];
+		variances = new double[size];
+		//NOTE: the individuals of the first generation have no known parents
+		Arrays.fill(variances, 1.);
+
+		scratches = ThreadLocal.withInitial(() -> new Scratch(size, graph.getGenerationCount()));
+	}
+
+	/**
+	 * Returns the given parent, or {@link PedigreeGraph#NONE} if it is not in an earlier generation (an ancestor of itself, an error
+	 * in the data), so the ancestors are always in earlier generations.
+	 */
+	private int getParent(final int person, final int parent){
+		return (graph.getGeneration(parent) < graph.getGeneration(person)? parent: PedigreeGraph.NONE);
+	}
+
+	/**
+	 * @return	The inbreeding coefficient of the given individual, zero if its parents are not known.
+	 */
+	public double getInbreedingCoefficient(final int person){
+		return inbreedingCoefficients[person];
+	}
+
+	/**
+	 * @return	The inbreeding coefficients of all the individuals, by index.
+	 */
+	public double[] getInbreedingCoefficients(){
+		return inbreedingCoefficients.clone();
+	}
+
+	/**
+	 * @return	The kinship coefficient of the given individuals.
+	 */
+	public double getKinshipCoefficient(final int first, final int second){
+		if(first == PedigreeGraph.NONE || second == PedigreeGraph.NONE)
+			return 0.;
+		if(first == second)
+			return (1. + inbreedingCoefficients[first]) / 2.;
+
+		final Scratch scratch = scratches.get();
+		trace(first, scratch.first, scratch);
+		trace(second, scratch.second, scratch);
+
+		double kinship = 0.;
+		for(int i = 0; i < scratch.first.size; i ++){
+			final int ancestor = scratch.first.ancestors[i];
+			kinship += scratch.first.coefficients[ancestor] * scratch.second.get(ancestor) * variances[ancestor];
+		}
+		return kinship / 2.;
+	}
+
+	/**
+	 * Computes the inbreeding coefficient of the given individual, whose ancestors are already done.
+	 */
+	private double computeInbreedingCoefficient(final int person, final Scratch scratch){
+		final Row row = scratch.first;
+		trace(person, row, scratch);
+
+		double sum = 0.;
+		for(int i = 0; i < row.size; i ++){
+			final int ancestor = row.ancestors[i];
+			final double coefficient = row.coefficients[ancestor];
+			sum += coefficient * coefficient * variances[ancestor];
+		}
+		//NOTE: the coefficient cannot be negative, a tiny one is a rounding error
+		return Math.max(sum - 1., 0.);
+	}
+
+	/**
+	 * Fills the row of <i>L</i> of the given individual, visiting its ancestors from the latest generation to the earliest (so the
+	 * contribution of each ancestor is complete before being passed on to its parents).
+	 */
+	private void trace(final int person, final Row row, final Scratch scratch){
+		row.clear();
+		row.add(person, 1.);
+		final int[] bucketHeads = scratch.bucketHeads;
+		final int[] bucketNexts = scratch.bucketNexts;
+		bucketHeads[graph.getGeneration(person)] = person;
+		bucketNexts[person] = PedigreeGraph.NONE;
+		for(int generation = graph.getGeneration(person); generation >= 0; generation --){
+			int ancestor = bucketHeads[generation];
+			bucketHeads[generation] = PedigreeGraph.NONE;
+			while(ancestor != PedigreeGraph.NONE){
+				final double halfCoefficient = row.coefficients[ancestor] / 2.;
+				pushParent(fathers[ancestor], halfCoefficient, row, bucketHeads, bucketNexts);
+				pushParent(mothers[ancestor], halfCoefficient, row, bucketHeads, bucketNexts);
+				ancestor = bucketNexts[ancestor];
+			}
+		}
+	}
+
+	private void pushParent(final int parent, final double coefficient, final Row row, final int[] bucketHeads,
+			final int[] bucketNexts){
+		if(parent != PedigreeGraph.NONE && row.add(parent, coefficient)){
+			final int generation = graph.getGeneration(parent);
+			bucketNexts[parent] = bucketHeads[generation];
+			bucketHeads[generation] = parent;
+		}
+	}
+
+	private double computeVariance(final int person){
+		double variance = 1.;
+		if(fathers[person] != PedigreeGraph.NONE)
+			variance -= (1. + inbreedingCoefficients[fathers[person]]) / 4.;
+		if(mothers[person] != PedigreeGraph.NONE)
+			variance -= (1. + inbreedingCoefficients[mothers[person]]) / 4.;
+		return variance;
+	}
+
+
+	/** Computes the inbreeding coefficients of a range of the individuals of a generation. */
+	private final class GenerationTask extends RecursiveAction{
+
+		private static final long serialVersionUID = -6383958120375364823L;
+
+		private final int generation;
+		private final int from;
+		private final int to;
+
+
+		GenerationTask(final int generation, final int from, final int to){
+			this.generation = generation;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from > SEQUENTIAL_THRESHOLD){
+				final int middle = (from + to) >>> 1;
+				invokeAll(new GenerationTask(generation, from, middle), new GenerationTask(generation, middle, to));
+				return;
+			}
+
+			final Scratch scratch = scratches.get();
+			int previous = PedigreeGraph.NONE;
+			for(int i = from; i < to; i ++){
+				final int person = graph.getGenerationPerson(generation, i);
+				variances[person] = computeVariance(person);
+				if(previous != PedigreeGraph.NONE && fathers[person] == fathers[previous] && mothers[person] == mothers[previous])
+					//full siblings share the same coefficient
+					inbreedingCoefficients[person] = inbreedingCoefficients[previous];
+				else if(fathers[person] != PedigreeGraph.NONE && mothers[person] != PedigreeGraph.NONE)
+					inbreedingCoefficients[person] = computeInbreedingCoefficient(person, scratch);
+				previous = person;
+			}
+		}
+
+	}
+
+}
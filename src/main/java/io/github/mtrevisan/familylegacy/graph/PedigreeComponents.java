@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import java.util.Arrays;
+
+
+/**
+ * The connected components of a {@link PedigreeGraph}: the groups of individuals linked to one another through their families.
+ * <p>The components are found with a union-find over individuals and families (with path halving and union by size), in time
+ * almost linear with the links, then numbered by decreasing number of individuals, so the main tree is the component zero.<br>
+ * An individual with no family is an isolated component of its own; a family with neither spouses nor children is empty and belongs
+ * to no component.</p>
+ */
+public final class PedigreeComponents{
+
+	private final int[] personComponents;
+	private final int[] familyComponents;
+	/** The individuals of each component. */
+	private final IntAdjacency componentPeople;
+	private final int[] componentFamilyCounts;
+	private final int[] isolatedPeople;
+	private final int[] emptyFamilies;
+
+
+	/**
+	 * Finds the connected components of the given graph.
+	 *
+	 * @param graph	The graph.
+	 * @return	The components.
+	 */
+	public static PedigreeComponents of(final PedigreeGraph graph){
+		return new PedigreeComponents(graph);
+	}
+
+	private PedigreeComponents(final PedigreeGraph graph){
+		final int personCount = graph.getPersonCount();
+		final int familyCount = graph.getFamilyCount();
+
+		//the individuals are the nodes from zero, the families follow
+		final int[] parents = new int[personCount + familyCount];
+		final int[] sizes = new int[parents.length];
+		for(int node = 0; node < parents.length; node ++){
+			parents[node] = node;
+			sizes[node] = 1;
+		}
+		for(int person = 0; person < personCount; person ++){
+			for(int i = 0; i < graph.getChildFamilyCount(person); i ++)
+				union(parents, sizes, person, personCount + graph.getChildFamily(person, i));
+			for(int i = 0; i < graph.getSpouseFamilyCount(person); i ++)
+				union(parents, sizes, person, personCount + graph.getSpouseFamily(person, i));
+		}
+
+		//number the components in order of first appearance, counting their individuals
+		final int[] rootComponents = new int[parents.length];
+		Arrays.fill(rootComponents, PedigreeGraph.NONE);
+		int[] peopleCounts = new int[16];
+		int componentCount = 0;
+		personComponents = new int[personCount];
+		for(int person = 0; person < personCount; person ++){
+			final int root = find(parents, person);
+			if(rootComponents[root] == PedigreeGraph.NONE){
+				if(componentCount == peopleCounts.length)
+					peopleCounts = Arrays.copyOf(peopleCounts, componentCount << 1);
+				rootComponents[root] = componentCount ++;
+			}
+			personComponents[person] = rootComponents[root];
+			peopleCounts[personComponents[person]] ++;
+		}
+
+		//renumber by decreasing number of individuals (then by first appearance)
+		final long[] keys = new long[componentCount];
+		for(int component = 0; component < componentCount; component ++)
+			keys[component] = ((long)(Integer.MAX_VALUE - peopleCounts[component]) << 32) | component;
+		Arrays.sort(keys);
+		final int[] renumbering = new int[componentCount];
+		for(int i = 0; i < componentCount; i ++)
+			renumbering[(int)keys[i]] = i;
+
+		final IntAdjacency.Builder componentPeopleBuilder = new IntAdjacency.Builder(componentCount);
+		int isolatedCount = 0;
+		for(int person = 0; person < personCount; person ++){
+			personComponents[person] = renumbering[personComponents[person]];
+			componentPeopleBuilder.add(personComponents[person], person);
+			if(graph.getChildFamilyCount(person) == 0 && graph.getSpouseFamilyCount(person) == 0)
+				isolatedCount ++;
+		}
+		componentPeople = componentPeopleBuilder.build(personCount);
+
+		isolatedPeople = new int[isolatedCount];
+		isolatedCount = 0;
+		for(int person = 0; person < personCount; person ++)
+			if(graph.getChildFamilyCount(person) == 0 && graph.getSpouseFamilyCount(person) == 0)
+				isolatedPeople[isolatedCount ++] = person;
+
+		familyComponents = new int[familyCount];
+		componentFamilyCounts = new int[componentCount];
+		int emptyCount = 0;
+		for(int family = 0; family < familyCount; family ++){
+			final int root = find(parents, personCount + family);
+			familyComponents[family] = (rootComponents[root] != PedigreeGraph.NONE? renumbering[rootComponents[root]]: PedigreeGraph.NONE);
+			if(familyComponents[family] != PedigreeGraph.NONE)
+				componentFamilyCounts[familyComponents[family]] ++;
+			else
+				emptyCount ++;
+		}
+		emptyFamilies = new int[emptyCount];
+		emptyCount = 0;
+		for(int family = 0; family < familyCount; family ++)
+			if(familyComponents[family] == PedigreeGraph.NONE)
+				emptyFamilies[emptyCount ++] = family;
+	}
+
+	private static int find(final int[] parents, int node){
+		while(parents[node] != node){
+			//path halving
+			parents[node] = parents[parents[node]];
+			node = parents[node];
+		}
+		return node;
+	}
+
+	private static void union(final int[] parents, final int[] sizes, final int first, final int second){
+		int firstRoot = find(parents, first);
+		int secondRoot = find(parents, second);
+		if(firstRoot == secondRoot)
+			return;
+
+		if(sizes[firstRoot] < sizes[secondRoot]){
+			final int root = firstRoot;
+			firstRoot = secondRoot;
+			secondRoot = root;
+		}
+		parents[secondRoot] = firstRoot;
+		sizes[firstRoot] += sizes[secondRoot];
+	}
+
+	/**
+	 * @return	The number of components, isolated individuals included.
+	 */
+	public int getComponentCount(){
+		return componentPeople.size();
+	}
+
+	/**
+	 * @return	The component of the given individual (zero is the largest).
+	 */
+	public int getComponent(final int person){
+		return personComponents[person];
+	}
+
+	/**
+	 * @return	The component of the given family, {@link PedigreeGraph#NONE} if the family is empty.
+	 */
+	public int getFamilyComponent(final int family){
+		return familyComponents[family];
+	}
+
+	/**
+	 * @return	The number of individuals of the given component.
+	 */
+	public int getPersonCount(final int component){
+		return componentPeople.count(component);
+	}
+
+	/**
+	 * @return	The number of families of the given component.
+	 */
+	public int getFamilyCount(final int component){
+		return componentFamilyCounts[component];
+	}
+
+	/**
+	 * @return	The individuals of the given component, in file order.
+	 */
+	public int[] getPeople(final int component){
+		return Arrays.copyOfRange(componentPeople.targets(), componentPeople.start(component), componentPeople.end(component));
+	}
+
+	/**
+	 * @return	The individuals with no family, in file order.
+	 */
+	public int[] getIsolatedPeople(){
+		return isolatedPeople.clone();
+	}
+
+	/**
+	 * @return	The families with neither spouses nor children, in file order.
+	 */
+	public int[] getEmptyFamilies(){
+		return emptyFamilies.clone();
+	}
+
+}
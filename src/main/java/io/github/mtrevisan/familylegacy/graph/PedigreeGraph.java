@@ -0,0 +1,551 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import io.github.mtrevisan.familylegacy.gedcom.Gedcom;
+import io.github.mtrevisan.familylegacy.gedcom.GedcomNode;
+import io.github.mtrevisan.familylegacy.gedcom.GedcomNodeCursor;
+import io.github.mtrevisan.familylegacy.gedcom.GedcomTagTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The family links of a {@link Gedcom}, built once and navigated without lookups by ID.
+ * <p>Each individual and each family has a dense index (in file order), and the links are stored as compressed sparse rows of
+ * indexes:</p>
+ * <ul>
+ *    <li>for each family, its spouses ({@code HUSB}, {@code WIFE}) and children ({@code CHIL});</li>
+ *    <li>for each individual, the families it is a child of ({@code FAMC}) and a spouse in ({@code FAMS});</li>
+ *    <li>for each individual, its parents, children, and spouses, derived from the above;</li>
+ *    <li>for each generation (the length of the longest line of known ancestors), its individuals.</li>
+ * </ul>
+ * <p>The links are taken from both sides (family and individual records) and merged, pointers to missing records are ignored.<br>
+ * If the GEDCOM was created from a {@link GedcomNodeCursor}, the records are read from it, without materializing their
+ * {@link GedcomNode}s.<br>
+ * Once built the graph is read-only, and can be shared among threads; see {@link PedigreeWalker} for the traversals.</p>
+ */
+public final class PedigreeGraph{
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PedigreeGraph.class);
+
+	/** Index of a missing individual or family. */
+	public static final int NONE = -1;
+
+	private static final int TAG_PERSON = GedcomTagTable.intern("INDI");
+	private static final int TAG_FAMILY = GedcomTagTable.intern("FAM");
+	private static final int TAG_HUSBAND = GedcomTagTable.intern("HUSB");
+	private static final int TAG_WIFE = GedcomTagTable.intern("WIFE");
+	private static final int TAG_CHILD = GedcomTagTable.intern("CHIL");
+	private static final int TAG_CHILD_FAMILY = GedcomTagTable.intern("FAMC");
+	private static final int TAG_SPOUSE_FAMILY = GedcomTagTable.intern("FAMS");
+
+
+	private final String[] personIDs;
+	private final String[] familyIDs;
+	private final Map<String, Integer> personIndexes;
+	private final Map<String, Integer> familyIndexes;
+
+	private final int[] husbands;
+	private final int[] wives;
+	private final IntAdjacency familySpouses;
+	private final IntAdjacency familyChildren;
+	private final IntAdjacency childFamilies;
+	private final IntAdjacency spouseFamilies;
+
+	private final IntAdjacency parents;
+	private final IntAdjacency children;
+	private final IntAdjacency spouses;
+
+	/** Generation of each individual, that is the length of its longest line of known ancestors. */
+	private final int[] generations;
+	/** The individuals of each generation. */
+	private final IntAdjacency generationPeople;
+
+
+	/**
+	 * The records of a given type, and the tags and pointers of their children.
+	 * <p>A child is addressed by a handle, whose meaning depends on the implementation.</p>
+	 */
+	private interface Records{
+
+		int size();
+
+		String getID(int record);
+
+		/**
+		 * @return	The handle of the first child of the given record, {@link #NONE} if there are no children.
+		 */
+		int getFirstChild(int record);
+
+		/**
+		 * @return	The handle of the child next to the given one, {@link #NONE} if this is the last child.
+		 */
+		int getNextChild(int record, int child);
+
+		int getTagCode(int record, int child);
+
+		String getXRef(int record, int child);
+
+	}
+
+	/** The records as {@link GedcomNode}s, a child is addressed by its position. */
+	private static final class NodeRecords implements Records{
+
+		private final List<GedcomNode> records;
+
+
+		NodeRecords(final List<GedcomNode> records){
+			this.records = records;
+		}
+
+		@Override
+		public int size(){
+			return records.size();
+		}
+
+		@Override
+		public String getID(final int record){
+			return records.get(record).getID();
+		}
+
+		@Override
+		public int getFirstChild(final int record){
+			return getNextChild(record, -1);
+		}
+
+		@Override
+		public int getNextChild(final int record, final int child){
+			return (child + 1 < records.get(record).getChildren().size()? child + 1: NONE);
+		}
+
+		@Override
+		public int getTagCode(final int record, final int child){
+			return records.get(record).getChildren().get(child).getTagCode();
+		}
+
+		@Override
+		public String getXRef(final int record, final int child){
+			return records.get(record).getChildren().get(child).getXRef();
+		}
+
+	}
+
+	/** The records as nodes of a {@link GedcomNodeCursor}, a child is addressed by its handle in the cursor. */
+	private static final class CursorRecords implements Records{
+
+		private final GedcomNodeCursor cursor;
+		private final int[] handles;
+
+
+		CursorRecords(final GedcomNodeCursor cursor, final int tagCode){
+			this.cursor = cursor;
+
+			int[] handles = new int[16];
+			int size = 0;
+			for(int record = cursor.getFirstChild(cursor.getRoot()); record != GedcomNodeCursor.NONE;
+					record = cursor.getNextSibling(record))
+				if(cursor.getTagCode(record) == tagCode){
+					if(size == handles.length)
+						handles = Arrays.copyOf(handles, size << 1);
+					handles[size ++] = record;
+				}
+			this.handles = Arrays.copyOf(handles, size);
+		}
+
+		@Override
+		public int size(){
+			return handles.length;
+		}
+
+		@Override
+		public String getID(final int record){
+			return cursor.getID(handles[record]);
+		}
+
+		@Override
+		public int getFirstChild(final int record){
+			return cursor.getFirstChild(handles[record]);
+		}
+
+		@Override
+		public int getNextChild(final int record, final int child){
+			return cursor.getNextSibling(child);
+		}
+
+		@Override
+		public int getTagCode(final int record, final int child){
+			return cursor.getTagCode(child);
+		}
+
+		@Override
+		public String getXRef(final int record, final int child){
+			return cursor.getXRef(child);
+		}
+
+	}
+
+
+	/**
+	 * Builds the graph of the individuals and families of the given GEDCOM.
+	 *
+	 * @param gedcom	The GEDCOM.
+	 * @return	The graph.
+	 */
+	public static PedigreeGraph of(final Gedcom gedcom){
+		final GedcomNodeCursor cursor = gedcom.getCursor();
+		if(cursor != null)
+			return new PedigreeGraph(new CursorRecords(cursor, TAG_PERSON), new CursorRecords(cursor, TAG_FAMILY));
+
+		return new PedigreeGraph(new NodeRecords(gedcom.getPeople()), new NodeRecords(gedcom.getFamilies()));
+	}
+
+	private PedigreeGraph(final Records people, final Records families){
+		personIDs = new String[people.size()];
+		personIndexes = createIndex(people, personIDs);
+		familyIDs = new String[families.size()];
+		familyIndexes = createIndex(families, familyIDs);
+
+		husbands = new int[familyIDs.length];
+		wives = new int[familyIDs.length];
+		Arrays.fill(husbands, NONE);
+		Arrays.fill(wives, NONE);
+		//links as listed by the families, then the ones listed only by the individuals
+		final IntAdjacency.Builder familySpousesBuilder = new IntAdjacency.Builder(familyIDs.length);
+		final IntAdjacency.Builder familyChildrenBuilder = new IntAdjacency.Builder(familyIDs.length);
+		for(int family = 0; family < familyIDs.length; family ++){
+			husbands[family] = addLinks(families, family, TAG_HUSBAND, personIndexes, familySpousesBuilder);
+			wives[family] = addLinks(families, family, TAG_WIFE, personIndexes, familySpousesBuilder);
+			addLinks(families, family, TAG_CHILD, personIndexes, familyChildrenBuilder);
+		}
+		//links as listed by the individuals, then the ones listed only by the families
+		final IntAdjacency.Builder childFamiliesBuilder = new IntAdjacency.Builder(personIDs.length);
+		final IntAdjacency.Builder spouseFamiliesBuilder = new IntAdjacency.Builder(personIDs.length);
+		for(int person = 0; person < personIDs.length; person ++){
+			addLinks(people, person, TAG_CHILD_FAMILY, familyIndexes, childFamiliesBuilder);
+			addLinks(people, person, TAG_SPOUSE_FAMILY, familyIndexes, spouseFamiliesBuilder);
+		}
+
+		final IntAdjacency familySpousesFromFamilies = familySpousesBuilder.build(personIDs.length);
+		final IntAdjacency familyChildrenFromFamilies = familyChildrenBuilder.build(personIDs.length);
+		final IntAdjacency childFamiliesFromPeople = childFamiliesBuilder.build(familyIDs.length);
+		final IntAdjacency spouseFamiliesFromPeople = spouseFamiliesBuilder.build(familyIDs.length);
+		familySpouses = merge(familySpousesFromFamilies, spouseFamiliesFromPeople, personIDs.length);
+		familyChildren = merge(familyChildrenFromFamilies, childFamiliesFromPeople, personIDs.length);
+		childFamilies = merge(childFamiliesFromPeople, familyChildrenFromFamilies, familyIDs.length);
+		spouseFamilies = merge(spouseFamiliesFromPeople, familySpousesFromFamilies, familyIDs.length);
+
+		final IntAdjacency.Builder parentsBuilder = new IntAdjacency.Builder(personIDs.length);
+		final IntAdjacency.Builder childrenBuilder = new IntAdjacency.Builder(personIDs.length);
+		final IntAdjacency.Builder spousesBuilder = new IntAdjacency.Builder(personIDs.length);
+		for(int person = 0; person < personIDs.length; person ++){
+			for(int i = childFamilies.start(person); i < childFamilies.end(person); i ++){
+				final int family = childFamilies.targets()[i];
+				for(int j = familySpouses.start(family); j < familySpouses.end(family); j ++)
+					parentsBuilder.add(person, familySpouses.targets()[j]);
+			}
+			for(int i = spouseFamilies.start(person); i < spouseFamilies.end(person); i ++){
+				final int family = spouseFamilies.targets()[i];
+				for(int j = familyChildren.start(family); j < familyChildren.end(family); j ++)
+					childrenBuilder.add(person, familyChildren.targets()[j]);
+				for(int j = familySpouses.start(family); j < familySpouses.end(family); j ++)
+					if(familySpouses.targets()[j] != person)
+						spousesBuilder.add(person, familySpouses.targets()[j]);
+			}
+		}
+		parents = parentsBuilder.build(personIDs.length);
+		children = childrenBuilder.build(personIDs.length);
+		spouses = spousesBuilder.build(personIDs.length);
+
+		generations = new int[personIDs.length];
+		final int generationCount = computeGenerations(parents, children, generations);
+		final IntAdjacency.Builder generationPeopleBuilder = new IntAdjacency.Builder(generationCount);
+		for(int person = 0; person < personIDs.length; person ++)
+			generationPeopleBuilder.add(generations[person], person);
+		generationPeople = generationPeopleBuilder.build(personIDs.length);
+	}
+
+	/**
+	 * Computes the generation of each individual visiting them in topological order (parents before children).
+	 * <p>The individuals in a cycle (an ancestor of itself, an error in the data) are placed after the generation of their known
+	 * ancestors outside the cycle.</p>
+	 *
+	 * @return	The number of generations.
+	 */
+	private static int computeGenerations(final IntAdjacency parents, final IntAdjacency children, final int[] generations){
+		final int size = parents.size();
+		final int[] pendingParents = new int[size];
+		final int[] queue = new int[size];
+		int tail = 0;
+		for(int person = 0; person < size; person ++){
+			pendingParents[person] = parents.count(person);
+			if(pendingParents[person] == 0)
+				queue[tail ++] = person;
+		}
+
+		int generationCount = (size > 0? 1: 0);
+		int head = 0;
+		while(true){
+			while(head < tail){
+				final int person = queue[head ++];
+				for(int i = children.start(person); i < children.end(person); i ++){
+					final int child = children.targets()[i];
+					generations[child] = Math.max(generations[child], generations[person] + 1);
+					if(-- pendingParents[child] == 0){
+						queue[tail ++] = child;
+						generationCount = Math.max(generationCount, generations[child] + 1);
+					}
+				}
+			}
+			if(tail == size)
+				break;
+
+			//break a cycle: release the first individual still waiting for its parents
+			int person = 0;
+			while(pendingParents[person] <= 0)
+				person ++;
+			LOGGER.warn("Individual at index {} is an ancestor of itself", person);
+			pendingParents[person] = 0;
+			queue[tail ++] = person;
+			generationCount = Math.max(generationCount, generations[person] + 1);
+		}
+		return generationCount;
+	}
+
+	/**
+	 * Returns the index of each record by ID, the last one if more records share the same ID.
+	 */
+	private static Map<String, Integer> createIndex(final Records records, final String[] ids){
+		final Map<String, Integer> indexes = new HashMap<>(records.size());
+		for(int i = 0; i < ids.length; i ++){
+			ids[i] = records.getID(i);
+			if(ids[i] != null)
+				indexes.put(ids[i], i);
+		}
+		return indexes;
+	}
+
+	/**
+	 * Adds a link from the given record to each record pointed to by its children with the given tag.
+	 *
+	 * @return	The index of the first record linked, {@link #NONE} if none.
+	 */
+	private static int addLinks(final Records records, final int source, final int tagCode, final Map<String, Integer> indexes,
+			final IntAdjacency.Builder builder){
+		int first = NONE;
+		for(int child = records.getFirstChild(source); child != NONE; child = records.getNextChild(source, child))
+			if(records.getTagCode(source, child) == tagCode && records.getXRef(source, child) != null){
+				final Integer target = indexes.get(records.getXRef(source, child));
+				if(target != null){
+					builder.add(source, target);
+					if(first == NONE)
+						first = target;
+				}
+			}
+		return first;
+	}
+
+	/**
+	 * Merges the given adjacency with the transposed of another one, the links of the first come first.
+	 */
+	private static IntAdjacency merge(final IntAdjacency adjacency, final IntAdjacency transposed, final int targetSize){
+		final IntAdjacency.Builder builder = new IntAdjacency.Builder(adjacency.size());
+		for(int source = 0; source < adjacency.size(); source ++)
+			for(int i = adjacency.start(source); i < adjacency.end(source); i ++)
+				builder.add(source, adjacency.targets()[i]);
+		for(int target = 0; target < transposed.size(); target ++)
+			for(int i = transposed.start(target); i < transposed.end(target); i ++)
+				builder.add(transposed.targets()[i], target);
+		return builder.build(targetSize);
+	}
+
+	public int getPersonCount(){
+		return personIDs.length;
+	}
+
+	public int getFamilyCount(){
+		return familyIDs.length;
+	}
+
+	/**
+	 * @return	The index of the individual with the given ID, {@link #NONE} if there is no such individual.
+	 */
+	public int getPersonIndex(final String id){
+		final Integer index = personIndexes.get(id);
+		return (index != null? index: NONE);
+	}
+
+	public String getPersonID(final int person){
+		return personIDs[person];
+	}
+
+	/**
+	 * @return	The index of the family with the given ID, {@link #NONE} if there is no such family.
+	 */
+	public int getFamilyIndex(final String id){
+		final Integer index = familyIndexes.get(id);
+		return (index != null? index: NONE);
+	}
+
+	public String getFamilyID(final int family){
+		return familyIDs[family];
+	}
+
+	/**
+	 * @return	The husband of the given family, {@link #NONE} if not known.
+	 */
+	public int getHusband(final int family){
+		return husbands[family];
+	}
+
+	/**
+	 * @return	The wife of the given family, {@link #NONE} if not known.
+	 */
+	public int getWife(final int family){
+		return wives[family];
+	}
+
+	public int getFamilySpouseCount(final int family){
+		return familySpouses.count(family);
+	}
+
+	public int getFamilySpouse(final int family, final int index){
+		return familySpouses.get(family, index);
+	}
+
+	public int getFamilyChildCount(final int family){
+		return familyChildren.count(family);
+	}
+
+	public int getFamilyChild(final int family, final int index){
+		return familyChildren.get(family, index);
+	}
+
+	/**
+	 * @return	The number of families the given individual is a child of.
+	 */
+	public int getChildFamilyCount(final int person){
+		return childFamilies.count(person);
+	}
+
+	public int getChildFamily(final int person, final int index){
+		return childFamilies.get(person, index);
+	}
+
+	/**
+	 * @return	The number of families the given individual is a spouse in.
+	 */
+	public int getSpouseFamilyCount(final int person){
+		return spouseFamilies.count(person);
+	}
+
+	public int getSpouseFamily(final int person, final int index){
+		return spouseFamilies.get(person, index);
+	}
+
+	public int getParentCount(final int person){
+		return parents.count(person);
+	}
+
+	public int getParent(final int person, final int index){
+		return parents.get(person, index);
+	}
+
+	public int getChildCount(final int person){
+		return children.count(person);
+	}
+
+	public int getChild(final int person, final int index){
+		return children.get(person, index);
+	}
+
+	public int getSpouseCount(final int person){
+		return spouses.count(person);
+	}
+
+	public int getSpouse(final int person, final int index){
+		return spouses.get(person, index);
+	}
+
+	/**
+	 * @return	The generation of the given individual: zero if it has no known parents, one more than the generation of its latest
+	 * 	parent otherwise.
+	 */
+	public int getGeneration(final int person){
+		return generations[person];
+	}
+
+	public int getGenerationCount(){
+		return generationPeople.size();
+	}
+
+	/**
+	 * @return	The number of individuals of the given generation.
+	 */
+	public int getGenerationSize(final int generation){
+		return generationPeople.count(generation);
+	}
+
+	public int getGenerationPerson(final int generation, final int index){
+		return generationPeople.get(generation, index);
+	}
+
+	IntAdjacency getParents(){
+		return parents;
+	}
+
+	IntAdjacency getChildren(){
+		return children;
+	}
+
+	IntAdjacency getChildFamilies(){
+		return childFamilies;
+	}
+
+	IntAdjacency getSpouseFamilies(){
+		return spouseFamilies;
+	}
+
+	IntAdjacency getFamilyChildren(){
+		return familyChildren;
+	}
+
+	IntAdjacency getSpouses(){
+		return spouses;
+	}
+
+	/**
+	 * Returns a new walker over this graph, to be used by a single thread.
+	 */
+	public PedigreeWalker newWalker(){
+		return new PedigreeWalker(this);
+	}
+
+}
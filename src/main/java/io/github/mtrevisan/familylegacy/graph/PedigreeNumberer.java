@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Computes the genealogical numbers (see {@link PedigreeNumbering}) of the relatives of an individual of a {@link PedigreeGraph},
+ * caching the most recently used roots.
+ * <p>Each numbering is computed in a single breadth-first walk over the ancestors and one over the descendants, so its cost is linear
+ * with the relatives reached; the least recently used numbering is evicted once the cache is full.<br>
+ * The father and the mother of an individual are the husband and the wife of the first family it is a child of.</p>
+ * <p>A numberer can be shared among threads, the numberings are computed one at a time.</p>
+ */
+public final class PedigreeNumberer{
+
+	private static final int DEFAULT_CACHE_SIZE = 16;
+
+	/** Numbers from this one on would overflow a <code>long</code> once doubled. */
+	private static final long MAX_LONG_PARENT_NUMBER = 1L << 62;
+
+
+	private final PedigreeGraph graph;
+
+	private final Map<Integer, PedigreeNumbering> cache;
+
+	/** The individuals already reached in the current walk are the ones marked with the current epoch. */
+	private final int[] marks;
+	private int epoch;
+	private final int[] queue;
+	private final long[] queueNumbers;
+	/** The numbers of the queue not fitting a <code>long</code>, created when first needed. */
+	private BigInteger[] queueBigNumbers;
+	/** The position in the queue of the parent of each descendant. */
+	private final int[] queueParents;
+	/** The position of each descendant among the children of its parent, starting from one. */
+	private final int[] queueOrdinals;
+
+
+	public PedigreeNumberer(final PedigreeGraph graph){
+		this(graph, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param graph	The graph.
+	 * @param cacheSize	The number of numberings to keep.
+	 */
+	public PedigreeNumberer(final PedigreeGraph graph, final int cacheSize){
+		this.graph = graph;
+
+		cache = new LinkedHashMap<>(cacheSize, 0.75f, true){
+			private static final long serialVersionUID = 4823046125834167207L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Integer, PedigreeNumbering> eldest){
+				return (size() > cacheSize);
+			}
+		};
+
+		final int size = graph.getPersonCount();
+		marks = new int[size];
+		queue = new int[size];
+		queueNumbers = new long[size];
+		queueParents = new int[size];
+		queueOrdinals = new int[size];
+	}
+
+	/**
+	 * Returns the numbering of the relatives of the given individual, computing it if not cached.
+	 *
+	 * @param root	The index of the individual.
+	 * @return	The numbering.
+	 */
+	public synchronized PedigreeNumbering getNumbering(final int root){
+		PedigreeNumbering numbering = cache.get(root);
+		if(numbering == null){
+			numbering = computeNumbering(root);
+			cache.put(root, numbering);
+		}
+		return numbering;
+	}
+
+	private PedigreeNumbering computeNumbering(final int root){
+		//ancestors: the queue is in increasing order of number, so an ancestor is first reached through its lowest number
+		restart();
+		int tail = enqueueAncestor(root, 1L, null, 0);
+		for(int head = 0; head < tail; head ++){
+			final int person = queue[head];
+			if(graph.getChildFamilyCount(person) == 0)
+				continue;
+
+			final int family = graph.getChildFamily(person, 0);
+			final long number = queueNumbers[head];
+			if(number != PedigreeGraph.NONE && number < MAX_LONG_PARENT_NUMBER){
+				tail = enqueueAncestor(graph.getHusband(family), number << 1, null, tail);
+				tail = enqueueAncestor(graph.getWife(family), (number << 1) + 1, null, tail);
+			}
+			else{
+				final BigInteger bigNumber = (number != PedigreeGraph.NONE? BigInteger.valueOf(number): queueBigNumbers[head])
+					.shiftLeft(1);
+				tail = enqueueAncestor(graph.getHusband(family), PedigreeGraph.NONE, bigNumber, tail);
+				tail = enqueueAncestor(graph.getWife(family), PedigreeGraph.NONE, bigNumber.setBit(0), tail);
+			}
+		}
+		final int[] ancestorOrders = sortByPerson(tail);
+		final int[] ancestors = new int[tail];
+		final long[] ahnentafelNumbers = new long[tail];
+		final Map<Integer, BigInteger> bigAhnentafelNumbers = new HashMap<>(0);
+		for(int i = 0; i < tail; i ++){
+			final int order = ancestorOrders[i];
+			ancestors[i] = queue[order];
+			ahnentafelNumbers[i] = queueNumbers[order];
+			if(queueNumbers[order] == PedigreeGraph.NONE)
+				bigAhnentafelNumbers.put(i, queueBigNumbers[order]);
+		}
+
+		//descendants: children in the order they are listed, each reached first through its earliest parent in breadth-first order
+		restart();
+		tail = enqueueDescendant(root, PedigreeGraph.NONE, 0, 0);
+		for(int head = 0; head < tail; head ++){
+			final int person = queue[head];
+			for(int i = 0; i < graph.getChildCount(person); i ++)
+				tail = enqueueDescendant(graph.getChild(person, i), head, i + 1, tail);
+		}
+		final int[] descendantOrders = sortByPerson(tail);
+		final int[] descendants = new int[tail];
+		for(int i = 0; i < tail; i ++)
+			descendants[i] = queue[descendantOrders[i]];
+		final int[] registerNumbers = new int[tail];
+		int registerNumber = 0;
+		for(int order = 0; order < tail; order ++)
+			if(order == 0 || graph.getChildCount(queue[order]) > 0)
+				registerNumbers[order] = ++ registerNumber;
+
+		return new PedigreeNumbering(root, ancestors, ahnentafelNumbers, bigAhnentafelNumbers, descendants, descendantOrders,
+			Arrays.copyOf(queueParents, tail), Arrays.copyOf(queueOrdinals, tail), registerNumbers);
+	}
+
+	private void restart(){
+		if(++ epoch == 0){
+			//the epochs wrapped around: the marks are no longer reliable
+			Arrays.fill(marks, 0);
+			epoch = 1;
+		}
+	}
+
+	/**
+	 * Appends the given ancestor to the queue with the given number, if not already reached.
+	 *
+	 * @return	The new tail of the queue.
+	 */
+	private int enqueueAncestor(final int person, final long number, final BigInteger bigNumber, final int tail){
+		if(person == PedigreeGraph.NONE || marks[person] == epoch)
+			return tail;
+
+		marks[person] = epoch;
+		queue[tail] = person;
+		queueNumbers[tail] = number;
+		if(bigNumber != null){
+			if(queueBigNumbers == null)
+				queueBigNumbers = new BigInteger[queue.length];
+			queueBigNumbers[tail] = bigNumber;
+		}
+		return tail + 1;
+	}
+
+	/**
+	 * Appends the given descendant to the queue, if not already reached.
+	 *
+	 * @return	The new tail of the queue.
+	 */
+	private int enqueueDescendant(final int person, final int parentOrder, final int ordinal, final int tail){
+		if(marks[person] == epoch)
+			return tail;
+
+		marks[person] = epoch;
+		queue[tail] = person;
+		queueParents[tail] = parentOrder;
+		queueOrdinals[tail] = ordinal;
+		return tail + 1;
+	}
+
+	/**
+	 * @return	The positions of the first <code>size</code> entries of the queue, sorted by individual.
+	 */
+	private int[] sortByPerson(final int size){
+		final long[] keys = new long[size];
+		for(int i = 0; i < size; i ++)
+			keys[i] = ((long)queue[i] << 32) | i;
+		Arrays.sort(keys);
+		final int[] orders = new int[size];
+		for(int i = 0; i < size; i ++)
+			orders[i] = (int)keys[i];
+		return orders;
+	}
+
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+
+
+/**
+ * The genealogical numbers of the ancestors and descendants of an individual (the root), as computed by a {@link PedigreeNumberer}.
+ * <ul>
+ *    <li><i>Ahnentafel</i>: the root is 1, the father and the mother of the individual <i>n</i> are <i>2n</i> and <i>2n + 1</i>;</li>
+ *    <li><i>d'Aboville</i>: the root is 1, the <i>k</i>-th child of the individual <i>n</i> is <i>n.k</i>;</li>
+ *    <li><i>Register</i>: the root and each descendant with children get a progressive number, generation by generation, and each
+ *    child is also numbered with a lowercase roman numeral among its siblings.</li>
+ * </ul>
+ * <p>An individual reachable through more lines (pedigree collapse) is numbered only once, through the first line in breadth-first
+ * order (for Ahnentafel, the lowest number).<br>
+ * Only the individuals reached are stored, sorted by index; the Ahnentafel numbers are kept as <code>long</code> up to the 63rd
+ * generation, as {@link BigInteger} beyond.</p>
+ */
+public final class PedigreeNumbering{
+
+	private static final String[] ROMAN_SYMBOLS = {"m", "cm", "d", "cd", "c", "xc", "l", "xl", "x", "ix", "v", "iv", "i"};
+	private static final int[] ROMAN_VALUES = {1000, 900, 500, 400, 100, 90, 50, 40, 10, 9, 5, 4, 1};
+
+
+	private final int root;
+
+	/** The ancestors (root included), sorted. */
+	private final int[] ancestors;
+	/** The Ahnentafel number of each ancestor, {@link PedigreeGraph#NONE} if it needs a {@link BigInteger}. */
+	private final long[] ahnentafelNumbers;
+	/** The Ahnentafel numbers not fitting a <code>long</code>, by position in {@link #ancestors}. */
+	private final Map<Integer, BigInteger> bigAhnentafelNumbers;
+
+	/** The descendants (root included), sorted. */
+	private final int[] descendants;
+	/** The position of each descendant in breadth-first order. */
+	private final int[] descendantOrders;
+	/** For each descendant in breadth-first order, the position of its parent, {@link PedigreeGraph#NONE} for the root. */
+	private final int[] parentOrders;
+	/** For each descendant in breadth-first order, its position among the children of its parent, starting from one. */
+	private final int[] childOrdinals;
+	/** For each descendant in breadth-first order, its Register number, zero if it has no children. */
+	private final int[] registerNumbers;
+
+
+	PedigreeNumbering(final int root, final int[] ancestors, final long[] ahnentafelNumbers,
+			final Map<Integer, BigInteger> bigAhnentafelNumbers, final int[] descendants, final int[] descendantOrders,
+			final int[] parentOrders, final int[] childOrdinals, final int[] registerNumbers){
+		this.root = root;
+		this.ancestors = ancestors;
+		this.ahnentafelNumbers = ahnentafelNumbers;
+		this.bigAhnentafelNumbers = bigAhnentafelNumbers;
+		this.descendants = descendants;
+		this.descendantOrders = descendantOrders;
+		this.parentOrders = parentOrders;
+		this.childOrdinals = childOrdinals;
+		this.registerNumbers = registerNumbers;
+	}
+
+	public int getRoot(){
+		return root;
+	}
+
+	/**
+	 * @return	The number of ancestors, root included.
+	 */
+	public int getAncestorCount(){
+		return ancestors.length;
+	}
+
+	/**
+	 * @return	The number of descendants, root included.
+	 */
+	public int getDescendantCount(){
+		return descendants.length;
+	}
+
+	/**
+	 * @return	The Ahnentafel number of the given individual, {@link PedigreeGraph#NONE} if it is not an ancestor of the root or its
+	 * 	number does not fit a <code>long</code> (see {@link #getAhnentafelBigNumber(int)}).
+	 */
+	public long getAhnentafelNumber(final int person){
+		final int position = Arrays.binarySearch(ancestors, person);
+		return (position >= 0? ahnentafelNumbers[position]: PedigreeGraph.NONE);
+	}
+
+	/**
+	 * @return	The Ahnentafel number of the given individual, <code>null</code> if it is not an ancestor of the root.
+	 */
+	public BigInteger getAhnentafelBigNumber(final int person){
+		final int position = Arrays.binarySearch(ancestors, person);
+		if(position < 0)
+			return null;
+
+		final long number = ahnentafelNumbers[position];
+		return (number != PedigreeGraph.NONE? BigInteger.valueOf(number): bigAhnentafelNumbers.get(position));
+	}
+
+	/**
+	 * @return	The d'Aboville number of the given individual, <code>null</code> if it is not a descendant of the root.
+	 */
+	public String getDAbovilleNumber(final int person){
+		final int position = Arrays.binarySearch(descendants, person);
+		if(position < 0)
+			return null;
+
+		int order = descendantOrders[position];
+		if(parentOrders[order] == PedigreeGraph.NONE)
+			return "1";
+
+		final StringBuilder sb = new StringBuilder();
+		while(parentOrders[order] != PedigreeGraph.NONE){
+			sb.insert(0, childOrdinals[order])
+				.insert(0, '.');
+			order = parentOrders[order];
+		}
+		return sb.insert(0, '1')
+			.toString();
+	}
+
+	/**
+	 * @return	The Register number of the given individual, zero if it is not a descendant of the root or it has no children.
+	 */
+	public int getRegisterNumber(final int person){
+		final int position = Arrays.binarySearch(descendants, person);
+		return (position >= 0? registerNumbers[descendantOrders[position]]: 0);
+	}
+
+	/**
+	 * @return	The roman numeral of the given individual among the children of its parent in the Register numbering,
+	 * 	<code>null</code> if it is not a descendant of the root (or it is the root).
+	 */
+	public String getRegisterChildNumeral(final int person){
+		final int position = Arrays.binarySearch(descendants, person);
+		if(position < 0 || parentOrders[descendantOrders[position]] == PedigreeGraph.NONE)
+			return null;
+
+		int ordinal = childOrdinals[descendantOrders[position]];
+		final StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < ROMAN_VALUES.length; i ++)
+			while(ordinal >= ROMAN_VALUES[i]){
+				sb.append(ROMAN_SYMBOLS[i]);
+				ordinal -= ROMAN_VALUES[i];
+			}
+		return sb.toString();
+	}
+
+}
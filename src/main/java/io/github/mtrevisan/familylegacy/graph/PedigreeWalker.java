@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+
+/**
+ * Walks the relatives of an individual in a {@link PedigreeGraph}, returning their indexes.
+ * <p>A walker is reused traversal after traversal: each call to {@link #ancestors(int)}, {@link #descendants(int)},
+ * {@link #siblings(int)}, or {@link #spouses(int)} restarts it and returns the walker itself, so no object is created, per
+ * traversal or per step.<br>
+ * Ancestors and descendants are returned in breadth-first order, each only once even if reachable through more lines (pedigree
+ * collapse).</p>
+ * <p>A walker is not thread-safe, each thread should use its own (see {@link PedigreeGraph#newWalker()}).</p>
+ */
+public final class PedigreeWalker implements PrimitiveIterator.OfInt{
+
+	private final PedigreeGraph graph;
+
+	/** The individuals to be returned, from <code>head</code> to <code>tail</code>. */
+	private final int[] queue;
+	/** The generation of each individual in the queue, relative to the starting one. */
+	private final int[] generations;
+	private int head;
+	private int tail;
+	/** The individuals already queued in the current traversal are the ones marked with the current epoch. */
+	private final int[] marks;
+	private int epoch;
+
+	/** The relatives to expand, <code>null</code> if the queue is already complete. */
+	private IntAdjacency expansion;
+	private int maxGeneration;
+	private int generation;
+
+
+	PedigreeWalker(final PedigreeGraph graph){
+		this.graph = graph;
+
+		final int size = graph.getPersonCount();
+		queue = new int[size];
+		generations = new int[size];
+		marks = new int[size];
+	}
+
+	/**
+	 * Restarts the walker over the ancestors of the given individual.
+	 *
+	 * @param person	The index of the individual (not returned).
+	 * @return	This walker.
+	 */
+	public PedigreeWalker ancestors(final int person){
+		return ancestors(person, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Restarts the walker over the ancestors of the given individual, up to the given generation.
+	 *
+	 * @param person	The index of the individual (not returned).
+	 * @param maxGeneration	The last generation to return (1 are the parents).
+	 * @return	This walker.
+	 */
+	public PedigreeWalker ancestors(final int person, final int maxGeneration){
+		return restart(person, graph.getParents(), maxGeneration);
+	}
+
+	/**
+	 * Restarts the walker over the descendants of the given individual.
+	 *
+	 * @param person	The index of the individual (not returned).
+	 * @return	This walker.
+	 */
+	public PedigreeWalker descendants(final int person){
+		return descendants(person, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Restarts the walker over the descendants of the given individual, up to the given generation.
+	 *
+	 * @param person	The index of the individual (not returned).
+	 * @param maxGeneration	The last generation to return (1 are the children).
+	 * @return	This walker.
+	 */
+	public PedigreeWalker descendants(final int person, final int maxGeneration){
+		return restart(person, graph.getChildren(), maxGeneration);
+	}
+
+	/**
+	 * Restarts the walker over the siblings of the given individual, that is the other children of the families it is a child of.
+	 *
+	 * @param person	The index of the individual (not returned).
+	 * @return	This walker.
+	 */
+	public PedigreeWalker siblings(final int person){
+		restart(person, null, 0);
+
+		final IntAdjacency childFamilies = graph.getChildFamilies();
+		final IntAdjacency familyChildren = graph.getFamilyChildren();
+		for(int i = childFamilies.start(person); i < childFamilies.end(person); i ++){
+			final int family = childFamilies.targets()[i];
+			for(int j = familyChildren.start(family); j < familyChildren.end(family); j ++)
+				enqueue(familyChildren.targets()[j], 0);
+		}
+		return this;
+	}
+
+	/**
+	 * Restarts the walker over the spouses of the given individual.
+	 *
+	 * @param person	The index of the individual (not returned).
+	 * @return	This walker.
+	 */
+	public PedigreeWalker spouses(final int person){
+		restart(person, null, 0);
+
+		final IntAdjacency spouses = graph.getSpouses();
+		for(int i = spouses.start(person); i < spouses.end(person); i ++)
+			enqueue(spouses.targets()[i], 0);
+		return this;
+	}
+
+	private PedigreeWalker restart(final int person, final IntAdjacency expansion, final int maxGeneration){
+		if(++ epoch == 0){
+			//the epochs wrapped around: the marks are no longer reliable
+			Arrays.fill(marks, 0);
+			epoch = 1;
+		}
+		head = 0;
+		tail = 0;
+		generation = 0;
+		this.expansion = expansion;
+		this.maxGeneration = maxGeneration;
+
+		marks[person] = epoch;
+		if(expansion != null)
+			expand(person, 0);
+		return this;
+	}
+
+	private void expand(final int person, final int generation){
+		if(generation < maxGeneration)
+			for(int i = expansion.start(person); i < expansion.end(person); i ++)
+				enqueue(expansion.targets()[i], generation + 1);
+	}
+
+	private void enqueue(final int person, final int generation){
+		if(marks[person] != epoch){
+			marks[person] = epoch;
+			queue[tail] = person;
+			generations[tail] = generation;
+			tail ++;
+		}
+	}
+
+	@Override
+	public boolean hasNext(){
+		return (head < tail);
+	}
+
+	@Override
+	public int nextInt(){
+		if(head == tail)
+			throw new NoSuchElementException();
+
+		final int person = queue[head];
+		generation = generations[head];
+		head ++;
+		if(expansion != null)
+			expand(person, generation);
+		return person;
+	}
+
+	/**
+	 * @return	The generation of the last individual returned, relative to the starting one (positive both for ancestors and
+	 * 	descendants, zero for siblings and spouses).
+	 */
+	public int getGeneration(){
+		return generation;
+	}
+
+}
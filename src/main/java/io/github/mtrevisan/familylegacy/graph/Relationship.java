@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import java.util.Arrays;
+
+
+/**
+ * How an individual (the second) is related to another (the first) by blood, through their closest common ancestors.
+ */
+public final class Relationship{
+
+	/** Two individuals with no known common ancestor. */
+	public static final Relationship UNRELATED = new Relationship(new int[0], -1, -1, false);
+
+	private static final String[] ORDINALS = {"first", "second", "third", "fourth", "fifth", "sixth", "seventh", "eighth", "ninth",
+		"tenth"};
+
+
+	private final int[] commonAncestors;
+	private final int firstGenerations;
+	private final int secondGenerations;
+	private final boolean half;
+
+
+	Relationship(final int[] commonAncestors, final int firstGenerations, final int secondGenerations, final boolean half){
+		this.commonAncestors = commonAncestors;
+		this.firstGenerations = firstGenerations;
+		this.secondGenerations = secondGenerations;
+		this.half = half;
+	}
+
+	public boolean isRelated(){
+		return (firstGenerations >= 0);
+	}
+
+	/**
+	 * @return	The closest common ancestors (one of the two individuals if the other descends from it).
+	 */
+	public int[] getCommonAncestors(){
+		return commonAncestors.clone();
+	}
+
+	/**
+	 * @return	The generations from the first individual up to the common ancestors, -1 if not related.
+	 */
+	public int getFirstGenerations(){
+		return firstGenerations;
+	}
+
+	/**
+	 * @return	The generations from the second individual up to the common ancestors, -1 if not related.
+	 */
+	public int getSecondGenerations(){
+		return secondGenerations;
+	}
+
+	/**
+	 * @return	Whether the individuals share only one of the two members of the ancestral couple.
+	 */
+	public boolean isHalf(){
+		return half;
+	}
+
+	/**
+	 * Whether one of the individuals is an ancestor of the other (or they are the same individual).
+	 */
+	public boolean isDirectLine(){
+		return (firstGenerations == 0 || secondGenerations == 0);
+	}
+
+	/**
+	 * @return	The cousin degree (1 for first cousins, 0 for siblings), -1 if not related or in direct line.
+	 */
+	public int getCousinDegree(){
+		return (isRelated() && !isDirectLine()? Math.min(firstGenerations, secondGenerations) - 1: -1);
+	}
+
+	/**
+	 * @return	The number of generations of difference between the two individuals, -1 if not related.
+	 */
+	public int getRemoval(){
+		return (isRelated()? Math.abs(firstGenerations - secondGenerations): -1);
+	}
+
+	/**
+	 * Returns what the second individual is to the first one, as in "second cousin once removed".
+	 */
+	public String describe(){
+		if(!isRelated())
+			return "unrelated";
+		if(firstGenerations == 0 && secondGenerations == 0)
+			return "self";
+		if(firstGenerations == 0)
+			return nameRelative(secondGenerations, "child", "grandchild");
+		if(secondGenerations == 0)
+			return nameRelative(firstGenerations, "parent", "grandparent");
+
+		final String prefix = (half? "half-": "");
+		if(firstGenerations == 1 && secondGenerations == 1)
+			return prefix + "sibling";
+		if(firstGenerations == 1)
+			return prefixAlternatives(prefix, nameRelative(secondGenerations - 1, "niece or nephew", "grandniece or grandnephew"));
+		if(secondGenerations == 1)
+			return prefixAlternatives(prefix, nameRelative(firstGenerations - 1, "aunt or uncle", "great-aunt or great-uncle"));
+
+		final int degree = getCousinDegree();
+		final int removal = getRemoval();
+		final StringBuilder sb = new StringBuilder(prefix)
+			.append(degree <= ORDINALS.length? ORDINALS[degree - 1]: ordinal(degree))
+			.append(" cousin");
+		if(removal == 1)
+			sb.append(" once removed");
+		else if(removal == 2)
+			sb.append(" twice removed");
+		else if(removal > 2)
+			sb.append(' ').append(removal).append(" times removed");
+		return sb.toString();
+	}
+
+	/**
+	 * Describes a relative <code>generations</code> apart, in direct line or from a sibling.
+	 *
+	 * @param generations	The generations apart.
+	 * @param first	The name of the relative one generation apart.
+	 * @param second	The name of the relative two generations apart, prefixed by "great-" for each further one (in each of its
+	 * 	alternatives, separated by " or ").
+	 */
+	private static String nameRelative(final int generations, final String first, final String second){
+		if(generations == 1)
+			return first;
+
+		return prefixAlternatives("great-".repeat(generations - 2), second);
+	}
+
+	/** Prefixes each of the alternatives of a name, separated by " or ". */
+	private static String prefixAlternatives(final String prefix, final String name){
+		return (prefix.isEmpty()? name: prefix + name.replace(" or ", " or " + prefix));
+	}
+
+	/** Returns the number followed by its English ordinal suffix, as in "21st" or "112th". */
+	private static String ordinal(final int number){
+		final int lastTwoDigits = number % 100;
+		final int lastDigit = number % 10;
+		final String suffix;
+		if((lastTwoDigits >= 11 && lastTwoDigits <= 13) || lastDigit == 0 || lastDigit > 3)
+			suffix = "th";
+		else
+			suffix = (lastDigit == 1? "st": (lastDigit == 2? "nd": "rd"));
+		return number + suffix;
+	}
+
+	@Override
+	public String toString(){
+		return describe() + (isRelated()? " (via " + Arrays.toString(commonAncestors) + ", " + firstGenerations + "/"
+			+ secondGenerations + ")": "");
+	}
+
+}
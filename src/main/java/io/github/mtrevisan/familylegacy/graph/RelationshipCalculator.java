@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import java.util.Arrays;
+
+
+/**
+ * Computes how two individuals of a {@link PedigreeGraph} are related by blood, through their closest common ancestors.
+ * <p>The ancestors of the first individual are indexed with their distance, and the index is kept for the next query with the
+ * same first individual; then the ancestors of the second one are visited in breadth-first order, stopping as soon as no closer
+ * common ancestor can be found.<br>
+ * Both indexes are arrays stamped with an epoch, so they are reused without being cleared, and a query allocates only its
+ * result.</p>
+ * <p>A calculator is not thread-safe, each thread should use its own.</p>
+ */
+public final class RelationshipCalculator{
+
+	private final PedigreeGraph graph;
+
+	private final AncestorIndex firstAncestors;
+	private final AncestorIndex secondAncestors;
+	/** The individual whose ancestors are in {@link #firstAncestors}, {@link PedigreeGraph#NONE} if none. */
+	private int lastFirst = PedigreeGraph.NONE;
+
+	private int[] commonAncestors = new int[4];
+
+
+	/**
+	 * The ancestors of an individual with their distance from it, filled in breadth-first order.
+	 */
+	private static final class AncestorIndex{
+
+		private final int[] queue;
+		private final int[] distances;
+		private final int[] marks;
+		private int epoch;
+		private int head;
+		private int tail;
+
+
+		AncestorIndex(final int size){
+			queue = new int[size];
+			distances = new int[size];
+			marks = new int[size];
+		}
+
+		void restart(final int person){
+			if(++ epoch == 0){
+				//the epochs wrapped around: the marks are no longer reliable
+				Arrays.fill(marks, 0);
+				epoch = 1;
+			}
+			head = 0;
+			tail = 0;
+			enqueue(person, 0);
+		}
+
+		boolean hasNext(){
+			return (head < tail);
+		}
+
+		int next(){
+			return queue[head ++];
+		}
+
+		void expand(final int person, final IntAdjacency parents){
+			final int distance = distances[person] + 1;
+			for(int i = parents.start(person); i < parents.end(person); i ++)
+				enqueue(parents.targets()[i], distance);
+		}
+
+		private void enqueue(final int person, final int distance){
+			if(marks[person] != epoch){
+				marks[person] = epoch;
+				distances[person] = distance;
+				queue[tail ++] = person;
+			}
+		}
+
+		/**
+		 * @return	The distance of the given ancestor, -1 if it is not an ancestor (yet reached).
+		 */
+		int getDistance(final int person){
+			return (marks[person] == epoch? distances[person]: -1);
+		}
+
+	}
+
+
+	public RelationshipCalculator(final PedigreeGraph graph){
+		this.graph = graph;
+
+		firstAncestors = new AncestorIndex(graph.getPersonCount());
+		secondAncestors = new AncestorIndex(graph.getPersonCount());
+	}
+
+	/**
+	 * Computes what the second individual is to the first one.
+	 *
+	 * @param first	The index of the first individual.
+	 * @param second	The index of the second individual.
+	 * @return	The relationship, {@link Relationship#UNRELATED} if they have no known common ancestor.
+	 */
+	public Relationship compute(final int first, final int second){
+		final IntAdjacency parents = graph.getParents();
+		if(first != lastFirst){
+			firstAncestors.restart(first);
+			while(firstAncestors.hasNext())
+				firstAncestors.expand(firstAncestors.next(), parents);
+			lastFirst = first;
+		}
+
+		int bestTotal = Integer.MAX_VALUE;
+		int bestFirst = -1;
+		int bestSecond = -1;
+		int count = 0;
+		secondAncestors.restart(second);
+		while(secondAncestors.hasNext()){
+			final int ancestor = secondAncestors.next();
+			final int secondDistance = secondAncestors.getDistance(ancestor);
+			//NOTE: the distances never decrease, no closer common ancestor can be found from here on
+			if(secondDistance > bestTotal)
+				break;
+
+			final int firstDistance = firstAncestors.getDistance(ancestor);
+			if(firstDistance >= 0){
+				final int total = firstDistance + secondDistance;
+				if(total < bestTotal || total == bestTotal
+						&& Math.abs(firstDistance - secondDistance) < Math.abs(bestFirst - bestSecond)){
+					bestTotal = total;
+					bestFirst = firstDistance;
+					bestSecond = secondDistance;
+					count = 0;
+				}
+				if(firstDistance == bestFirst && secondDistance == bestSecond)
+					count = addCommonAncestor(ancestor, count);
+			}
+
+			if(secondDistance < bestTotal)
+				secondAncestors.expand(ancestor, parents);
+		}
+		if(count == 0)
+			return Relationship.UNRELATED;
+
+		final boolean half = (bestFirst > 0 && bestSecond > 0 && !descendFromSameFamily(count, bestFirst, bestSecond));
+		return new Relationship(Arrays.copyOf(commonAncestors, count), bestFirst, bestSecond, half);
+	}
+
+	private int addCommonAncestor(final int ancestor, final int count){
+		if(count == commonAncestors.length)
+			commonAncestors = Arrays.copyOf(commonAncestors, count << 1);
+		commonAncestors[count] = ancestor;
+		return count + 1;
+	}
+
+	/**
+	 * Whether the lines of the two individuals descend from the common ancestors through two children of the same family (so they
+	 * share both members of the ancestral couple, even if one of them is not known).
+	 */
+	private boolean descendFromSameFamily(final int count, final int firstDistance, final int secondDistance){
+		final IntAdjacency spouseFamilies = graph.getSpouseFamilies();
+		final IntAdjacency familyChildren = graph.getFamilyChildren();
+		for(int i = 0; i < count; i ++){
+			final int ancestor = commonAncestors[i];
+			for(int j = spouseFamilies.start(ancestor); j < spouseFamilies.end(ancestor); j ++){
+				final int family = spouseFamilies.targets()[j];
+				boolean firstLine = false;
+				boolean secondLine = false;
+				for(int k = familyChildren.start(family); k < familyChildren.end(family); k ++){
+					final int child = familyChildren.targets()[k];
+					firstLine |= (firstAncestors.getDistance(child) == firstDistance - 1);
+					secondLine |= (secondAncestors.getDistance(child) == secondDistance - 1);
+				}
+				if(firstLine && secondLine)
+					return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.Charset;
+import java.text.Normalizer;
+
+
+class AnselCharsetTest{
+
+	private static final Charset ANSEL = AnselCharset.INSTANCE;
+
+
+	@Test
+	void ascii(){
+		assertRoundTrip("0 @I1@ INDI", bytes('0', ' ', '@', 'I', '1', '@', ' ', 'I', 'N', 'D', 'I'));
+	}
+
+	@Test
+	void precomposed(){
+		assertRoundTrip("\u00E9", bytes(0xE2, 'e'));
+		assertRoundTrip("\u00D1and\u00FA", bytes(0xE4, 'N', 'a', 'n', 'd', 0xE2, 'u'));
+	}
+
+	@Test
+	void combiningMarksPrecedeTheirBase(){
+		assertRoundTrip("e\u0301", bytes(0xE2, 'e'));
+		assertRoundTrip("e\u0323\u0302x", bytes(0xF2, 0xE3, 'e', 'x'));
+		//the diacritic of the precomposed character comes first, the order matters for marks above
+		assertRoundTrip("\u00EA\u0303", bytes(0xE3, 0xE4, 'e'));
+	}
+
+	@Test
+	void precomposedWithMoreDiacritics(){
+		//e with circumflex and dot below
+		Assertions.assertTrue(ANSEL.newEncoder().canEncode('\u1EC7'));
+		assertRoundTrip("\u1EC7", bytes(0xF2, 0xE3, 'e'));
+		//e with circumflex and tilde
+		assertRoundTrip("Nguy\u1EC5n", bytes('N', 'g', 'u', 'y', 0xE3, 0xE4, 'e', 'n'));
+	}
+
+	@Test
+	void combiningMarkWithoutBase(){
+		//written in its spacing form, it must not attach to the following character
+		final byte[] encoded = "\u0301a".getBytes(ANSEL);
+		Assertions.assertArrayEquals(bytes(0xE2, ' ', 'a'), encoded);
+		Assertions.assertEquals("\u02CAa", new String(encoded, ANSEL));
+	}
+
+	@Test
+	void unmappable(){
+		Assertions.assertFalse(ANSEL.newEncoder().canEncode('\u4E2D'));
+		Assertions.assertArrayEquals(bytes('a', '?', 'b'), "a\u4E2Db".getBytes(ANSEL));
+	}
+
+
+	private static void assertRoundTrip(final String text, final byte[] expected){
+		final byte[] encoded = text.getBytes(ANSEL);
+		Assertions.assertArrayEquals(expected, encoded, text);
+		Assertions.assertEquals(Normalizer.normalize(text, Normalizer.Form.NFC),
+			Normalizer.normalize(new String(encoded, ANSEL), Normalizer.Form.NFC), text);
+	}
+
+	private static byte[] bytes(final int... values){
+		final byte[] bytes = new byte[values.length];
+		for(int i = 0; i < values.length; i ++)
+			bytes[i] = (byte)values[i];
+		return bytes;
+	}
+
+}
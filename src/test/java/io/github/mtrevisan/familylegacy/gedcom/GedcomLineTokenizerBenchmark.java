@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Times the line tokenizer against the regex previously used by {@link GedcomNode#parse(String)}.
+ * <p>Run it with {@code mvn test -Pbenchmark}; the two are checked to give the same fields by {@link GedcomLineTokenizerTest}.</p>
+ */
+public final class GedcomLineTokenizerBenchmark{
+
+	/** NOTE: {@link Pattern#DOTALL} is for unicode line separator. */
+	static final Pattern GEDCOM_LINE = Pattern.compile("^\\s*(\\d)\\s+(@([^@ ]+)@\\s+)?([a-zA-Z_0-9.]+)(\\s+@([^@ ]+)@)?(\\s(.*))?$",
+		Pattern.DOTALL);
+	static final int GEDCOM_LINE_LEVEL = 1;
+	static final int GEDCOM_LINE_ID = 3;
+	static final int GEDCOM_LINE_TAG = 4;
+	static final int GEDCOM_LINE_XREF = 6;
+	static final int GEDCOM_LINE_VALUE = 8;
+
+	private static final int WARMUP_ITERATIONS = 10;
+	private static final int ITERATIONS = 20;
+
+
+	/** Sink for the computed hashes, prevents the JIT from removing the loops. */
+	private static int sink;
+
+
+	private GedcomLineTokenizerBenchmark(){}
+
+	public static void main(final String[] args) throws IOException{
+		final List<String> lines = readLines(args.length > 0? args[0]: "/ged/complex.ged");
+
+		for(int i = 0; i < WARMUP_ITERATIONS; i ++){
+			sink += runRegex(lines);
+			sink += runTokenizer(lines);
+		}
+
+		long regexTime = 0;
+		long tokenizerTime = 0;
+		for(int i = 0; i < ITERATIONS; i ++){
+			long start = System.nanoTime();
+			sink += runRegex(lines);
+			regexTime += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			sink += runTokenizer(lines);
+			tokenizerTime += System.nanoTime() - start;
+		}
+
+		System.out.format("lines: %d%n", lines.size());
+		System.out.format("regex:     %.2f ms/pass%n", regexTime / (ITERATIONS * 1_000_000.));
+		System.out.format("tokenizer: %.2f ms/pass%n", tokenizerTime / (ITERATIONS * 1_000_000.));
+	}
+
+	static List<String> readLines(final String gedcomFile) throws IOException{
+		final List<String> lines = new ArrayList<>();
+		try(
+				final InputStream is = GedcomLineTokenizerBenchmark.class.getResourceAsStream(gedcomFile);
+				final BufferedReader br = GedcomHelper.getBufferedReader(is)){
+			String line;
+			while((line = br.readLine()) != null)
+				if(!line.isBlank())
+					lines.add(line);
+		}
+		return lines;
+	}
+
+	private static int runRegex(final List<String> lines){
+		int hash = 0;
+		for(final String line : lines){
+			final Matcher m = GEDCOM_LINE.matcher(line.trim());
+			if(m.find()){
+				hash += Integer.parseInt(m.group(GEDCOM_LINE_LEVEL));
+				hash += Objects.hashCode(m.group(GEDCOM_LINE_ID));
+				hash += m.group(GEDCOM_LINE_TAG).trim().toUpperCase().hashCode();
+				hash += Objects.hashCode(m.group(GEDCOM_LINE_XREF));
+				hash += Objects.hashCode(m.group(GEDCOM_LINE_VALUE));
+			}
+		}
+		return hash;
+	}
+
+	private static int runTokenizer(final List<String> lines){
+		final GedcomLineTokenizer tokenizer = new GedcomLineTokenizer();
+		int hash = 0;
+		for(final String line : lines)
+			if(tokenizer.tokenize(line)){
+				hash += tokenizer.getLevel();
+				hash += Objects.hashCode(tokenizer.getID());
+				hash += tokenizer.getTag().hashCode();
+				hash += Objects.hashCode(tokenizer.getXRef());
+				hash += Objects.hashCode(tokenizer.getValue());
+			}
+		return hash;
+	}
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Matcher;
+
+
+class GedcomLineTokenizerTest{
+
+	@Test
+	void tokenizeFields(){
+		final GedcomLineTokenizer tokenizer = new GedcomLineTokenizer();
+
+		Assertions.assertTrue(tokenizer.tokenize("0 @I1@ INDI"));
+		Assertions.assertEquals(0, tokenizer.getLevel());
+		Assertions.assertEquals("I1", tokenizer.getID());
+		Assertions.assertEquals("INDI", tokenizer.getTag());
+		Assertions.assertNull(tokenizer.getXRef());
+		Assertions.assertNull(tokenizer.getValue());
+
+		Assertions.assertTrue(tokenizer.tokenize("  1 famc @F2@"));
+		Assertions.assertEquals(1, tokenizer.getLevel());
+		Assertions.assertNull(tokenizer.getID());
+		Assertions.assertEquals("FAMC", tokenizer.getTag());
+		Assertions.assertEquals("F2", tokenizer.getXRef());
+
+		Assertions.assertTrue(tokenizer.tokenize("12 NOTE  two  spaces "));
+		Assertions.assertEquals(12, tokenizer.getLevel());
+		Assertions.assertEquals(" two  spaces", tokenizer.getValue());
+
+		Assertions.assertFalse(tokenizer.tokenize("NAME John"));
+		Assertions.assertFalse(tokenizer.tokenize("1"));
+	}
+
+	@Test
+	void sameFieldsAsRegex() throws IOException{
+		final List<String> lines = GedcomLineTokenizerBenchmark.readLines("/ged/complex.ged");
+		Assertions.assertFalse(lines.isEmpty());
+
+		final GedcomLineTokenizer tokenizer = new GedcomLineTokenizer();
+		for(final String line : lines){
+			final Matcher m = GedcomLineTokenizerBenchmark.GEDCOM_LINE.matcher(line.trim());
+			final boolean found = m.find();
+			final boolean tokenized = tokenizer.tokenize(line);
+			//NOTE: the regex does not accept multi-digit levels
+			if(tokenized && tokenizer.getLevel() > 9)
+				continue;
+
+			Assertions.assertEquals(found, tokenized, line);
+			if(found){
+				Assertions.assertEquals(Integer.parseInt(m.group(GedcomLineTokenizerBenchmark.GEDCOM_LINE_LEVEL)), tokenizer.getLevel(), line);
+				Assertions.assertEquals(m.group(GedcomLineTokenizerBenchmark.GEDCOM_LINE_ID), tokenizer.getID(), line);
+				Assertions.assertEquals(m.group(GedcomLineTokenizerBenchmark.GEDCOM_LINE_TAG).toUpperCase(), tokenizer.getTag(), line);
+				Assertions.assertEquals(m.group(GedcomLineTokenizerBenchmark.GEDCOM_LINE_XREF), tokenizer.getXRef(), line);
+				Assertions.assertEquals(m.group(GedcomLineTokenizerBenchmark.GEDCOM_LINE_VALUE), tokenizer.getValue(), line);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.gedcom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+class GedcomSnapshotTest{
+
+	private static final String GRAMMAR_FILE = "/gedg/gedcomobjects_5.5.1.gedg";
+
+	private static final String GEDCOM = "0 HEAD\n1 CHAR UTF-8\n"
+		+ "0 @I1@ INDI\n1 NAME John /Smith/\n1 FAMS @F1@\n"
+		+ "0 @I2@ INDI\n1 NAME Mary /Jones/\n1 FAMS @F1@\n"
+		+ "0 @F1@ FAM\n1 HUSB @I1@\n1 WIFE @I2@\n"
+		+ "0 TRLR\n";
+
+
+	@TempDir
+	Path directory;
+
+
+	@Test
+	void reload() throws Exception{
+		final Path snapshotFile = writeSnapshot();
+
+		final GedcomCompactTree tree = GedcomSnapshot.load(snapshotFile, gedcomFile());
+		Assertions.assertNotNull(tree);
+		final GedcomNode person = Gedcom.create(GRAMMAR_FILE, tree)
+			.getPerson("I2");
+		Assertions.assertEquals("Mary /Jones/", person.getChildrenWithTag("NAME").get(0).getValue());
+	}
+
+	@Test
+	void parentOutOfRange() throws Exception{
+		final Path snapshotFile = writeSnapshot();
+		final Layout layout = Layout.of(snapshotFile);
+
+		overwrite(snapshotFile, layout.parents + Integer.BYTES, layout.size);
+
+		Assertions.assertNull(GedcomSnapshot.load(snapshotFile, gedcomFile()));
+	}
+
+	@Test
+	void recordOutOfRange() throws Exception{
+		final Path snapshotFile = writeSnapshot();
+		final Layout layout = Layout.of(snapshotFile);
+
+		overwrite(snapshotFile, layout.recordIndex, -1);
+
+		Assertions.assertNull(GedcomSnapshot.load(snapshotFile, gedcomFile()));
+	}
+
+	@Test
+	void stringOutOfRange() throws Exception{
+		final Path snapshotFile = writeSnapshot();
+		final Layout layout = Layout.of(snapshotFile);
+
+		//the value of the last node points past the string table
+		overwrite(snapshotFile, layout.values + (layout.size - 1) * Integer.BYTES, layout.stringsSize);
+
+		Assertions.assertNull(GedcomSnapshot.load(snapshotFile, gedcomFile()));
+	}
+
+	@Test
+	void truncatedStrings() throws Exception{
+		final Path snapshotFile = writeSnapshot();
+		final Layout layout = Layout.of(snapshotFile);
+
+		//the strings run past the end of the table
+		overwrite(snapshotFile, layout.stringsSizePosition, 1);
+
+		Assertions.assertNull(GedcomSnapshot.load(snapshotFile, gedcomFile()));
+	}
+
+
+	private Path gedcomFile(){
+		return directory.resolve("test.ged");
+	}
+
+	private Path writeSnapshot() throws Exception{
+		final Path gedcomFile = gedcomFile();
+		Files.writeString(gedcomFile, GEDCOM, StandardCharsets.UTF_8);
+		final Path snapshotFile = directory.resolve("test.snapshot");
+		GedcomSnapshot.write(Gedcom.loadCompact(GRAMMAR_FILE, gedcomFile).getCursor(), gedcomFile, snapshotFile);
+		return snapshotFile;
+	}
+
+	private static void overwrite(final Path snapshotFile, final int position, final int value) throws IOException{
+		try(final FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.WRITE)){
+			channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, value), position);
+		}
+	}
+
+	/** The positions of the node arrays in a snapshot, as documented in {@link GedcomSnapshot}. */
+	private static final class Layout{
+
+		private int size;
+		private int parents;
+		private int values;
+		private int recordIndex;
+		private int stringsSizePosition;
+		private int stringsSize;
+
+
+		static Layout of(final Path snapshotFile) throws IOException{
+			final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+			//magic number, version, source size, last modification time, hash
+			buffer.position(Integer.BYTES * 2 + Long.BYTES * 2 + 32);
+			final int tags = buffer.getInt();
+			for(int i = 0; i < tags; i ++){
+				final int length = buffer.getShort();
+				buffer.position(buffer.position() + length);
+			}
+
+			final Layout layout = new Layout();
+			layout.size = buffer.getInt();
+			final int levels = buffer.position();
+			layout.parents = levels + layout.size * Short.BYTES * 2;
+			layout.values = layout.parents + layout.size * Integer.BYTES * 5;
+			final int records = buffer.getInt(layout.values + layout.size * Integer.BYTES);
+			layout.recordIndex = layout.values + (layout.size + 1) * Integer.BYTES;
+			layout.stringsSizePosition = layout.recordIndex + records * Integer.BYTES;
+			layout.stringsSize = buffer.getInt(layout.stringsSizePosition);
+			return layout;
+		}
+
+	}
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import io.github.mtrevisan.familylegacy.gedcom.GedcomGrammarParseException;
+import io.github.mtrevisan.familylegacy.gedcom.GedcomParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+
+class KinshipCalculatorTest{
+
+	private static final double EPSILON = 1.e-12;
+
+	private static PedigreeGraph graph;
+	private static KinshipCalculator calculator;
+
+
+	@BeforeAll
+	static void setUp() throws GedcomGrammarParseException, GedcomParseException{
+		graph = PedigreeFixtures.of(PedigreeFixtures.FAMILY);
+		final ForkJoinPool pool = new ForkJoinPool(2);
+		try{
+			calculator = KinshipCalculator.compute(graph, pool);
+		}
+		finally{
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void siblings(){
+		Assertions.assertEquals(1. / 4., kinship("A", "B"), EPSILON);
+		Assertions.assertEquals(1. / 8., kinship("A", "C"), EPSILON);
+	}
+
+	@Test
+	void parentAndCousins(){
+		Assertions.assertEquals(1. / 4., kinship("A", "D"), EPSILON);
+		Assertions.assertEquals(1. / 16., kinship("D", "G"), EPSILON);
+		Assertions.assertEquals(1. / 32., kinship("D", "E"), EPSILON);
+		Assertions.assertEquals(kinship("G", "D"), kinship("D", "G"), EPSILON);
+	}
+
+	@Test
+	void unrelated(){
+		Assertions.assertEquals(0., kinship("A", "U"), EPSILON);
+		Assertions.assertEquals(0., kinship("A", "X"), EPSILON);
+		Assertions.assertEquals(0., calculator.getKinshipCoefficient(graph.getPersonIndex("A"), PedigreeGraph.NONE), EPSILON);
+	}
+
+	@Test
+	void childOfFirstCousins(){
+		final int child = graph.getPersonIndex("K");
+		Assertions.assertEquals(1. / 16., calculator.getInbreedingCoefficient(child), EPSILON);
+		Assertions.assertEquals((1. + 1. / 16.) / 2., calculator.getKinshipCoefficient(child, child), EPSILON);
+
+		//the inbreeding coefficient of an individual is the kinship of its parents
+		Assertions.assertEquals(kinship("D", "G"), calculator.getInbreedingCoefficient(child), EPSILON);
+
+		final double[] coefficients = calculator.getInbreedingCoefficients();
+		for(int person = 0; person < coefficients.length; person ++)
+			if(person != child)
+				Assertions.assertEquals(0., coefficients[person], EPSILON, graph.getPersonID(person));
+	}
+
+
+	private static double kinship(final String first, final String second){
+		return calculator.getKinshipCoefficient(graph.getPersonIndex(first), graph.getPersonIndex(second));
+	}
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import io.github.mtrevisan.familylegacy.gedcom.Gedcom;
+import io.github.mtrevisan.familylegacy.gedcom.GedcomGrammarParseException;
+import io.github.mtrevisan.familylegacy.gedcom.GedcomParseException;
+
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Small pedigrees shared by the tests of the graph.
+ * <pre>
+ *                P1 = P2 (F0)
+ *          +--------+--------+
+ *          H                 Q = S (F7)
+ *     +----+----+            |
+ * W1 = H (F1)  H = W2 (F2)   R
+ *   +--+--+       |
+ *   A     B       C
+ *   |     |       |
+ * A = X  Z = B   C = Y
+ *  (F3)  (F5)    (F4)
+ *   |     |       |
+ *   D  =  G       E
+ *     (F6)
+ *      |
+ *      K
+ * </pre>
+ * <p>A and B are full siblings, C their half-sibling; D and G are first cousins, and K is their child; U is not related to anyone.</p>
+ */
+final class PedigreeFixtures{
+
+	static final String GRAMMAR_FILE = "/gedg/gedcomobjects_5.5.1.gedg";
+
+	static final String[] FAMILY = {
+		"0 @P1@ INDI", "0 @P2@ INDI", "0 @H@ INDI", "0 @Q@ INDI", "0 @S@ INDI", "0 @R@ INDI", "0 @W1@ INDI", "0 @W2@ INDI",
+		"0 @A@ INDI", "0 @B@ INDI", "0 @C@ INDI", "0 @X@ INDI", "0 @Y@ INDI", "0 @Z@ INDI", "0 @D@ INDI", "0 @E@ INDI",
+		"0 @G@ INDI", "0 @K@ INDI", "0 @U@ INDI",
+		"0 @F0@ FAM", "1 HUSB @P1@", "1 WIFE @P2@", "1 CHIL @H@", "1 CHIL @Q@",
+		"0 @F1@ FAM", "1 HUSB @H@", "1 WIFE @W1@", "1 CHIL @A@", "1 CHIL @B@",
+		"0 @F2@ FAM", "1 HUSB @H@", "1 WIFE @W2@", "1 CHIL @C@",
+		"0 @F3@ FAM", "1 HUSB @A@", "1 WIFE @X@", "1 CHIL @D@",
+		"0 @F4@ FAM", "1 HUSB @C@", "1 WIFE @Y@", "1 CHIL @E@",
+		"0 @F5@ FAM", "1 HUSB @Z@", "1 WIFE @B@", "1 CHIL @G@",
+		"0 @F6@ FAM", "1 HUSB @D@", "1 WIFE @G@", "1 CHIL @K@",
+		"0 @F7@ FAM", "1 HUSB @Q@", "1 WIFE @S@", "1 CHIL @R@"
+	};
+
+
+	private PedigreeFixtures(){}
+
+	/**
+	 * Builds the graph of a GEDCOM made of the given records, adding the header and the trailer.
+	 *
+	 * @param records	The lines of the records.
+	 * @return	The graph.
+	 */
+	static PedigreeGraph of(final String... records) throws GedcomGrammarParseException, GedcomParseException{
+		final StringBuilder sb = new StringBuilder("0 HEAD\n1 CHAR UTF-8\n");
+		for(final String line : records)
+			sb.append(line).append('\n');
+		sb.append("0 TRLR\n");
+
+		return PedigreeGraph.of(Gedcom.loadLazy(GRAMMAR_FILE, sb.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Builds a paternal line of the given number of individuals, {@code @I0@} being the child of {@code @I1@} and so on.
+	 *
+	 * @param size	The number of individuals.
+	 * @return	The graph.
+	 */
+	static PedigreeGraph paternalLine(final int size) throws GedcomGrammarParseException, GedcomParseException{
+		final String[] records = new String[size + (size - 1) * 3];
+		int index = 0;
+		for(int i = 0; i < size; i ++)
+			records[index ++] = "0 @I" + i + "@ INDI";
+		for(int i = 0; i + 1 < size; i ++){
+			records[index ++] = "0 @F" + i + "@ FAM";
+			records[index ++] = "1 HUSB @I" + (i + 1) + "@";
+			records[index ++] = "1 CHIL @I" + i + "@";
+		}
+		return of(records);
+	}
+
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import io.github.mtrevisan.familylegacy.gedcom.GedcomGrammarParseException;
+import io.github.mtrevisan.familylegacy.gedcom.GedcomParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+
+class PedigreeNumbererTest{
+
+	private static PedigreeGraph graph;
+	private static PedigreeNumberer numberer;
+
+
+	@BeforeAll
+	static void setUp() throws GedcomGrammarParseException, GedcomParseException{
+		graph = PedigreeFixtures.of(PedigreeFixtures.FAMILY);
+		numberer = new PedigreeNumberer(graph, 2);
+	}
+
+	@Test
+	void ahnentafelWithPedigreeCollapse(){
+		final PedigreeNumbering numbering = numbering("K");
+
+		Assertions.assertEquals(1L, ahnentafel(numbering, "K"));
+		Assertions.assertEquals(2L, ahnentafel(numbering, "D"));
+		Assertions.assertEquals(3L, ahnentafel(numbering, "G"));
+		Assertions.assertEquals(4L, ahnentafel(numbering, "A"));
+		Assertions.assertEquals(5L, ahnentafel(numbering, "X"));
+		Assertions.assertEquals(6L, ahnentafel(numbering, "Z"));
+		Assertions.assertEquals(7L, ahnentafel(numbering, "B"));
+		//H and W1 are reached both as 8 and 9 (through A) and as 14 and 15 (through B): the lowest numbers are kept
+		Assertions.assertEquals(8L, ahnentafel(numbering, "H"));
+		Assertions.assertEquals(9L, ahnentafel(numbering, "W1"));
+		Assertions.assertEquals(16L, ahnentafel(numbering, "P1"));
+		Assertions.assertEquals(17L, ahnentafel(numbering, "P2"));
+		Assertions.assertEquals(11, numbering.getAncestorCount());
+
+		Assertions.assertEquals(PedigreeGraph.NONE, ahnentafel(numbering, "C"));
+		Assertions.assertNull(numbering.getAhnentafelBigNumber(graph.getPersonIndex("C")));
+	}
+
+	@Test
+	void ahnentafelBeyondLong() throws GedcomGrammarParseException, GedcomParseException{
+		final PedigreeGraph line = PedigreeFixtures.paternalLine(66);
+		final PedigreeNumbering numbering = new PedigreeNumberer(line)
+			.getNumbering(line.getPersonIndex("I0"));
+
+		Assertions.assertEquals(66, numbering.getAncestorCount());
+		Assertions.assertEquals(1L << 62, numbering.getAhnentafelNumber(line.getPersonIndex("I62")));
+		Assertions.assertEquals(BigInteger.ONE.shiftLeft(62), numbering.getAhnentafelBigNumber(line.getPersonIndex("I62")));
+		//2^63 does not fit a long
+		Assertions.assertEquals(PedigreeGraph.NONE, numbering.getAhnentafelNumber(line.getPersonIndex("I63")));
+		Assertions.assertEquals(BigInteger.ONE.shiftLeft(63), numbering.getAhnentafelBigNumber(line.getPersonIndex("I63")));
+		Assertions.assertEquals(BigInteger.ONE.shiftLeft(65), numbering.getAhnentafelBigNumber(line.getPersonIndex("I65")));
+	}
+
+	@Test
+	void dAboville(){
+		final PedigreeNumbering numbering = numbering("H");
+
+		Assertions.assertEquals("1", dAboville(numbering, "H"));
+		Assertions.assertEquals("1.1", dAboville(numbering, "A"));
+		Assertions.assertEquals("1.2", dAboville(numbering, "B"));
+		Assertions.assertEquals("1.3", dAboville(numbering, "C"));
+		Assertions.assertEquals("1.1.1", dAboville(numbering, "D"));
+		Assertions.assertEquals("1.2.1", dAboville(numbering, "G"));
+		Assertions.assertEquals("1.3.1", dAboville(numbering, "E"));
+		//K descends from both D and G, it is numbered through D, reached first
+		Assertions.assertEquals("1.1.1.1", dAboville(numbering, "K"));
+		Assertions.assertEquals(8, numbering.getDescendantCount());
+
+		Assertions.assertNull(dAboville(numbering, "Q"));
+	}
+
+	@Test
+	void register(){
+		final PedigreeNumbering numbering = numbering("H");
+
+		Assertions.assertEquals(1, register(numbering, "H"));
+		Assertions.assertEquals(2, register(numbering, "A"));
+		Assertions.assertEquals(3, register(numbering, "B"));
+		Assertions.assertEquals(4, register(numbering, "C"));
+		Assertions.assertEquals(5, register(numbering, "D"));
+		Assertions.assertEquals(6, register(numbering, "G"));
+		//no children
+		Assertions.assertEquals(0, register(numbering, "E"));
+		Assertions.assertEquals(0, register(numbering, "K"));
+
+		Assertions.assertNull(numbering.getRegisterChildNumeral(graph.getPersonIndex("H")));
+		Assertions.assertEquals("i", numbering.getRegisterChildNumeral(graph.getPersonIndex("A")));
+		Assertions.assertEquals("ii", numbering.getRegisterChildNumeral(graph.getPersonIndex("B")));
+		Assertions.assertEquals("iii", numbering.getRegisterChildNumeral(graph.getPersonIndex("C")));
+	}
+
+	@Test
+	void cache(){
+		final PedigreeNumbering numbering = numbering("K");
+		Assertions.assertSame(numbering, numbering("K"));
+
+		numbering("H");
+		numbering("D");
+		//evicted by the two more recent roots
+		Assertions.assertNotSame(numbering, numbering("K"));
+	}
+
+
+	private static PedigreeNumbering numbering(final String root){
+		return numberer.getNumbering(graph.getPersonIndex(root));
+	}
+
+	private static long ahnentafel(final PedigreeNumbering numbering, final String id){
+		return numbering.getAhnentafelNumber(graph.getPersonIndex(id));
+	}
+
+	private static String dAboville(final PedigreeNumbering numbering, final String id){
+		return numbering.getDAbovilleNumber(graph.getPersonIndex(id));
+	}
+
+	private static int register(final PedigreeNumbering numbering, final String id){
+		return numbering.getRegisterNumber(graph.getPersonIndex(id));
+	}
+
+}
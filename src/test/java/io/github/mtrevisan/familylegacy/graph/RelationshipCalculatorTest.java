@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ * <p>
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.familylegacy.graph;
+
+import io.github.mtrevisan.familylegacy.gedcom.GedcomGrammarParseException;
+import io.github.mtrevisan.familylegacy.gedcom.GedcomParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+
+class RelationshipCalculatorTest{
+
+	private static PedigreeGraph graph;
+	private static RelationshipCalculator calculator;
+
+
+	@BeforeAll
+	static void setUp() throws GedcomGrammarParseException, GedcomParseException{
+		graph = PedigreeFixtures.of(PedigreeFixtures.FAMILY);
+		calculator = new RelationshipCalculator(graph);
+	}
+
+	@Test
+	void directLine(){
+		Assertions.assertEquals("self", describe("D", "D"));
+		Assertions.assertEquals("parent", describe("D", "A"));
+		Assertions.assertEquals("grandparent", describe("D", "H"));
+		Assertions.assertEquals("great-grandchild", describe("H", "K"));
+
+		final Relationship relationship = compute("K", "P1");
+		Assertions.assertTrue(relationship.isDirectLine());
+		Assertions.assertEquals(4, relationship.getFirstGenerations());
+		Assertions.assertEquals(0, relationship.getSecondGenerations());
+		Assertions.assertEquals(-1, relationship.getCousinDegree());
+	}
+
+	@Test
+	void siblings(){
+		final Relationship full = compute("A", "B");
+		Assertions.assertEquals("sibling", full.describe());
+		Assertions.assertFalse(full.isHalf());
+		Assertions.assertEquals(0, full.getCousinDegree());
+		Assertions.assertEquals(2, full.getCommonAncestors().length);
+
+		final Relationship half = compute("A", "C");
+		Assertions.assertEquals("half-sibling", half.describe());
+		Assertions.assertTrue(half.isHalf());
+		Assertions.assertArrayEquals(new int[]{graph.getPersonIndex("H")}, half.getCommonAncestors());
+	}
+
+	@Test
+	void auntsAndNieces(){
+		Assertions.assertEquals("aunt or uncle", describe("D", "B"));
+		Assertions.assertEquals("half-aunt or half-uncle", describe("D", "C"));
+		Assertions.assertEquals("half-niece or half-nephew", describe("C", "D"));
+		Assertions.assertEquals("great-aunt or great-uncle", describe("D", "Q"));
+		Assertions.assertEquals("great-great-aunt or great-great-uncle", describe("K", "Q"));
+		Assertions.assertEquals("grandniece or grandnephew", describe("Q", "D"));
+		Assertions.assertEquals("great-grandniece or great-grandnephew", describe("Q", "K"));
+	}
+
+	@Test
+	void cousins(){
+		final Relationship first = compute("D", "G");
+		Assertions.assertEquals("first cousin", first.describe());
+		Assertions.assertEquals(1, first.getCousinDegree());
+		Assertions.assertEquals(0, first.getRemoval());
+
+		Assertions.assertEquals("half-first cousin", describe("D", "E"));
+
+		final Relationship removed = compute("D", "R");
+		Assertions.assertEquals("first cousin once removed", removed.describe());
+		Assertions.assertEquals(1, removed.getCousinDegree());
+		Assertions.assertEquals(1, removed.getRemoval());
+
+		Assertions.assertEquals("half-first cousin once removed", describe("K", "E"));
+		Assertions.assertEquals("first cousin twice removed", describe("K", "R"));
+	}
+
+	@Test
+	void unrelated(){
+		final Relationship relationship = compute("A", "U");
+		Assertions.assertSame(Relationship.UNRELATED, relationship);
+		Assertions.assertFalse(relationship.isRelated());
+		Assertions.assertEquals("unrelated", relationship.describe());
+
+		//related only by marriage
+		Assertions.assertEquals("unrelated", describe("A", "X"));
+	}
+
+	@Test
+	void ordinals(){
+		Assertions.assertEquals("tenth cousin", cousin(10, 0));
+		Assertions.assertEquals("11th cousin", cousin(11, 0));
+		Assertions.assertEquals("13th cousin", cousin(13, 0));
+		Assertions.assertEquals("21st cousin", cousin(21, 0));
+		Assertions.assertEquals("22nd cousin once removed", cousin(22, 1));
+		Assertions.assertEquals("23rd cousin 3 times removed", cousin(23, 3));
+		Assertions.assertEquals("112th cousin", cousin(112, 0));
+	}
+
+
+	private static Relationship compute(final String first, final String second){
+		return calculator.compute(graph.getPersonIndex(first), graph.getPersonIndex(second));
+	}
+
+	private static String describe(final String first, final String second){
+		return compute(first, second).describe();
+	}
+
+	private static String cousin(final int degree, final int removal){
+		return new Relationship(new int[]{0}, degree + 1, degree + 1 + removal, false)
+			.describe();
+	}
+
+}